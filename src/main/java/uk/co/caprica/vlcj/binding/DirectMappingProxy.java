@@ -0,0 +1,181 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_player_t;
+
+import com.sun.jna.Library;
+import com.sun.jna.Pointer;
+import com.sun.jna.PointerType;
+
+/**
+ * Invocation handler that routes the functions available in {@link LibVlcDirect} to the
+ * direct-mapped binding, and every other function to the regular interface-mapped binding.
+ * <p>
+ * Other functions are delegated straight to the invocation handler of the interface-mapped
+ * binding rather than re-entering its proxy, so they cost no more than before.
+ * <p>
+ * If the target binding is synchronised, the direct-mapped functions are invoked while holding
+ * the same lock as the synchronised binding.
+ * <p>
+ * Invoking a direct-mapped function via this handler still costs the proxy dispatch, see
+ * {@link LibVlcDirectFunctions} for invoking them without it.
+ */
+class DirectMappingProxy implements InvocationHandler {
+
+    // Indexes of the direct-mapped functions
+
+    private static final int LIBVLC_MEDIA_PLAYER_IS_PLAYING = 0;
+
+    private static final int LIBVLC_MEDIA_PLAYER_GET_LENGTH = 1;
+
+    private static final int LIBVLC_MEDIA_PLAYER_GET_TIME = 2;
+
+    private static final int LIBVLC_MEDIA_PLAYER_GET_POSITION = 3;
+
+    private static final int LIBVLC_MEDIA_PLAYER_GET_RATE = 4;
+
+    private static final int LIBVLC_MEDIA_PLAYER_GET_STATE = 5;
+
+    private static final int LIBVLC_AUDIO_GET_MUTE = 6;
+
+    private static final int LIBVLC_AUDIO_GET_VOLUME = 7;
+
+    /**
+     * Map of interface method to direct-mapped function index.
+     * <p>
+     * This map is only ever read after it has been initialised.
+     */
+    private static final Map<Method, Integer> DIRECT_METHODS = new HashMap<Method, Integer>();
+
+    static {
+        directMethod("libvlc_media_player_is_playing", LIBVLC_MEDIA_PLAYER_IS_PLAYING);
+        directMethod("libvlc_media_player_get_length", LIBVLC_MEDIA_PLAYER_GET_LENGTH);
+        directMethod("libvlc_media_player_get_time", LIBVLC_MEDIA_PLAYER_GET_TIME);
+        directMethod("libvlc_media_player_get_position", LIBVLC_MEDIA_PLAYER_GET_POSITION);
+        directMethod("libvlc_media_player_get_rate", LIBVLC_MEDIA_PLAYER_GET_RATE);
+        directMethod("libvlc_media_player_get_state", LIBVLC_MEDIA_PLAYER_GET_STATE);
+        directMethod("libvlc_audio_get_mute", LIBVLC_AUDIO_GET_MUTE);
+        directMethod("libvlc_audio_get_volume", LIBVLC_AUDIO_GET_VOLUME);
+    }
+
+    /**
+     * Invocation handler of the interface-mapped binding.
+     */
+    private final InvocationHandler target;
+
+    /**
+     * Lock to hold when invoking a direct-mapped function, or <code>null</code> if the target
+     * binding is not synchronised.
+     */
+    private final Object lock;
+
+    /**
+     * Create an invocation handler.
+     *
+     * @param target interface-mapped binding, must be a JNA library proxy
+     * @param synchronise <code>true</code> if the target binding is synchronised; <code>false</code> if it is not
+     * @throws UnsatisfiedLinkError if the direct-mapped functions could not be bound
+     */
+    DirectMappingProxy(LibVlc target, boolean synchronise) {
+        LibVlcDirect.register();
+        this.target = Proxy.getInvocationHandler(target);
+        this.lock = synchronise ? ((Library.Handler)Proxy.getInvocationHandler(LibVlc.INSTANCE)).getNativeLibrary() : null;
+    }
+
+    /**
+     * Test whether or not the target binding is synchronised.
+     *
+     * @return <code>true</code> if the direct-mapped functions must hold the lock of the synchronised binding; <code>false</code> otherwise
+     */
+    boolean isSynchronised() {
+        return lock != null;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Integer index = DIRECT_METHODS.get(method);
+        if(index != null) {
+            Pointer p_mi = args[0] != null ? ((PointerType)args[0]).getPointer() : null;
+            if(lock != null) {
+                synchronized(lock) {
+                    return invokeDirect(index, p_mi);
+                }
+            }
+            else {
+                return invokeDirect(index, p_mi);
+            }
+        }
+        else {
+            return target.invoke(proxy, method, args);
+        }
+    }
+
+    /**
+     * Invoke a direct-mapped function.
+     *
+     * @param index direct-mapped function index
+     * @param p_mi native media player instance
+     * @return function result
+     */
+    private static Object invokeDirect(int index, Pointer p_mi) {
+        switch(index) {
+            case LIBVLC_MEDIA_PLAYER_IS_PLAYING:
+                return LibVlcDirect.libvlc_media_player_is_playing(p_mi);
+            case LIBVLC_MEDIA_PLAYER_GET_LENGTH:
+                return LibVlcDirect.libvlc_media_player_get_length(p_mi);
+            case LIBVLC_MEDIA_PLAYER_GET_TIME:
+                return LibVlcDirect.libvlc_media_player_get_time(p_mi);
+            case LIBVLC_MEDIA_PLAYER_GET_POSITION:
+                return LibVlcDirect.libvlc_media_player_get_position(p_mi);
+            case LIBVLC_MEDIA_PLAYER_GET_RATE:
+                return LibVlcDirect.libvlc_media_player_get_rate(p_mi);
+            case LIBVLC_MEDIA_PLAYER_GET_STATE:
+                return LibVlcDirect.libvlc_media_player_get_state(p_mi);
+            case LIBVLC_AUDIO_GET_MUTE:
+                return LibVlcDirect.libvlc_audio_get_mute(p_mi);
+            case LIBVLC_AUDIO_GET_VOLUME:
+                return LibVlcDirect.libvlc_audio_get_volume(p_mi);
+            default:
+                throw new IllegalArgumentException("Unknown direct-mapped function " + index);
+        }
+    }
+
+    /**
+     * Register an interface method that has a direct-mapped equivalent.
+     *
+     * @param name name of the function
+     * @param index direct-mapped function index
+     */
+    private static void directMethod(String name, int index) {
+        try {
+            DIRECT_METHODS.put(LibVlc.class.getMethod(name, libvlc_media_player_t.class), index);
+        }
+        catch(NoSuchMethodException e) {
+            throw new IllegalStateException("No such function " + name, e);
+        }
+    }
+}
@@ -56,6 +56,20 @@ public interface LibC extends Library {
      */
     int vsnprintf(ByteBuffer str, int size, String format, Pointer args);
 
+    /**
+     * Format a string with a variable arguments list into a fixed size buffer.
+     * <p>
+     * This is the same as {@link #vsnprintf(ByteBuffer, int, String, Pointer)} except the format
+     * string is passed as a native pointer, avoiding the conversion to and from a Java String.
+     *
+     * @param str buffer
+     * @param size capacity of the buffer, including space for a null terminator
+     * @param format native format string
+     * @param args format arguments
+     * @return length of the formatted string, which may exceed the capacity of the buffer, or less than zero on error
+     */
+    int vsnprintf(ByteBuffer str, int size, Pointer format, Pointer args);
+
     /**
      * Locks (pins) parts of virtual address space into RAM so it can not be swapped out.
      *
@@ -0,0 +1,85 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import uk.co.caprica.vlcj.runtime.RuntimeUtil;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+/**
+ * JNA direct-mapped binding for a small number of frequently invoked libvlc functions.
+ * <p>
+ * Interface-mapped functions (see {@link LibVlc}) are invoked via a reflective proxy and have
+ * their arguments and return values converted on every call. Direct-mapped functions are bound
+ * to the native functions when this class is initialised and are invoked as plain Java native
+ * methods, which is much cheaper.
+ * <p>
+ * Only functions that are polled repeatedly (e.g. to update a user interface) and that take and
+ * return only primitive values are mapped here. The native media player instance is passed as a
+ * plain {@link Pointer}.
+ * <p>
+ * These functions are not invoked directly by applications, see {@link LibVlcFactory#direct()}.
+ */
+final class LibVlcDirect {
+
+    /**
+     * True if the native functions have been bound.
+     */
+    private static boolean registered;
+
+    /**
+     * Prevent direct instantiation by others.
+     */
+    private LibVlcDirect() {
+    }
+
+    /**
+     * Bind the native functions, if they have not already been bound.
+     * <p>
+     * This must be invoked before any of the functions are used.
+     *
+     * @throws UnsatisfiedLinkError if the native library or any of the functions can not be found
+     */
+    static synchronized void register() {
+        if(!registered) {
+            Native.register(LibVlcDirect.class, RuntimeUtil.getLibVlcLibraryName());
+            registered = true;
+        }
+    }
+
+    // See the equivalent functions in LibVlc for documentation.
+
+    static native int libvlc_media_player_is_playing(Pointer p_mi);
+
+    static native long libvlc_media_player_get_length(Pointer p_mi);
+
+    static native long libvlc_media_player_get_time(Pointer p_mi);
+
+    static native float libvlc_media_player_get_position(Pointer p_mi);
+
+    static native float libvlc_media_player_get_rate(Pointer p_mi);
+
+    static native int libvlc_media_player_get_state(Pointer p_mi);
+
+    static native int libvlc_audio_get_mute(Pointer p_mi);
+
+    static native int libvlc_audio_get_volume(Pointer p_mi);
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_player_t;
+
+import com.sun.jna.Pointer;
+
+/**
+ * The direct-mapped functions of a native library instance, invoked without going through any
+ * proxy.
+ * <p>
+ * A native library instance created with {@link LibVlcFactory#direct()} routes the direct-mapped
+ * functions through a proxy, which still costs a reflective dispatch, a function lookup and the
+ * boxing of the arguments and result on every call. Components that poll these functions
+ * frequently, like the media player, invoke them here instead, as plain native methods.
+ * <p>
+ * This is only possible for a native library instance that is neither synchronised nor measured,
+ * logged or synchronised per native object, since the proxies for those must see every call, see
+ * {@link #isAvailable(LibVlc)}.
+ */
+public final class LibVlcDirectFunctions {
+
+    /**
+     * Prevent direct instantiation by others.
+     */
+    private LibVlcDirectFunctions() {
+    }
+
+    /**
+     * Test whether or not the direct-mapped functions may be invoked here in place of a native
+     * library instance.
+     *
+     * @param libvlc native library instance
+     * @return <code>true</code> if the functions may be invoked here; <code>false</code> if they must be invoked via the native library instance
+     */
+    public static boolean isAvailable(LibVlc libvlc) {
+        if(Proxy.isProxyClass(libvlc.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(libvlc);
+            return handler instanceof DirectMappingProxy && !((DirectMappingProxy)handler).isSynchronised();
+        }
+        return false;
+    }
+
+    // See the equivalent functions in LibVlc for documentation.
+
+    public static int libvlc_media_player_is_playing(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_is_playing(pointer(p_mi));
+    }
+
+    public static long libvlc_media_player_get_length(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_get_length(pointer(p_mi));
+    }
+
+    public static long libvlc_media_player_get_time(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_get_time(pointer(p_mi));
+    }
+
+    public static float libvlc_media_player_get_position(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_get_position(pointer(p_mi));
+    }
+
+    public static float libvlc_media_player_get_rate(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_get_rate(pointer(p_mi));
+    }
+
+    public static int libvlc_media_player_get_state(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_media_player_get_state(pointer(p_mi));
+    }
+
+    public static int libvlc_audio_get_mute(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_audio_get_mute(pointer(p_mi));
+    }
+
+    public static int libvlc_audio_get_volume(libvlc_media_player_t p_mi) {
+        return LibVlcDirect.libvlc_audio_get_volume(pointer(p_mi));
+    }
+
+    /**
+     * Get the native pointer of a media player instance.
+     *
+     * @param p_mi media player instance, may be <code>null</code>
+     * @return native pointer, or <code>null</code>
+     */
+    private static Pointer pointer(libvlc_media_player_t p_mi) {
+        return p_mi != null ? p_mi.getPointer() : null;
+    }
+}
@@ -43,6 +43,12 @@ import uk.co.caprica.vlcj.version.Version;
  * <pre>
  * LibVlc libvlc = LibVlcFactory.factory().atLeast(&quot;2.0.0&quot;).log().create();
  * </pre>
+ *
+ * Or, to use the faster direct-mapped binding for frequently polled functions:
+ *
+ * <pre>
+ * LibVlc libvlc = LibVlcFactory.factory().direct().create();
+ * </pre>
  */
 public class LibVlcFactory {
 
@@ -72,16 +78,38 @@ public class LibVlcFactory {
         "32-bit native libraries.\n\n" +
         "More information may be available in the log.\n";
 
+    /**
+     * Default number of locks used when synchronising per native object.
+     */
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+
     /**
      * True if the access to the native library should be synchronised.
      */
     private boolean synchronise;
 
+    /**
+     * Number of locks if the access to the native library should be synchronised per native
+     * object, or zero if not.
+     */
+    private int lockStripes;
+
     /**
      * True if the access to the native library should be logged.
      */
     private boolean log;
 
+    /**
+     * True if direct-mapping should be used for those functions that support it.
+     */
+    private boolean direct;
+
+    /**
+     * Metrics to record native function calls with, or <code>null</code> if calls should not be
+     * recorded.
+     */
+    private NativeCallMetrics metrics;
+
     /**
      * At least this native library version is required.
      */
@@ -114,6 +142,40 @@ public class LibVlcFactory {
      */
     public LibVlcFactory synchronise() {
         this.synchronise = true;
+        this.lockStripes = 0;
+        return this;
+    }
+
+    /**
+     * Request that the libvlc native library instance be synchronised per native object, rather
+     * than with a single global lock.
+     * <p>
+     * Calls for the same native object (e.g. the same media player, or the same libvlc instance)
+     * are serialised, but calls for different native objects can proceed concurrently.
+     * <p>
+     * This replaces any previous request for {@link #synchronise()}.
+     *
+     * @return factory
+     */
+    public LibVlcFactory synchronisePerObject() {
+        return synchronisePerObject(DEFAULT_LOCK_STRIPES);
+    }
+
+    /**
+     * Request that the libvlc native library instance be synchronised per native object, rather
+     * than with a single global lock.
+     * <p>
+     * See {@link #synchronisePerObject()}.
+     * <p>
+     * Native objects share a fixed number of locks, more locks means less chance that calls for
+     * two different native objects are serialised.
+     *
+     * @param stripes number of locks, rounded up to a power of two
+     * @return factory
+     */
+    public LibVlcFactory synchronisePerObject(int stripes) {
+        this.synchronise = false;
+        this.lockStripes = Math.max(stripes, 1);
         return this;
     }
 
@@ -127,6 +189,38 @@ public class LibVlcFactory {
         return this;
     }
 
+    /**
+     * Request that the libvlc native library instance use direct-mapping for the frequently
+     * invoked functions that support it.
+     * <p>
+     * These are the functions typically polled to update a user interface, e.g. to get the
+     * current play-back time, position, volume and so on. All other functions continue to use
+     * the regular interface-mapped binding.
+     * <p>
+     * Unless the instance is also synchronised, measured, logged or synchronised per native object,
+     * media players invoke these functions without going through the binding proxy at all, see
+     * {@link LibVlcDirectFunctions}.
+     *
+     * @return factory
+     */
+    public LibVlcFactory direct() {
+        this.direct = true;
+        return this;
+    }
+
+    /**
+     * Request that the call count and elapsed time of every native function call be recorded.
+     * <p>
+     * The same metrics instance may be shared by more than one native library instance.
+     *
+     * @param metrics metrics to record the function calls with
+     * @return factory
+     */
+    public LibVlcFactory metrics(NativeCallMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
     /**
      * Request that the libvlc native library be of at least a particular version.
      *
@@ -163,6 +257,18 @@ public class LibVlcFactory {
         // Synchronised or not...
         try {
             LibVlc instance = synchronise ? LibVlc.SYNC_INSTANCE : LibVlc.INSTANCE;
+            // Direct-mapped...
+            if(direct) {
+                instance = (LibVlc)Proxy.newProxyInstance(LibVlc.class.getClassLoader(), new Class<?>[] {LibVlc.class}, new DirectMappingProxy(instance, synchronise));
+            }
+            // Synchronised per native object...
+            if(lockStripes > 0) {
+                instance = (LibVlc)Proxy.newProxyInstance(LibVlc.class.getClassLoader(), new Class<?>[] {LibVlc.class}, new StripedLockProxy(instance, lockStripes));
+            }
+            // Measured...
+            if(metrics != null) {
+                instance = (LibVlc)Proxy.newProxyInstance(LibVlc.class.getClassLoader(), new Class<?>[] {LibVlc.class}, new MetricsProxy(instance, metrics));
+            }
             // Logged...
             if(log) {
                 instance = (LibVlc)Proxy.newProxyInstance(LibVlc.class.getClassLoader(), new Class<?>[] {LibVlc.class}, new LoggingProxy(instance));
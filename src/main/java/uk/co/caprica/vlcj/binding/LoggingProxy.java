@@ -53,6 +53,15 @@ class LoggingProxy implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        // Avoid formatting the arguments and results at all unless they will actually be logged
+        if(!logger.isTraceEnabled()) {
+            try {
+                return method.invoke(target, args);
+            }
+            catch(InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
         Object result;
         try {
             before(method, args);
@@ -61,7 +70,7 @@ class LoggingProxy implements InvocationHandler {
         }
         catch(InvocationTargetException e) {
             exception(method, e.getCause());
-            throw e;
+            throw e.getCause();
         }
         return result;
     }
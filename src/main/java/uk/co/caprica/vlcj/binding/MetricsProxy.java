@@ -0,0 +1,101 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Invocation handler that records the call count and elapsed time of every native function call.
+ * <p>
+ * The elapsed time includes any time spent waiting for a lock if the target binding is
+ * synchronised.
+ */
+class MetricsProxy implements InvocationHandler {
+
+    /**
+     * Invocation handler of the target binding.
+     */
+    private final InvocationHandler target;
+
+    /**
+     * Metrics to record the function calls with.
+     */
+    private final NativeCallMetrics metrics;
+
+    /**
+     * Function index by method, keyed by identity.
+     * <p>
+     * A proxy always passes the same method instances, so after the first call of each function
+     * the index is found without the comparisons of {@link Method#equals(Object)}. The map is
+     * copied on write, so it can be read without locking.
+     */
+    private volatile Map<Method, Integer> indexes = new IdentityHashMap<Method, Integer>();
+
+    /**
+     * Create an invocation handler.
+     *
+     * @param target target binding, must be a proxy
+     * @param metrics metrics to record the function calls with
+     */
+    MetricsProxy(LibVlc target, NativeCallMetrics metrics) {
+        this.target = Proxy.getInvocationHandler(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        int index = index(method);
+        if(index != -1) {
+            long start = System.nanoTime();
+            try {
+                return target.invoke(proxy, method, args);
+            }
+            finally {
+                metrics.record(index, System.nanoTime() - start);
+            }
+        }
+        else {
+            return target.invoke(proxy, method, args);
+        }
+    }
+
+    /**
+     * Get the index of a function, resolving it only the first time the method is seen.
+     *
+     * @param method function
+     * @return index, or -1 if the method is not a function of the native library
+     */
+    private int index(Method method) {
+        Integer result = indexes.get(method);
+        if(result == null) {
+            result = metrics.index(method);
+            synchronized(this) {
+                Map<Method, Integer> newIndexes = new IdentityHashMap<Method, Integer>(indexes);
+                newIndexes.put(method, result);
+                indexes = newIndexes;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Call count and latency metrics for the functions of the native library.
+ * <p>
+ * An instance of this class is passed to {@link LibVlcFactory#metrics(NativeCallMetrics)}, every
+ * function call made via the resultant native library instance is then recorded.
+ * <p>
+ * For each function, the number of calls, the total and maximum elapsed time, and a histogram of
+ * elapsed times are recorded. The histogram buckets are powers of two nanoseconds, bucket
+ * <em>n</em> counting calls that took at least 2<sup>n</sup> but less than 2<sup>n+1</sup>
+ * nanoseconds (the first bucket also counts calls that took less than one nanosecond, and the
+ * last bucket counts all calls that took longer).
+ * <p>
+ * Recording is lock-free. A snapshot taken while calls are in progress is not atomic across all
+ * functions, but the counters for each function are never lost.
+ * <p>
+ * For example:
+ *
+ * <pre>
+ * NativeCallMetrics metrics = new NativeCallMetrics();
+ * LibVlc libvlc = LibVlcFactory.factory().metrics(metrics).create();
+ * ...
+ * for(NativeCallMetrics.FunctionMetrics function : metrics.snapshot()) {
+ *     System.out.println(function);
+ * }
+ * </pre>
+ */
+public final class NativeCallMetrics {
+
+    /**
+     * Number of histogram buckets.
+     */
+    public static final int BUCKET_COUNT = 32;
+
+    /**
+     * Number of counters kept for each function, ahead of the histogram buckets.
+     */
+    private static final int COUNTERS = 3;
+
+    /**
+     * Offset of the call count counter.
+     */
+    private static final int COUNT = 0;
+
+    /**
+     * Offset of the total elapsed time counter.
+     */
+    private static final int TOTAL = 1;
+
+    /**
+     * Offset of the maximum elapsed time counter.
+     */
+    private static final int MAX = 2;
+
+    /**
+     * Number of counters kept for each function.
+     */
+    private static final int STRIDE = COUNTERS + BUCKET_COUNT;
+
+    /**
+     * Functions of the native library, in index order.
+     */
+    private static final Method[] METHODS = LibVlc.class.getMethods();
+
+    /**
+     * Map of function to function index.
+     * <p>
+     * This map is only ever read after it has been initialised.
+     */
+    private static final Map<Method, Integer> METHOD_INDEX = new HashMap<Method, Integer>(METHODS.length * 2);
+
+    static {
+        for(int i = 0; i < METHODS.length; i++) {
+            METHOD_INDEX.put(METHODS[i], i);
+        }
+    }
+
+    /**
+     * Counters for all functions, {@link #STRIDE} counters for each function index.
+     */
+    private final AtomicLongArray counters = new AtomicLongArray(METHODS.length * STRIDE);
+
+    /**
+     * Get the index of a function.
+     * <p>
+     * This is not intended to be invoked for every call, see {@link MetricsProxy}.
+     *
+     * @param method function
+     * @return index, or -1 if the method is not a function of the native library
+     */
+    int index(Method method) {
+        Integer index = METHOD_INDEX.get(method);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Record a function call.
+     *
+     * @param index function index
+     * @param elapsed elapsed time, in nanoseconds
+     */
+    void record(int index, long elapsed) {
+        int base = index * STRIDE;
+        counters.incrementAndGet(base + COUNT);
+        counters.addAndGet(base + TOTAL, elapsed);
+        long max;
+        while(elapsed > (max = counters.get(base + MAX))) {
+            if(counters.compareAndSet(base + MAX, max, elapsed)) {
+                break;
+            }
+        }
+        counters.incrementAndGet(base + COUNTERS + bucket(elapsed));
+    }
+
+    /**
+     * Get a snapshot of the metrics for every function that has been called.
+     *
+     * @return metrics, ordered by total elapsed time, highest first
+     */
+    public List<FunctionMetrics> snapshot() {
+        List<FunctionMetrics> result = new ArrayList<FunctionMetrics>();
+        for(int i = 0; i < METHODS.length; i++) {
+            int base = i * STRIDE;
+            long count = counters.get(base + COUNT);
+            if(count > 0) {
+                long[] histogram = new long[BUCKET_COUNT];
+                for(int j = 0; j < BUCKET_COUNT; j++) {
+                    histogram[j] = counters.get(base + COUNTERS + j);
+                }
+                result.add(new FunctionMetrics(METHODS[i].getName(), count, counters.get(base + TOTAL), counters.get(base + MAX), histogram));
+            }
+        }
+        Collections.sort(result, new Comparator<FunctionMetrics>() {
+            @Override
+            public int compare(FunctionMetrics o1, FunctionMetrics o2) {
+                return o1.totalNanos < o2.totalNanos ? 1 : o1.totalNanos > o2.totalNanos ? -1 : 0;
+            }
+        });
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Reset all of the metrics.
+     */
+    public void reset() {
+        for(int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * Get the histogram bucket for an elapsed time.
+     *
+     * @param elapsed elapsed time, in nanoseconds
+     * @return bucket index
+     */
+    private static int bucket(long elapsed) {
+        if(elapsed <= 1) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(elapsed), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Immutable metrics for a single function.
+     */
+    public static final class FunctionMetrics {
+
+        /**
+         * Function name.
+         */
+        private final String name;
+
+        /**
+         * Number of calls.
+         */
+        private final long count;
+
+        /**
+         * Total elapsed time, in nanoseconds.
+         */
+        private final long totalNanos;
+
+        /**
+         * Maximum elapsed time, in nanoseconds.
+         */
+        private final long maxNanos;
+
+        /**
+         * Number of calls in each histogram bucket.
+         */
+        private final long[] histogram;
+
+        /**
+         * Create function metrics.
+         *
+         * @param name function name
+         * @param count number of calls
+         * @param totalNanos total elapsed time, in nanoseconds
+         * @param maxNanos maximum elapsed time, in nanoseconds
+         * @param histogram number of calls in each histogram bucket
+         */
+        private FunctionMetrics(String name, long count, long totalNanos, long maxNanos, long[] histogram) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.histogram = histogram;
+        }
+
+        /**
+         * Get the function name.
+         *
+         * @return name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Get the number of calls.
+         *
+         * @return number of calls
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Get the total elapsed time.
+         *
+         * @return time, in nanoseconds
+         */
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Get the maximum elapsed time.
+         *
+         * @return time, in nanoseconds
+         */
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Get the mean elapsed time.
+         *
+         * @return time, in nanoseconds
+         */
+        public double meanNanos() {
+            return count > 0 ? (double)totalNanos / count : 0;
+        }
+
+        /**
+         * Get the number of calls in each histogram bucket.
+         *
+         * @return copy of the histogram, {@link NativeCallMetrics#BUCKET_COUNT} values
+         */
+        public long[] histogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Get an estimate of a percentile of the elapsed time.
+         * <p>
+         * The value returned is the upper bound of the histogram bucket that contains the
+         * percentile, so it is accurate to within a factor of two.
+         *
+         * @param percentile percentile, from 0 to 100
+         * @return time, in nanoseconds
+         */
+        public long percentileNanos(double percentile) {
+            long rank = (long)Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+            long seen = 0;
+            for(int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if(seen >= rank && seen > 0) {
+                    return Math.min(1L << (i + 1), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(200);
+            sb.append(getClass().getSimpleName()).append('[');
+            sb.append("name=").append(name).append(',');
+            sb.append("count=").append(count).append(',');
+            sb.append("totalNanos=").append(totalNanos).append(',');
+            sb.append("meanNanos=").append(String.format("%.1f", meanNanos())).append(',');
+            sb.append("p99Nanos=").append(percentileNanos(99)).append(',');
+            sb.append("maxNanos=").append(maxNanos).append(',');
+            sb.append("histogram=").append(Arrays.toString(histogram)).append(']');
+            return sb.toString();
+        }
+    }
+}
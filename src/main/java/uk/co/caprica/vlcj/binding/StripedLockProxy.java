@@ -0,0 +1,106 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.binding;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.sun.jna.PointerType;
+
+/**
+ * Invocation handler that synchronises access to the native library per native object rather
+ * than with a single global lock.
+ * <p>
+ * The lock for a function call is chosen by the first native object passed to it - for example
+ * the media player for media player functions, or the libvlc instance for instance functions.
+ * Calls for the same native object are therefore serialised, whereas calls for different native
+ * objects (e.g. two different media players) can proceed concurrently.
+ * <p>
+ * Locks are taken from a fixed-size table (lock striping) so no per-object state is kept, at the
+ * cost of occasionally serialising calls for two different native objects that share a stripe.
+ * <p>
+ * Functions that do not take a native object (e.g. getting the version) share one further lock.
+ */
+class StripedLockProxy implements InvocationHandler {
+
+    /**
+     * Invocation handler of the target binding.
+     */
+    private final InvocationHandler target;
+
+    /**
+     * Lock table.
+     */
+    private final Object[] locks;
+
+    /**
+     * Mask to select a lock from the lock table.
+     */
+    private final int mask;
+
+    /**
+     * Lock for functions that do not take a native object.
+     */
+    private final Object globalLock = new Object();
+
+    /**
+     * Create an invocation handler.
+     *
+     * @param target target binding, must be a proxy
+     * @param stripes minimum number of locks, rounded up to the next power of two
+     */
+    StripedLockProxy(LibVlc target, int stripes) {
+        this.target = Proxy.getInvocationHandler(target);
+        int size = Integer.highestOneBit(Math.max(stripes, 1) - 1) << 1;
+        this.locks = new Object[Math.max(size, 1)];
+        for(int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.mask = locks.length - 1;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        synchronized(lock(args)) {
+            return target.invoke(proxy, method, args);
+        }
+    }
+
+    /**
+     * Get the lock for a function call.
+     *
+     * @param args function arguments, may be <code>null</code>
+     * @return lock
+     */
+    private Object lock(Object[] args) {
+        if(args != null) {
+            for(Object arg : args) {
+                if(arg instanceof PointerType) {
+                    // Native objects are aligned, so spread the high bits into the low bits
+                    int hash = arg.hashCode();
+                    hash ^= (hash >>> 16) ^ (hash >>> 4);
+                    return locks[hash & mask];
+                }
+            }
+        }
+        return globalLock;
+    }
+}
@@ -35,8 +35,9 @@ public interface libvlc_log_cb extends Callback {
      * @param data data pointer as given to libvlc_log_set()
      * @param level message level {@link libvlc_log_level_e}
      * @param ctx message context (meta-informations about the message)
-     * @param format printf() format string (as defined by ISO C11)
+     * @param format printf() format string (as defined by ISO C11), passed as a native pointer so
+     *               that no conversion is required for messages that are not going to be formatted
      * @param args variable argument list for the format
      */
-    void log(Pointer data, int level, libvlc_log_t ctx, String format, Pointer args);
+    void log(Pointer data, int level, libvlc_log_t ctx, Pointer format, Pointer args);
 }
@@ -21,10 +21,18 @@ package uk.co.caprica.vlcj.log;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +43,9 @@ import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_log_cb;
 import uk.co.caprica.vlcj.binding.internal.libvlc_log_level_e;
 import uk.co.caprica.vlcj.binding.internal.libvlc_log_t;
-import uk.co.caprica.vlcj.version.LibVlcVersion;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
 
+import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
@@ -50,6 +59,18 @@ import com.sun.jna.ptr.PointerByReference;
  * The default log level is {@link libvlc_log_level_e#NOTICE}, this can be changed
  * by invoking {@link #setLevel(libvlc_log_level_e)}.
  * <p>
+ * Noisy native modules can flood the log, so messages at or above the threshold level
+ * can additionally be throttled:
+ * <ul>
+ *   <li>a per-module rate limit, see {@link #setRateLimit(int)} and {@link #setRateLimit(String, Integer)};</li>
+ *   <li>suppression of consecutive duplicate messages from the same module, see
+ *       {@link #setSuppressDuplicates(boolean)}.</li>
+ * </ul>
+ * When messages have been suppressed, a summary message (e.g. "12 similar messages suppressed")
+ * is sent to the listeners before the next message from the same module is delivered.
+ * <p>
+ * Message counters per level and per module can be polled via {@link #getStatistics()}.
+ * <p>
  * <strong>The native log requires vlc 2.1.0 or later.</strong>
  */
 public class NativeLog {
@@ -61,6 +82,36 @@ public class NativeLog {
      */
     private static final int BUFFER_SIZE = 200 + 1;
 
+    /**
+     * Largest string buffer size that a truncated message will be formatted again for.
+     */
+    private static final int MAXIMUM_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum number of idle format contexts kept for reuse.
+     */
+    private static final int FORMAT_CONTEXT_POOL_SIZE = 8;
+
+    /**
+     * Size of the native variable argument list structure, see {@link #vaListSize()}.
+     */
+    private static final int VA_LIST_SIZE = vaListSize();
+
+    /**
+     * Number of native log level values, used to size the per-level counters.
+     */
+    private static final int LEVEL_COUNT = libvlc_log_level_e.ERROR.intValue() + 1;
+
+    /**
+     * Length of a rate limit window, in nanoseconds.
+     */
+    private static final long RATE_LIMIT_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Value used for a disabled rate limit.
+     */
+    private static final int NO_RATE_LIMIT = 0;
+
     /**
      * Log.
      */
@@ -104,7 +155,51 @@ public class NativeLog {
      * <p>
      * Set to <code>null</code> to suppress all log messages.
      */
-    private libvlc_log_level_e logLevel = libvlc_log_level_e.NOTICE;
+    private volatile libvlc_log_level_e logLevel = libvlc_log_level_e.NOTICE;
+
+    /**
+     * Pool of idle format contexts.
+     * <p>
+     * The native log callback may be invoked on many different native threads, each of which is
+     * attached to the JVM only for the duration of the callback, so thread-local storage would not
+     * be reused - instead a small lock-free pool is used.
+     */
+    private final AtomicReferenceArray<FormatContext> formatContexts = new AtomicReferenceArray<FormatContext>(FORMAT_CONTEXT_POOL_SIZE);
+
+    /**
+     * Default maximum number of messages per second for each module, or {@link #NO_RATE_LIMIT}.
+     */
+    private volatile int defaultRateLimit = NO_RATE_LIMIT;
+
+    /**
+     * Maximum number of messages per second for specific modules, overriding the default.
+     */
+    private final ConcurrentMap<String, Integer> rateLimits = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * True if consecutive duplicate messages from the same module should be suppressed.
+     */
+    private volatile boolean suppressDuplicates;
+
+    /**
+     * Throttling state and counters for each module.
+     */
+    private final ConcurrentMap<String, ModuleState> modules = new ConcurrentHashMap<String, ModuleState>();
+
+    /**
+     * Number of messages received, indexed by native log level.
+     */
+    private final AtomicLongArray receivedCounts = new AtomicLongArray(LEVEL_COUNT);
+
+    /**
+     * Number of messages delivered, indexed by native log level.
+     */
+    private final AtomicLongArray deliveredCounts = new AtomicLongArray(LEVEL_COUNT);
+
+    /**
+     * Number of messages suppressed, indexed by native log level.
+     */
+    private final AtomicLongArray suppressedCounts = new AtomicLongArray(LEVEL_COUNT);
 
     /**
      * Create a new native log component.
@@ -113,7 +208,7 @@ public class NativeLog {
      * @param instance libvlc instance
      */
     public NativeLog(LibVlc libvlc, libvlc_instance_t instance) {
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_210)) {
+        if(LibVlcCapabilities.capabilities(libvlc).isNativeLogAvailable()) {
             this.libvlc = libvlc;
             this.instance = instance;
             createInstance();
@@ -164,6 +259,100 @@ public class NativeLog {
         return logLevel;
     }
 
+    /**
+     * Set the default rate limit applied to each module.
+     * <p>
+     * Messages from a module that exceed the limit within a one second window are discarded
+     * without being formatted.
+     *
+     * @param maxPerSecond maximum number of messages per second for each module, zero or less for no limit
+     */
+    public final void setRateLimit(int maxPerSecond) {
+        logger.debug("setRateLimit(maxPerSecond={})", maxPerSecond);
+        this.defaultRateLimit = Math.max(maxPerSecond, NO_RATE_LIMIT);
+    }
+
+    /**
+     * Set the rate limit for a specific module, overriding the default rate limit.
+     *
+     * @param module module name
+     * @param maxPerSecond maximum number of messages per second, zero or less for no limit, or <code>null</code> to use the default
+     */
+    public final void setRateLimit(String module, Integer maxPerSecond) {
+        logger.debug("setRateLimit(module={},maxPerSecond={})", module, maxPerSecond);
+        if(maxPerSecond != null) {
+            rateLimits.put(module, Math.max(maxPerSecond, NO_RATE_LIMIT));
+        }
+        else {
+            rateLimits.remove(module);
+        }
+    }
+
+    /**
+     * Get the default rate limit applied to each module.
+     *
+     * @return maximum number of messages per second, zero for no limit
+     */
+    public final int getRateLimit() {
+        return defaultRateLimit;
+    }
+
+    /**
+     * Set whether or not consecutive duplicate messages from the same module are suppressed.
+     * <p>
+     * A message is a duplicate if it has the same level and text as the previous message delivered
+     * for the same module.
+     *
+     * @param suppressDuplicates <code>true</code> to suppress duplicates; <code>false</code> to deliver them
+     */
+    public final void setSuppressDuplicates(boolean suppressDuplicates) {
+        logger.debug("setSuppressDuplicates(suppressDuplicates={})", suppressDuplicates);
+        this.suppressDuplicates = suppressDuplicates;
+    }
+
+    /**
+     * Are consecutive duplicate messages from the same module suppressed?
+     *
+     * @return <code>true</code> if duplicates are suppressed; <code>false</code> otherwise
+     */
+    public final boolean isSuppressDuplicates() {
+        return suppressDuplicates;
+    }
+
+    /**
+     * Get a snapshot of the message counters.
+     *
+     * @return statistics
+     */
+    public final NativeLogStatistics getStatistics() {
+        logger.debug("getStatistics()");
+        EnumMap<libvlc_log_level_e, NativeLogStatistics.Counts> levels = new EnumMap<libvlc_log_level_e, NativeLogStatistics.Counts>(libvlc_log_level_e.class);
+        for(libvlc_log_level_e level : libvlc_log_level_e.values()) {
+            int index = level.intValue();
+            levels.put(level, new NativeLogStatistics.Counts(receivedCounts.get(index), deliveredCounts.get(index), suppressedCounts.get(index)));
+        }
+        TreeMap<String, NativeLogStatistics.Counts> moduleCounts = new TreeMap<String, NativeLogStatistics.Counts>();
+        for(Map.Entry<String, ModuleState> entry : modules.entrySet()) {
+            moduleCounts.put(entry.getKey(), entry.getValue().counts());
+        }
+        return new NativeLogStatistics(levels, moduleCounts);
+    }
+
+    /**
+     * Reset all of the message counters.
+     * <p>
+     * Any pending summary of suppressed messages is discarded.
+     */
+    public final void resetStatistics() {
+        logger.debug("resetStatistics()");
+        for(int i = 0; i < LEVEL_COUNT; i++) {
+            receivedCounts.set(i, 0);
+            deliveredCounts.set(i, 0);
+            suppressedCounts.set(i, 0);
+        }
+        modules.clear();
+    }
+
     /**
      * Release the native log component.
      */
@@ -209,52 +398,374 @@ public class NativeLog {
     }
 
     /**
-     *
-     *
+     * Native log callback.
+     * <p>
      * This implementation must be thread-safe.
+     * <p>
+     * Messages below the log threshold level are discarded before anything else is done, in
+     * particular before the message is formatted. Messages that exceed a rate limit are likewise
+     * discarded before they are formatted.
      */
     private final class NativeLogCallback implements libvlc_log_cb {
 
         @Override
-        public void log(Pointer data, int level, libvlc_log_t ctx, String format, Pointer args) {
+        public void log(Pointer data, int level, libvlc_log_t ctx, Pointer format, Pointer args) {
+            int levelIndex = levelIndex(level);
+            receivedCounts.incrementAndGet(levelIndex);
             // If the log is not being suppressed...
-            if(logLevel != null && level >= logLevel.intValue()) {
-                // Allocate a new buffer to hold the formatted log message
-                ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
-                // Delegate to the native library to format the log message
-                int size = LibC.INSTANCE.vsnprintf(byteBuffer, byteBuffer.capacity(), format, args);
-                // If the message was formatted without error...
-                if(size >= 0) {
-                    // FIXME could reallocate a new buffer here and try again if size > capacity?
-                    // Determine the number of available characters (actually number of bytes)
-                    size = Math.min(size, BUFFER_SIZE);
-                    // Create a new string from the byte buffer contents
-                    byte[] bytes = new byte[size];
-                    byteBuffer.get(bytes);
-                    String message = new String(bytes);
-                    if(message.length() > 0) {
-                        // Get the information about the object that emitted the log statement
-                        PointerByReference modulePointer = new PointerByReference();
-                        PointerByReference filePointer = new PointerByReference();
-                        IntByReference linePointer = new IntByReference();
-                        libvlc.libvlc_log_get_context(ctx, modulePointer, filePointer, linePointer);
-                        PointerByReference namePointer = new PointerByReference();
-                        PointerByReference headerPointer = new PointerByReference();
-                        IntByReference idPointer = new IntByReference();
-                        libvlc.libvlc_log_get_object(ctx, namePointer, headerPointer, idPointer);
-                        String module = getString(modulePointer);
-                        String file = getString(filePointer);
-                        Integer line = linePointer.getValue();
-                        String name = getString(namePointer);
-                        String header = getString(headerPointer);
-                        Integer id = idPointer.getValue();
-                        // ...send the event
-                        raiseLogEvent(libvlc_log_level_e.level(level), module, file, line, name, header, id, message);
+            libvlc_log_level_e threshold = logLevel;
+            if(threshold != null && level >= threshold.intValue()) {
+                FormatContext context = acquireFormatContext();
+                try {
+                    // The module is needed to apply the rate limit, before the message is formatted
+                    libvlc.libvlc_log_get_context(ctx, context.modulePointer, context.filePointer, context.linePointer);
+                    String module = getString(context.modulePointer);
+                    ModuleState state = moduleState(module);
+                    if(!state.admit(rateLimit(module), System.nanoTime())) {
+                        suppressedCounts.incrementAndGet(levelIndex);
+                        return;
+                    }
+                    // Delegate to the native library to format the log message
+                    String message = context.format(format, args);
+                    // If the message was formatted without error...
+                    if(message != null) {
+                        if(message.length() > 0) {
+                            // Serialise per module so that summaries and messages are raised in order
+                            synchronized(state) {
+                                if(suppressDuplicates && state.isDuplicate(level, message)) {
+                                    state.duplicates++;
+                                    state.suppressed++;
+                                    suppressedCounts.incrementAndGet(levelIndex);
+                                    return;
+                                }
+                                // Get the information about the object that emitted the log statement
+                                libvlc.libvlc_log_get_object(ctx, context.namePointer, context.headerPointer, context.idPointer);
+                                String file = getString(context.filePointer);
+                                Integer line = context.linePointer.getValue();
+                                String name = getString(context.namePointer);
+                                String header = getString(context.headerPointer);
+                                Integer id = context.idPointer.getValue();
+                                // Report anything suppressed since the previous delivered message
+                                if(state.duplicates > 0) {
+                                    raiseLogEvent(libvlc_log_level_e.level(state.lastLevel), module, file, line, name, header, id, state.duplicates + " similar messages suppressed");
+                                    state.duplicates = 0;
+                                }
+                                if(state.rateSuppressed > 0) {
+                                    raiseLogEvent(libvlc_log_level_e.level(level), module, file, line, name, header, id, state.rateSuppressed + " messages suppressed by rate limit");
+                                    state.rateSuppressed = 0;
+                                }
+                                state.lastLevel = level;
+                                state.lastMessage = message;
+                                state.delivered++;
+                                deliveredCounts.incrementAndGet(levelIndex);
+                                // ...send the event
+                                raiseLogEvent(libvlc_log_level_e.level(level), module, file, line, name, header, id, message);
+                            }
+                        }
+                    }
+                    else {
+                        logger.error("Failed to format log message");
                     }
                 }
-                else {
-                    logger.error("Failed to format log message");
+                finally {
+                    releaseFormatContext(context);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the counter index for a native log level.
+     * <p>
+     * Unexpected native levels are counted with the nearest known level.
+     *
+     * @param level native log level
+     * @return counter index
+     */
+    private static int levelIndex(int level) {
+        return Math.min(Math.max(level, 0), LEVEL_COUNT - 1);
+    }
+
+    /**
+     * Get the rate limit for a module.
+     *
+     * @param module module name, may be <code>null</code>
+     * @return maximum number of messages per second, or {@link #NO_RATE_LIMIT}
+     */
+    private int rateLimit(String module) {
+        if(module != null && !rateLimits.isEmpty()) {
+            Integer limit = rateLimits.get(module);
+            if(limit != null) {
+                return limit;
+            }
+        }
+        return defaultRateLimit;
+    }
+
+    /**
+     * Get, creating if necessary, the throttling state for a module.
+     *
+     * @param module module name, may be <code>null</code>
+     * @return module state
+     */
+    private ModuleState moduleState(String module) {
+        String key = module != null ? module : "";
+        ModuleState state = modules.get(key);
+        if(state == null) {
+            ModuleState newState = new ModuleState();
+            state = modules.putIfAbsent(key, newState);
+            if(state == null) {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Throttling state and counters for a single module.
+     * <p>
+     * All fields are guarded by the instance lock.
+     */
+    private static final class ModuleState {
+
+        /**
+         * Start time of the current rate limit window, in nanoseconds.
+         */
+        private long windowStart;
+
+        /**
+         * Number of messages admitted in the current rate limit window.
+         */
+        private int windowCount;
+
+        /**
+         * Number of messages discarded by the rate limit since the last delivered message.
+         */
+        private long rateSuppressed;
+
+        /**
+         * Number of duplicate messages discarded since the last delivered message.
+         */
+        private long duplicates;
+
+        /**
+         * Native level of the last delivered message.
+         */
+        private int lastLevel = -1;
+
+        /**
+         * Text of the last delivered message.
+         */
+        private String lastMessage;
+
+        /**
+         * Number of messages received.
+         */
+        private long received;
+
+        /**
+         * Number of messages delivered.
+         */
+        private long delivered;
+
+        /**
+         * Number of messages suppressed.
+         */
+        private long suppressed;
+
+        /**
+         * Count a received message and check it against the rate limit.
+         *
+         * @param limit maximum number of messages per second, or {@link #NO_RATE_LIMIT}
+         * @param now current time, in nanoseconds
+         * @return <code>true</code> if the message is admitted; <code>false</code> if it must be discarded
+         */
+        private synchronized boolean admit(int limit, long now) {
+            received++;
+            if(limit == NO_RATE_LIMIT) {
+                return true;
+            }
+            if(now - windowStart >= RATE_LIMIT_WINDOW) {
+                windowStart = now;
+                windowCount = 0;
+            }
+            if(windowCount < limit) {
+                windowCount++;
+                return true;
+            }
+            else {
+                rateSuppressed++;
+                suppressed++;
+                return false;
+            }
+        }
+
+        /**
+         * Is a message the same as the last delivered message?
+         * <p>
+         * The caller must hold the instance lock.
+         *
+         * @param level native log level
+         * @param message message text
+         * @return <code>true</code> if the message is a duplicate; <code>false</code> otherwise
+         */
+        private boolean isDuplicate(int level, String message) {
+            return level == lastLevel && message.equals(lastMessage);
+        }
+
+        /**
+         * Get a snapshot of the counters.
+         *
+         * @return counters
+         */
+        private synchronized NativeLogStatistics.Counts counts() {
+            return new NativeLogStatistics.Counts(received, delivered, suppressed);
+        }
+    }
+
+    /**
+     * Get a format context from the pool, or create a new one if none are available.
+     *
+     * @return format context
+     */
+    private FormatContext acquireFormatContext() {
+        for(int i = 0; i < formatContexts.length(); i++) {
+            FormatContext context = formatContexts.getAndSet(i, null);
+            if(context != null) {
+                return context;
+            }
+        }
+        return new FormatContext();
+    }
+
+    /**
+     * Return a format context to the pool, it is simply discarded if the pool is full.
+     *
+     * @param context format context
+     */
+    private void releaseFormatContext(FormatContext context) {
+        for(int i = 0; i < formatContexts.length(); i++) {
+            if(formatContexts.compareAndSet(i, null, context)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the size of the native variable argument list structure that must be saved and restored
+     * in order to format the same arguments more than once.
+     * <p>
+     * Where a <code>va_list</code> is simply a pointer passed by value, formatting does not change
+     * it so nothing need be saved. Where it is a structure passed by reference, formatting consumes
+     * it so it must be copied first (equivalent to <code>va_copy</code>).
+     *
+     * @return size in bytes, zero if nothing need be saved, or less than zero if the layout is not
+     *         known and the arguments can therefore only be formatted once
+     */
+    private static int vaListSize() {
+        if(Platform.isWindows() || !Platform.is64Bit()) {
+            return 0;
+        }
+        else if(Platform.isIntel()) {
+            // System V AMD64 ABI
+            return 24;
+        }
+        else if("aarch64".equals(Platform.ARCH)) {
+            // AAPCS64, except on OSX where va_list is a pointer
+            return Platform.isMac() ? 0 : 32;
+        }
+        else {
+            return -1;
+        }
+    }
+
+    /**
+     * Reusable native buffers and reference holders used to format a log message and get its
+     * context.
+     * <p>
+     * An instance is only ever used by one thread at a time.
+     */
+    private static final class FormatContext {
+
+        /**
+         * Native buffer to hold the formatted message, grows as necessary.
+         */
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        /**
+         * Java buffer to copy the formatted message into, grows as necessary.
+         */
+        private byte[] bytes = new byte[BUFFER_SIZE];
+
+        /**
+         * Saved copy of the native variable argument list.
+         */
+        private final byte[] vaList = new byte[Math.max(VA_LIST_SIZE, 0)];
+
+        /**
+         * Module name reference.
+         */
+        private final PointerByReference modulePointer = new PointerByReference();
+
+        /**
+         * File name reference.
+         */
+        private final PointerByReference filePointer = new PointerByReference();
+
+        /**
+         * Line number reference.
+         */
+        private final IntByReference linePointer = new IntByReference();
+
+        /**
+         * Object name reference.
+         */
+        private final PointerByReference namePointer = new PointerByReference();
+
+        /**
+         * Object header reference.
+         */
+        private final PointerByReference headerPointer = new PointerByReference();
+
+        /**
+         * Object identifier reference.
+         */
+        private final IntByReference idPointer = new IntByReference();
+
+        /**
+         * Format a log message.
+         * <p>
+         * If the message does not fit in the buffer, the buffer is enlarged and the message is
+         * formatted again (if that is possible on this platform).
+         *
+         * @param format native format string
+         * @param args native format arguments
+         * @return formatted message, or <code>null</code> on error
+         */
+        private String format(Pointer format, Pointer args) {
+            if(VA_LIST_SIZE > 0) {
+                args.read(0, vaList, 0, VA_LIST_SIZE);
+            }
+            int size = LibC.INSTANCE.vsnprintf(buffer, buffer.capacity(), format, args);
+            if(size >= buffer.capacity() && VA_LIST_SIZE >= 0 && size < MAXIMUM_BUFFER_SIZE) {
+                // The message was truncated, enlarge the buffers and try again with the original arguments
+                buffer = ByteBuffer.allocateDirect(size + 1);
+                bytes = new byte[size + 1];
+                if(VA_LIST_SIZE > 0) {
+                    args.write(0, vaList, 0, VA_LIST_SIZE);
                 }
+                size = LibC.INSTANCE.vsnprintf(buffer, buffer.capacity(), format, args);
+            }
+            if(size >= 0) {
+                // Determine the number of available characters (actually number of bytes),
+                // excluding the null terminator
+                size = Math.min(size, buffer.capacity() - 1);
+                buffer.clear();
+                buffer.get(bytes, 0, size);
+                return new String(bytes, 0, size);
+            }
+            else {
+                return null;
             }
         }
     }
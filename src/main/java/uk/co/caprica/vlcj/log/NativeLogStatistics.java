@@ -0,0 +1,173 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.log;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_log_level_e;
+
+/**
+ * Immutable snapshot of the aggregated message counters of a {@link NativeLog}.
+ * <p>
+ * Messages are counted per log level and per module:
+ * <ul>
+ *   <li><em>received</em> - the native log produced the message;</li>
+ *   <li><em>delivered</em> - the message was sent to the log listeners;</li>
+ *   <li><em>suppressed</em> - the message was discarded by a rate limit or as a duplicate.</li>
+ * </ul>
+ * Per level, messages below the log threshold level are counted as received but neither delivered
+ * nor suppressed. Per module, only messages at or above the log threshold level are counted.
+ * <p>
+ * The counters are cumulative since the log was created, or since the counters were last reset.
+ */
+public final class NativeLogStatistics {
+
+    /**
+     * Counters per log level.
+     */
+    private final Map<libvlc_log_level_e, Counts> levels;
+
+    /**
+     * Counters per module, sorted by module name.
+     */
+    private final Map<String, Counts> modules;
+
+    /**
+     * Create a statistics snapshot.
+     *
+     * @param levels counters per log level
+     * @param modules counters per module
+     */
+    NativeLogStatistics(EnumMap<libvlc_log_level_e, Counts> levels, TreeMap<String, Counts> modules) {
+        this.levels = Collections.unmodifiableMap(levels);
+        this.modules = Collections.unmodifiableMap(modules);
+    }
+
+    /**
+     * Get the counters for a log level.
+     *
+     * @param level log level
+     * @return counters
+     */
+    public Counts level(libvlc_log_level_e level) {
+        return levels.get(level);
+    }
+
+    /**
+     * Get the counters for all log levels.
+     *
+     * @return unmodifiable map of log level to counters
+     */
+    public Map<libvlc_log_level_e, Counts> levels() {
+        return levels;
+    }
+
+    /**
+     * Get the counters for all modules.
+     *
+     * @return unmodifiable map of module name to counters, sorted by module name
+     */
+    public Map<String, Counts> modules() {
+        return modules;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("levels=").append(levels).append(',');
+        sb.append("modules=").append(modules).append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Message counters.
+     */
+    public static final class Counts {
+
+        /**
+         * Number of messages received.
+         */
+        private final long received;
+
+        /**
+         * Number of messages delivered.
+         */
+        private final long delivered;
+
+        /**
+         * Number of messages suppressed.
+         */
+        private final long suppressed;
+
+        /**
+         * Create counters.
+         *
+         * @param received number of messages received
+         * @param delivered number of messages delivered
+         * @param suppressed number of messages suppressed
+         */
+        Counts(long received, long delivered, long suppressed) {
+            this.received = received;
+            this.delivered = delivered;
+            this.suppressed = suppressed;
+        }
+
+        /**
+         * Get the number of messages received.
+         *
+         * @return number of messages
+         */
+        public long received() {
+            return received;
+        }
+
+        /**
+         * Get the number of messages delivered to the log listeners.
+         *
+         * @return number of messages
+         */
+        public long delivered() {
+            return delivered;
+        }
+
+        /**
+         * Get the number of messages suppressed by a rate limit or as duplicates.
+         *
+         * @return number of messages
+         */
+        public long suppressed() {
+            return suppressed;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(60);
+            sb.append(getClass().getSimpleName()).append('[');
+            sb.append("received=").append(received).append(',');
+            sb.append("delivered=").append(delivered).append(',');
+            sb.append("suppressed=").append(suppressed).append(']');
+            return sb.toString();
+        }
+    }
+}
@@ -39,6 +39,8 @@ import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_list_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+import uk.co.caprica.vlcj.binding.internal.media_list_item_added;
+import uk.co.caprica.vlcj.binding.internal.media_list_item_deleted;
 import uk.co.caprica.vlcj.medialist.events.MediaListEvent;
 import uk.co.caprica.vlcj.medialist.events.MediaListEventFactory;
 import uk.co.caprica.vlcj.player.MediaResourceLocator;
@@ -112,6 +114,39 @@ public class MediaList {
      */
     private String[] standardMediaOptions;
 
+    /**
+     * Java-side mirror of the items in the native list, <code>null</code> if the list is not
+     * mirrored or the mirror must be rebuilt.
+     * <p>
+     * Changed only while holding both the native list lock and the mirror lock, so it is always
+     * consistent with the native list.
+     */
+    private ArrayList<MediaListItem> mirror;
+
+    /**
+     * Immutable copy of the mirror, <code>null</code> if the mirror has changed since the copy
+     * was made.
+     */
+    private volatile List<MediaListItem> mirrorSnapshot;
+
+    /**
+     * Set when the list is mirrored.
+     */
+    private volatile boolean mirrored;
+
+    /**
+     * Lock guarding the mirror.
+     */
+    private final Object mirrorLock = new Object();
+
+    /**
+     * Set while a batch of items is being added or removed, to suppress the individual item
+     * events.
+     * <p>
+     * Only changed while holding the native list lock.
+     */
+    private volatile boolean batching;
+
     /**
      * Create a new media list.
      *
@@ -235,6 +270,167 @@ public class MediaList {
         }
     }
 
+    /**
+     * Add many media items, with the same options, to the play-list.
+     * <p>
+     * All of the native media are created before the native list lock is taken, the lock is then
+     * taken only once to add them all.
+     * <p>
+     * Listeners receive a single {@link MediaListEventListener#mediaListItemsAdded(MediaList, int, int)}
+     * event rather than an event for each item.
+     *
+     * @param mrls media resource locators
+     * @param mediaOptions zero or more media item options
+     * @return number of items added, fewer than requested only if the list became read-only
+     */
+    public final int addMedia(List<String> mrls, String... mediaOptions) {
+        logger.debug("addMedia(mrls={},mediaOptions={})", mrls.size(), Arrays.toString(mediaOptions));
+        return insertMediaItems(-1, mrls, mediaOptions);
+    }
+
+    /**
+     * Insert many media items, with the same options, to the play-list.
+     * <p>
+     * All of the native media are created before the native list lock is taken, the lock is then
+     * taken only once to insert them all.
+     * <p>
+     * Listeners receive a single {@link MediaListEventListener#mediaListItemsAdded(MediaList, int, int)}
+     * event rather than an event for each item.
+     *
+     * @param index position at which to insert the first media item (counting from zero)
+     * @param mrls media resource locators
+     * @param mediaOptions zero or more media item options
+     * @return number of items inserted, fewer than requested only if the list became read-only
+     * @throws IndexOutOfBoundsException if the index is not within the list
+     */
+    public final int insertMedia(int index, List<String> mrls, String... mediaOptions) {
+        logger.debug("insertMedia(index={},mrls={},mediaOptions={})", index, mrls.size(), Arrays.toString(mediaOptions));
+        if(index < 0) {
+            throw new IndexOutOfBoundsException("Index " + index);
+        }
+        return insertMediaItems(index, mrls, mediaOptions);
+    }
+
+    /**
+     * Remove a range of media items from the play-list.
+     * <p>
+     * The native list lock is taken only once to remove them all.
+     * <p>
+     * Listeners receive a single {@link MediaListEventListener#mediaListItemsDeleted(MediaList, int, int)}
+     * event rather than an event for each item.
+     *
+     * @param index first item to remove (counting from zero)
+     * @param count number of items to remove
+     * @return number of items removed, fewer than requested only if the list became read-only
+     * @throws IndexOutOfBoundsException if the range is not within the list
+     */
+    public final int removeMedia(int index, int count) {
+        logger.debug("removeMedia(index={},count={})", index, count);
+        int removed = 0;
+        try {
+            lock();
+            int size = libvlc.libvlc_media_list_count(mediaListInstance);
+            if(index < 0 || count < 0 || index + count > size) {
+                throw new IndexOutOfBoundsException("Range " + index + "+" + count + " for size " + size);
+            }
+            batching = true;
+            // Remove from the end of the range back to the start, so fewer items move
+            for(int i = index + count - 1; i >= index; i--) {
+                if(libvlc.libvlc_media_list_remove_index(mediaListInstance, i) != 0) {
+                    break;
+                }
+                removed++;
+            }
+            synchronized(mirrorLock) {
+                if(mirror != null) {
+                    mirror.subList(index + count - removed, index + count).clear();
+                    mirrorSnapshot = null;
+                }
+            }
+        }
+        finally {
+            batching = false;
+            unlock();
+        }
+        if(removed > 0 && !eventListenerList.isEmpty()) {
+            raiseEvent(eventFactory.createItemsDeletedEvent(index + count - removed, removed));
+        }
+        return removed;
+    }
+
+    /**
+     * Insert, or add, many media items under a single acquisition of the native list lock.
+     *
+     * @param index position at which to insert the first media item, or -1 to add to the end
+     * @param mrls media resource locators
+     * @param mediaOptions zero or more media item options
+     * @return number of items inserted
+     */
+    private int insertMediaItems(int index, List<String> mrls, String... mediaOptions) {
+        List<libvlc_media_t> mediaDescriptors = new ArrayList<libvlc_media_t>(mrls.size());
+        try {
+            // Creating the native media does not need the list lock
+            for(String mrl : mrls) {
+                mediaDescriptors.add(newMediaDescriptor(mrl, mediaOptions));
+            }
+            List<MediaListItem> items = mirrored ? newMediaListItems(mediaDescriptors) : null;
+            int start;
+            int inserted = 0;
+            try {
+                lock();
+                int size = libvlc.libvlc_media_list_count(mediaListInstance);
+                if(index > size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " for size " + size);
+                }
+                start = index < 0 ? size : index;
+                batching = true;
+                for(libvlc_media_t mediaDescriptor : mediaDescriptors) {
+                    if(libvlc.libvlc_media_list_insert_media(mediaListInstance, mediaDescriptor, start + inserted) != 0) {
+                        break;
+                    }
+                    inserted++;
+                }
+                synchronized(mirrorLock) {
+                    if(mirror != null) {
+                        if(items == null) {
+                            items = newMediaListItems(mediaDescriptors);
+                        }
+                        mirror.addAll(start, items.subList(0, inserted));
+                        mirrorSnapshot = null;
+                    }
+                }
+            }
+            finally {
+                batching = false;
+                unlock();
+            }
+            if(inserted > 0 && !eventListenerList.isEmpty()) {
+                raiseEvent(eventFactory.createItemsAddedEvent(start, inserted));
+            }
+            return inserted;
+        }
+        finally {
+            // The list holds its own native references
+            for(libvlc_media_t mediaDescriptor : mediaDescriptors) {
+                releaseMediaDescriptor(mediaDescriptor);
+            }
+        }
+    }
+
+    /**
+     * Create media list items for native media instances.
+     *
+     * @param mediaInstances native media instances
+     * @return media list items
+     */
+    private List<MediaListItem> newMediaListItems(List<libvlc_media_t> mediaInstances) {
+        List<MediaListItem> result = new ArrayList<MediaListItem>(mediaInstances.size());
+        for(libvlc_media_t mediaInstance : mediaInstances) {
+            result.add(newMediaListItem(mediaInstance));
+        }
+        return result;
+    }
+
     /**
      * Clear the list.
      */
@@ -259,6 +455,9 @@ public class MediaList {
      */
     public final int size() {
         logger.debug("size()");
+        if(mirrored) {
+            return mirrorSnapshot().size();
+        }
         try {
             lock();
             int size = libvlc.libvlc_media_list_count(mediaListInstance);
@@ -282,23 +481,200 @@ public class MediaList {
 
     /**
      * Get the list of items.
+     * <p>
+     * If the list is mirrored, the returned list is an immutable snapshot.
      *
      * @return list of items
      */
     public final List<MediaListItem> items() {
         logger.debug("items()");
-        List<MediaListItem> result = new ArrayList<MediaListItem>();
+        if(mirrored) {
+            return mirrorSnapshot();
+        }
+        try {
+            lock();
+            return nativeItems();
+        }
+        finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Get an item.
+     *
+     * @param index index of the item (counting from zero)
+     * @return item
+     * @throws IndexOutOfBoundsException if there is no item at the index
+     */
+    public final MediaListItem item(int index) {
+        logger.debug("item(index={})", index);
+        if(mirrored) {
+            return mirrorSnapshot().get(index);
+        }
         try {
             lock();
-            for(int i = 0; i < libvlc.libvlc_media_list_count(mediaListInstance); i++) {
-                libvlc_media_t mediaInstance = libvlc.libvlc_media_list_item_at_index(mediaListInstance, i);
-                result.add(newMediaListItem(mediaInstance));
-                libvlc.libvlc_media_release(mediaInstance);
+            libvlc_media_t mediaInstance = libvlc.libvlc_media_list_item_at_index(mediaListInstance, index);
+            if(mediaInstance == null) {
+                throw new IndexOutOfBoundsException("No item at index " + index);
             }
+            MediaListItem result = newMediaListItem(mediaInstance);
+            libvlc.libvlc_media_release(mediaInstance);
+            return result;
         }
         finally {
             unlock();
         }
+    }
+
+    /**
+     * Set whether or not to keep a Java-side mirror of the items in this list.
+     * <p>
+     * Without a mirror, each invocation of {@link #size()}, {@link #items()} or
+     * {@link #item(int)} walks the native list while holding the native list lock, making many
+     * native calls for each item. With a mirror, these methods are answered from an immutable
+     * snapshot without locking or calling the native list at all.
+     * <p>
+     * The mirror is built once from the native list and then kept up to date from the native item
+     * added and deleted events, whether the list is changed through this class or otherwise.
+     * <p>
+     * The name, MRL and sub-items of each mirrored item are captured when the item is added to the
+     * list. Later changes, for example a new title after the media is parsed or sub-items found
+     * when it is played, are not reflected until {@link #refreshMirror()} is invoked.
+     *
+     * @param mirrored <code>true</code> to mirror the list; <code>false</code> to stop mirroring it
+     */
+    public final void setMirrored(boolean mirrored) {
+        logger.debug("setMirrored(mirrored={})", mirrored);
+        try {
+            lock();
+            synchronized(mirrorLock) {
+                this.mirror = mirrored ? new ArrayList<MediaListItem>(nativeItems()) : null;
+                this.mirrorSnapshot = null;
+                this.mirrored = mirrored;
+            }
+        }
+        finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Test whether or not this list is mirrored.
+     *
+     * @return <code>true</code> if the list is mirrored; <code>false</code> otherwise
+     */
+    public final boolean isMirrored() {
+        return mirrored;
+    }
+
+    /**
+     * Rebuild the mirror from the native list, picking up changes to the items themselves.
+     * <p>
+     * This has no effect if the list is not mirrored.
+     */
+    public final void refreshMirror() {
+        logger.debug("refreshMirror()");
+        if(mirrored) {
+            setMirrored(true);
+        }
+    }
+
+    /**
+     * Get an immutable snapshot of the mirror, copying the mirror only if it has changed since the
+     * last snapshot was made.
+     *
+     * @return snapshot
+     */
+    private List<MediaListItem> mirrorSnapshot() {
+        List<MediaListItem> result = mirrorSnapshot;
+        if(result == null) {
+            synchronized(mirrorLock) {
+                if(mirror != null) {
+                    result = mirrorSnapshot;
+                    if(result == null) {
+                        result = Collections.unmodifiableList(new ArrayList<MediaListItem>(mirror));
+                        mirrorSnapshot = result;
+                    }
+                }
+            }
+            if(result == null) {
+                // The mirror could not follow a native change so rebuild it, taking the locks in
+                // the same order as the native event call-back does
+                logger.debug("Rebuilding mirror");
+                try {
+                    lock();
+                    synchronized(mirrorLock) {
+                        if(!mirrored) {
+                            return Collections.unmodifiableList(nativeItems());
+                        }
+                        if(mirror == null) {
+                            mirror = new ArrayList<MediaListItem>(nativeItems());
+                        }
+                        result = Collections.unmodifiableList(new ArrayList<MediaListItem>(mirror));
+                        mirrorSnapshot = result;
+                    }
+                }
+                finally {
+                    unlock();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Apply a native item added or deleted event to the mirror.
+     * <p>
+     * The native list lock is held by whoever changed the list while the event is raised.
+     *
+     * @param event native event
+     */
+    private void updateMirror(libvlc_event_t event) {
+        libvlc_event_e eventType = libvlc_event_e.event(event.type);
+        if(eventType == libvlc_event_e.libvlc_MediaListItemAdded || eventType == libvlc_event_e.libvlc_MediaListItemDeleted) {
+            synchronized(mirrorLock) {
+                if(mirror != null) {
+                    if(eventType == libvlc_event_e.libvlc_MediaListItemAdded) {
+                        media_list_item_added added = (media_list_item_added)event.u.getTypedValue(media_list_item_added.class);
+                        if(added.index >= 0 && added.index <= mirror.size()) {
+                            mirror.add(added.index, newMediaListItem(added.item));
+                        }
+                        else {
+                            logger.warn("Item added at unexpected index {}, mirror will be rebuilt", added.index);
+                            mirror = null;
+                        }
+                    }
+                    else {
+                        media_list_item_deleted deleted = (media_list_item_deleted)event.u.getTypedValue(media_list_item_deleted.class);
+                        if(deleted.index >= 0 && deleted.index < mirror.size()) {
+                            mirror.remove(deleted.index);
+                        }
+                        else {
+                            logger.warn("Item deleted at unexpected index {}, mirror will be rebuilt", deleted.index);
+                            mirror = null;
+                        }
+                    }
+                    mirrorSnapshot = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create media list items for every item in the native list.
+     * <p>
+     * The native list lock must be held.
+     *
+     * @return list of items
+     */
+    private List<MediaListItem> nativeItems() {
+        List<MediaListItem> result = new ArrayList<MediaListItem>();
+        for(int i = 0; i < libvlc.libvlc_media_list_count(mediaListInstance); i++) {
+            libvlc_media_t mediaInstance = libvlc.libvlc_media_list_item_at_index(mediaListInstance, i);
+            result.add(newMediaListItem(mediaInstance));
+            libvlc.libvlc_media_release(mediaInstance);
+        }
         return result;
     }
 
@@ -517,6 +893,13 @@ public class MediaList {
         @Override
         public void callback(libvlc_event_t event, Pointer userData) {
             logger.trace("callback(event={},userData={})", event, userData);
+            if(batching && event.type < libvlc_event_e.libvlc_MediaListEndReached.intValue()) {
+                // Item events for a batch are applied and raised once the batch is complete
+                return;
+            }
+            if(mirrored) {
+                updateMirror(event);
+            }
             if(!eventListenerList.isEmpty()) {
                 // Create a new media player event for the native event
                 raiseEvent(eventFactory.createEvent(event));
@@ -50,6 +50,14 @@ public class MediaListEventAdapter implements MediaListEventListener {
     public void mediaListItemDeleted(MediaList mediaList, libvlc_media_t mediaInstance, int index) {
     }
 
+    @Override
+    public void mediaListItemsAdded(MediaList mediaList, int index, int count) {
+    }
+
+    @Override
+    public void mediaListItemsDeleted(MediaList mediaList, int index, int count) {
+    }
+
     @Override
     public void mediaListEndReached(MediaList mediaList) {
     }
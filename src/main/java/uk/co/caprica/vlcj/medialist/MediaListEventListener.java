@@ -63,6 +63,31 @@ public interface MediaListEventListener {
      */
     void mediaListItemDeleted(MediaList mediaList, libvlc_media_t mediaInstance, int index);
 
+    /**
+     * A range of media items was added to the list together.
+     * <p>
+     * This event is raised instead of the individual item events when items are added with
+     * {@link MediaList#addMedia(java.util.List, String...)} or
+     * {@link MediaList#insertMedia(int, java.util.List, String...)}.
+     *
+     * @param mediaList list
+     * @param index index of the first item added
+     * @param count number of items added
+     */
+    void mediaListItemsAdded(MediaList mediaList, int index, int count);
+
+    /**
+     * A range of media items was deleted from the list together.
+     * <p>
+     * This event is raised instead of the individual item events when items are removed with
+     * {@link MediaList#removeMedia(int, int)}.
+     *
+     * @param mediaList list
+     * @param index index of the first item deleted
+     * @param count number of items deleted
+     */
+    void mediaListItemsDeleted(MediaList mediaList, int index, int count);
+
     /**
      * The end of the media list was reached.
      *
@@ -0,0 +1,66 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.medialist;
+
+import java.io.File;
+
+/**
+ * Play-list file formats understood by {@link PlaylistLoader}.
+ */
+public enum PlaylistFormat {
+
+    /**
+     * M3U (and M3U8) - one entry per line, comments and extended information on lines starting
+     * with '#'.
+     */
+    M3U,
+
+    /**
+     * PLS - an ini-style file with an entry on each "FileN=" line.
+     */
+    PLS,
+
+    /**
+     * XSPF - XML with an entry in the "location" element of each "track".
+     */
+    XSPF;
+
+    /**
+     * Get the format of a play-list file from its file name extension.
+     *
+     * @param file play-list file
+     * @return format, or <code>null</code> if the extension is not recognised
+     */
+    public static PlaylistFormat forFile(File file) {
+        String name = file.getName().toLowerCase();
+        if(name.endsWith(".m3u") || name.endsWith(".m3u8")) {
+            return M3U;
+        }
+        else if(name.endsWith(".pls")) {
+            return PLS;
+        }
+        else if(name.endsWith(".xspf")) {
+            return XSPF;
+        }
+        else {
+            return null;
+        }
+    }
+}
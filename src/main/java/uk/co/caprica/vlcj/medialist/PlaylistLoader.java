@@ -0,0 +1,632 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.medialist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.player.MediaResourceLocator;
+
+/**
+ * Loads M3U, PLS and XSPF play-list files directly into a {@link MediaList}.
+ * <p>
+ * Giving a play-list file to libvlc means playing or parsing it and then reading the entries back
+ * from the sub-items of the media, which for play-lists with many thousands of entries is slow
+ * and creates every native media item up front. This loader instead streams the play-list file
+ * through a fixed size buffer and adds the entries to the media list in batches using
+ * {@link MediaList#addMedia(List, String...)}, so memory use is bounded by the buffer and batch
+ * sizes whatever the size of the play-list file.
+ * <p>
+ * Relative entries are resolved against the directory containing the play-list file, locations
+ * such as "http://..." are added unchanged.
+ * <p>
+ * A loader may be used for many play-lists, but only to load one at a time.
+ */
+public class PlaylistLoader {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(PlaylistLoader.class);
+
+    /**
+     * Default number of entries to add to the media list at once.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Default size of the file read buffer.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Longest line that will be accepted, longer lines are skipped.
+     */
+    private static final int MAXIMUM_LINE_LENGTH = 32 * 1024;
+
+    /**
+     * Number of entries to add to the media list at once.
+     */
+    private final int batchSize;
+
+    /**
+     * Size of the file read buffer.
+     */
+    private final int bufferSize;
+
+    /**
+     * Character set for M3U and PLS files.
+     */
+    private Charset charset = Charset.forName("UTF-8");
+
+    /**
+     * Component to notify of progress, may be <code>null</code>.
+     */
+    private PlaylistLoaderListener listener;
+
+    /**
+     * Set to stop the current load.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Create a play-list loader with default batch and buffer sizes.
+     */
+    public PlaylistLoader() {
+        this(DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a play-list loader.
+     *
+     * @param batchSize number of entries to add to the media list at once
+     * @param bufferSize size of the file read buffer, in bytes
+     */
+    public PlaylistLoader(int batchSize, int bufferSize) {
+        if(batchSize < 1 || bufferSize < 16) {
+            throw new IllegalArgumentException("Invalid batch or buffer size");
+        }
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Set the character set of M3U and PLS files, the default is UTF-8.
+     * <p>
+     * XSPF files declare their own encoding.
+     *
+     * @param charset character set
+     */
+    public void setCharset(Charset charset) {
+        logger.debug("setCharset(charset={})", charset);
+        this.charset = charset;
+    }
+
+    /**
+     * Set the component to notify of progress.
+     *
+     * @param listener listener, or <code>null</code> for none
+     */
+    public void setListener(PlaylistLoaderListener listener) {
+        logger.debug("setListener(listener={})", listener);
+        this.listener = listener;
+    }
+
+    /**
+     * Stop the current load, the entries added so far remain in the media list.
+     * <p>
+     * This method may be invoked from any thread.
+     */
+    public void cancel() {
+        logger.debug("cancel()");
+        cancelled = true;
+    }
+
+    /**
+     * Load a play-list file, in the format given by its file name extension, and add the entries
+     * to the end of a media list.
+     *
+     * @param playlist play-list file
+     * @param mediaList media list to add the entries to
+     * @param mediaOptions zero or more media options for every entry
+     * @return number of entries added
+     * @throws IOException if the play-list file could not be read
+     * @throws IllegalArgumentException if the file name extension is not a recognised format
+     */
+    public int load(File playlist, MediaList mediaList, String... mediaOptions) throws IOException {
+        return load(playlist, formatOf(playlist), mediaList, -1, mediaOptions);
+    }
+
+    /**
+     * Load a play-list file, in the format given by its file name extension, and insert the
+     * entries into a media list.
+     *
+     * @param playlist play-list file
+     * @param mediaList media list to insert the entries into
+     * @param index position at which to insert the first entry, or -1 to add to the end
+     * @param mediaOptions zero or more media options for every entry
+     * @return number of entries inserted
+     * @throws IOException if the play-list file could not be read
+     * @throws IllegalArgumentException if the file name extension is not a recognised format
+     */
+    public int load(File playlist, MediaList mediaList, int index, String... mediaOptions) throws IOException {
+        return load(playlist, formatOf(playlist), mediaList, index, mediaOptions);
+    }
+
+    /**
+     * Load a play-list file and insert the entries into a media list.
+     *
+     * @param playlist play-list file
+     * @param format format of the play-list file
+     * @param mediaList media list to insert the entries into
+     * @param index position at which to insert the first entry, or -1 to add to the end
+     * @param mediaOptions zero or more media options for every entry
+     * @return number of entries inserted
+     * @throws IOException if the play-list file could not be read
+     */
+    public int load(File playlist, PlaylistFormat format, MediaList mediaList, int index, String... mediaOptions) throws IOException {
+        logger.debug("load(playlist={},format={},mediaList={},index={})", playlist, format, mediaList, index);
+        cancelled = false;
+        RandomAccessFile file = new RandomAccessFile(playlist, "r");
+        try {
+            Batch batch = new Batch(playlist, file.getChannel(), mediaList, index, mediaOptions);
+            switch(format) {
+                case M3U:
+                    loadM3u(batch);
+                    break;
+                case PLS:
+                    loadPls(batch);
+                    break;
+                case XSPF:
+                    loadXspf(batch);
+                    break;
+            }
+            batch.flush();
+            logger.debug("entries={},cancelled={}", batch.entries, cancelled);
+            if(listener != null) {
+                listener.finished(playlist, batch.entries, cancelled);
+            }
+            return batch.entries;
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Read the entries from an M3U file.
+     *
+     * @param batch batch to add the entries to
+     * @throws IOException if the file could not be read
+     */
+    private void loadM3u(Batch batch) throws IOException {
+        LineReader reader = new LineReader(batch.channel);
+        String line;
+        while(!batch.stopped() && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.length() > 0 && line.charAt(0) != '#') {
+                batch.add(resolve(batch.baseDirectory, line));
+            }
+        }
+    }
+
+    /**
+     * Read the entries from a PLS file.
+     *
+     * @param batch batch to add the entries to
+     * @throws IOException if the file could not be read
+     */
+    private void loadPls(Batch batch) throws IOException {
+        LineReader reader = new LineReader(batch.channel);
+        String line;
+        while(!batch.stopped() && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.regionMatches(true, 0, "File", 0, 4)) {
+                int equals = line.indexOf('=');
+                if(equals > 4 && isDigits(line, 4, equals)) {
+                    String entry = line.substring(equals + 1).trim();
+                    if(entry.length() > 0) {
+                        batch.add(resolve(batch.baseDirectory, entry));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the entries from an XSPF file.
+     *
+     * @param batch batch to add the entries to
+     * @throws IOException if the file could not be read
+     */
+    private void loadXspf(Batch batch) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(Channels.newInputStream(batch.channel));
+            try {
+                boolean inTrack = false;
+                boolean haveLocation = false;
+                while(!batch.stopped() && reader.hasNext()) {
+                    int event = reader.next();
+                    if(event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if("track".equals(name)) {
+                            inTrack = true;
+                            haveLocation = false;
+                        }
+                        else if(inTrack && !haveLocation && "location".equals(name)) {
+                            // A track may list alternative locations, only the first is used
+                            String location = reader.getElementText().trim();
+                            if(location.length() > 0) {
+                                batch.add(resolveUri(batch.baseDirectory, location));
+                                haveLocation = true;
+                            }
+                        }
+                    }
+                    else if(event == XMLStreamConstants.END_ELEMENT && "track".equals(reader.getLocalName())) {
+                        inTrack = false;
+                    }
+                }
+            }
+            finally {
+                reader.close();
+            }
+        }
+        catch(XMLStreamException e) {
+            throw new IOException("Failed to parse XSPF play-list: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the format of a play-list file from its file name extension.
+     *
+     * @param playlist play-list file
+     * @return format
+     * @throws IllegalArgumentException if the extension is not a recognised format
+     */
+    private static PlaylistFormat formatOf(File playlist) {
+        PlaylistFormat result = PlaylistFormat.forFile(playlist);
+        if(result == null) {
+            throw new IllegalArgumentException("Unrecognised play-list format: " + playlist);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve a play-list entry that is either a location or a file path.
+     *
+     * @param baseDirectory directory containing the play-list file
+     * @param entry play-list entry
+     * @return location or absolute file path
+     */
+    private static String resolve(File baseDirectory, String entry) {
+        if(MediaResourceLocator.isLocation(entry) || new File(entry).isAbsolute()) {
+            return entry;
+        }
+        else {
+            return new File(baseDirectory, entry).getPath();
+        }
+    }
+
+    /**
+     * Resolve a play-list entry that is a URI, possibly relative.
+     *
+     * @param baseDirectory directory containing the play-list file
+     * @param entry play-list entry
+     * @return location or absolute file path
+     */
+    private static String resolveUri(File baseDirectory, String entry) {
+        if(MediaResourceLocator.isLocation(entry)) {
+            return entry;
+        }
+        try {
+            URI uri = baseDirectory.toURI().resolve(entry);
+            return "file".equals(uri.getScheme()) ? new File(uri).getPath() : uri.toString();
+        }
+        catch(IllegalArgumentException e) {
+            // Not a valid URI, treat it as a plain file path instead
+            return resolve(baseDirectory, entry);
+        }
+    }
+
+    /**
+     * Test whether or not part of a string is all digits.
+     *
+     * @param value string
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return <code>true</code> if every character in the range is a digit; <code>false</code> otherwise
+     */
+    private static boolean isDigits(String value, int start, int end) {
+        for(int i = start; i < end; i++) {
+            if(!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entries waiting to be added to the media list.
+     */
+    private final class Batch {
+
+        /**
+         * Play-list file.
+         */
+        private final File playlist;
+
+        /**
+         * Directory containing the play-list file, for resolving relative entries.
+         */
+        private final File baseDirectory;
+
+        /**
+         * Channel reading the play-list file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Size of the play-list file.
+         */
+        private final long totalBytes;
+
+        /**
+         * Media list to add the entries to.
+         */
+        private final MediaList mediaList;
+
+        /**
+         * Media options for every entry.
+         */
+        private final String[] mediaOptions;
+
+        /**
+         * Entries waiting to be added.
+         */
+        private final List<String> mrls;
+
+        /**
+         * Position at which to insert the next entry, or -1 to add to the end.
+         */
+        private int index;
+
+        /**
+         * Number of entries added so far.
+         */
+        private int entries;
+
+        /**
+         * Set if the media list refused entries.
+         */
+        private boolean full;
+
+        /**
+         * Create a batch.
+         *
+         * @param playlist play-list file
+         * @param channel channel reading the play-list file
+         * @param mediaList media list to add the entries to
+         * @param index position at which to insert the first entry, or -1 to add to the end
+         * @param mediaOptions media options for every entry
+         * @throws IOException if the size of the play-list file could not be read
+         */
+        private Batch(File playlist, FileChannel channel, MediaList mediaList, int index, String[] mediaOptions) throws IOException {
+            this.playlist = playlist;
+            this.baseDirectory = playlist.getAbsoluteFile().getParentFile();
+            this.channel = channel;
+            this.totalBytes = channel.size();
+            this.mediaList = mediaList;
+            this.index = index;
+            this.mediaOptions = mediaOptions;
+            this.mrls = new ArrayList<String>(batchSize);
+        }
+
+        /**
+         * Add an entry, adding the batch to the media list when it is full.
+         *
+         * @param mrl media resource locator
+         * @throws IOException if the file position could not be read
+         */
+        private void add(String mrl) throws IOException {
+            mrls.add(mrl);
+            if(mrls.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Add the waiting entries to the media list.
+         *
+         * @throws IOException if the file position could not be read
+         */
+        private void flush() throws IOException {
+            if(!mrls.isEmpty()) {
+                int added = index < 0 ? mediaList.addMedia(mrls, mediaOptions) : mediaList.insertMedia(index, mrls, mediaOptions);
+                if(index >= 0) {
+                    index += added;
+                }
+                entries += added;
+                full = added < mrls.size();
+                mrls.clear();
+                if(listener != null) {
+                    // The XML parser closes the channel once it reaches the end of the document
+                    listener.progress(playlist, channel.isOpen() ? channel.position() : totalBytes, totalBytes, entries);
+                }
+            }
+        }
+
+        /**
+         * Test whether or not loading should stop.
+         *
+         * @return <code>true</code> if loading was cancelled or the media list refused entries; <code>false</code> otherwise
+         */
+        private boolean stopped() {
+            return cancelled || full;
+        }
+    }
+
+    /**
+     * Reads lines from a channel through fixed size buffers.
+     * <p>
+     * Blank lines are returned as empty strings, and so are lines longer than
+     * {@link #MAXIMUM_LINE_LENGTH} so that a corrupt file can not exhaust memory.
+     */
+    private final class LineReader {
+
+        /**
+         * Channel to read from.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Bytes read from the channel but not yet decoded.
+         */
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(bufferSize);
+
+        /**
+         * Decoded characters.
+         */
+        private final CharBuffer chars = CharBuffer.allocate(bufferSize);
+
+        /**
+         * Decoder for the play-list character set.
+         */
+        private final CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /**
+         * Current line.
+         */
+        private final StringBuilder line = new StringBuilder(256);
+
+        /**
+         * Set when the end of the channel has been reached.
+         */
+        private boolean endOfInput;
+
+        /**
+         * Set when nothing has been returned yet, to skip a byte order mark.
+         */
+        private boolean firstLine = true;
+
+        /**
+         * Create a line reader.
+         *
+         * @param channel channel to read from
+         */
+        private LineReader(FileChannel channel) {
+            this.channel = channel;
+            chars.flip();
+        }
+
+        /**
+         * Read the next line.
+         *
+         * @return line, without the line terminator, or <code>null</code> at the end of the channel
+         * @throws IOException if the channel could not be read
+         */
+        private String readLine() throws IOException {
+            line.setLength(0);
+            boolean overlong = false;
+            for(;;) {
+                while(chars.hasRemaining()) {
+                    char c = chars.get();
+                    if(c == '\n' || c == '\r') {
+                        return takeLine(overlong);
+                    }
+                    else if(line.length() < MAXIMUM_LINE_LENGTH) {
+                        line.append(c);
+                    }
+                    else {
+                        overlong = true;
+                    }
+                }
+                if(!fill()) {
+                    return line.length() > 0 || overlong ? takeLine(overlong) : null;
+                }
+            }
+        }
+
+        /**
+         * Get the current line.
+         *
+         * @param overlong <code>true</code> if the line was too long
+         * @return line
+         */
+        private String takeLine(boolean overlong) {
+            if(overlong) {
+                logger.warn("Skipping line longer than {} characters", MAXIMUM_LINE_LENGTH);
+                return "";
+            }
+            if(firstLine) {
+                firstLine = false;
+                if(line.length() > 0 && line.charAt(0) == '\uFEFF') {
+                    line.deleteCharAt(0);
+                }
+            }
+            return line.toString();
+        }
+
+        /**
+         * Read and decode the next block of the channel.
+         *
+         * @return <code>true</code> if more characters may be available; <code>false</code> at the end of the channel
+         * @throws IOException if the channel could not be read
+         */
+        private boolean fill() throws IOException {
+            if(endOfInput) {
+                return false;
+            }
+            chars.clear();
+            if(channel.read(bytes) < 0) {
+                endOfInput = true;
+            }
+            bytes.flip();
+            decoder.decode(bytes, chars, endOfInput);
+            if(endOfInput) {
+                decoder.flush(chars);
+            }
+            bytes.compact();
+            chars.flip();
+            return true;
+        }
+    }
+}
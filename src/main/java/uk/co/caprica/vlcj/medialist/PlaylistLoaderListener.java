@@ -0,0 +1,49 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.medialist;
+
+import java.io.File;
+
+/**
+ * Specification for a component that is interested in the progress of a {@link PlaylistLoader}.
+ * <p>
+ * Notifications are sent on the thread that is loading the play-list.
+ */
+public interface PlaylistLoaderListener {
+
+    /**
+     * A batch of entries was added to the media list.
+     *
+     * @param playlist play-list file
+     * @param bytesRead number of bytes of the play-list file read so far
+     * @param totalBytes size of the play-list file
+     * @param entries number of entries added to the media list so far
+     */
+    void progress(File playlist, long bytesRead, long totalBytes, int entries);
+
+    /**
+     * Loading the play-list finished.
+     *
+     * @param playlist play-list file
+     * @param entries total number of entries added to the media list
+     * @param cancelled <code>true</code> if loading was cancelled before the end of the file; <code>false</code> otherwise
+     */
+    void finished(File playlist, int entries, boolean cancelled);
+}
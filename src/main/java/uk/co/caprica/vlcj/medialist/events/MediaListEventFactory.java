@@ -82,4 +82,26 @@ public class MediaListEventFactory {
         }
         return result;
     }
+
+    /**
+     * Create an event for a range of items added to the list together.
+     *
+     * @param index index of the first item added
+     * @param count number of items added
+     * @return media list event
+     */
+    public MediaListEvent createItemsAddedEvent(int index, int count) {
+        return new MediaListItemsAddedEvent(mediaList, index, count);
+    }
+
+    /**
+     * Create an event for a range of items deleted from the list together.
+     *
+     * @param index index of the first item deleted
+     * @param count number of items deleted
+     * @return media list event
+     */
+    public MediaListEvent createItemsDeletedEvent(int index, int count) {
+        return new MediaListItemsDeletedEvent(mediaList, index, count);
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.medialist.events;
+
+import uk.co.caprica.vlcj.medialist.MediaList;
+import uk.co.caprica.vlcj.medialist.MediaListEventListener;
+
+/**
+ * Encapsulation of a media list items added event, raised once for a range of items added together.
+ */
+class MediaListItemsAddedEvent extends AbstractMediaListEvent {
+
+    /**
+     * Index of the first item added.
+     */
+    private final int index;
+
+    /**
+     * Number of items added.
+     */
+    private final int count;
+
+    /**
+     * Create a media list event.
+     *
+     * @param mediaList media list the event relates to
+     * @param index index of the first item added
+     * @param count number of items added
+     */
+    MediaListItemsAddedEvent(MediaList mediaList, int index, int count) {
+        super(mediaList);
+        this.index = index;
+        this.count = count;
+    }
+
+    @Override
+    public void notify(MediaListEventListener listener) {
+        listener.mediaListItemsAdded(mediaList, index, count);
+    }
+}
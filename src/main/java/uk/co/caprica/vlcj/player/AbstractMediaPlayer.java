@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import uk.co.caprica.vlcj.binding.LibVlc;
 import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
 
 /**
  * Base implementation for media players sharing common behaviours.
@@ -45,6 +46,12 @@ public abstract class AbstractMediaPlayer {
      */
     protected final libvlc_instance_t instance;
 
+    /**
+     * Capabilities of the native library, shared with all other components using the same native
+     * library.
+     */
+    protected final LibVlcCapabilities capabilities;
+
     /**
      * Create a media player.
      *
@@ -54,6 +61,7 @@ public abstract class AbstractMediaPlayer {
     protected AbstractMediaPlayer(LibVlc libvlc, libvlc_instance_t instance) {
         this.libvlc = libvlc;
         this.instance = instance;
+        this.capabilities = LibVlcCapabilities.capabilities(libvlc);
     }
 
     @Override
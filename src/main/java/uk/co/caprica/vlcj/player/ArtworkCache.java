@@ -0,0 +1,654 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.player.condition.ConditionCallback;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
+
+/**
+ * A cache of decoded media artwork, shared between media, keyed by artwork URL.
+ * <p>
+ * Decoded images are kept in a least-recently-used cache bounded by the number of bytes the
+ * decoded images occupy, rather than by the number of images, so a user interface showing covers
+ * for a large library does not exhaust the heap.
+ * <p>
+ * Besides the full size image, scaled down variants can be requested at any size. Variants at
+ * preset sizes, see {@link #addVariantSize(int, int)}, are made as soon as the full size image
+ * is decoded. A variant is scaled to fit within the requested size, keeping the aspect ratio of
+ * the artwork. The full size image is only kept in the cache if it was itself requested, so
+ * asking only for variants does not fill the cache with full size images.
+ * <p>
+ * Images can be loaded asynchronously on a bounded pool of threads, see
+ * {@link #load(String, int, int)}, or synchronously, see {@link #get(String, int, int)}. Either
+ * way, concurrent requests for the same image share a single load.
+ * <p>
+ * Images returned by the cache are shared, they must not be modified.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ArtworkCache {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ArtworkCache.class);
+
+    /**
+     * Default maximum size of the default cache, 64 MiB.
+     */
+    private static final long DEFAULT_MAXIMUM_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Default number of loader threads for the default cache.
+     */
+    private static final int DEFAULT_THREADS = 2;
+
+    /**
+     * Default cache, lazily created.
+     */
+    private static ArtworkCache defaultCache;
+
+    /**
+     * Maximum number of bytes of decoded images to keep.
+     */
+    private final long maximumBytes;
+
+    /**
+     * Decoded images, least recently used first.
+     */
+    private final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>(64, 0.75f, true);
+
+    /**
+     * Loads that have not finished yet, by cache key.
+     */
+    private final Map<String, LoadCallable> loading = new HashMap<String, LoadCallable>();
+
+    /**
+     * Preset variant sizes, each an array of width and height.
+     */
+    private final List<int[]> variantSizes = new ArrayList<int[]>();
+
+    /**
+     * Executor for asynchronous loads.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Number of bytes of decoded images currently kept.
+     */
+    private long cacheBytes;
+
+    /**
+     * Number of requests satisfied from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of requests that had to load an image.
+     */
+    private long misses;
+
+    /**
+     * Number of images removed to keep within the maximum size.
+     */
+    private long evictions;
+
+    /**
+     * Get the default cache, used by {@link MediaMeta#getArtwork()}.
+     *
+     * @return default cache
+     */
+    public static synchronized ArtworkCache defaultCache() {
+        if(defaultCache == null) {
+            defaultCache = new ArtworkCache(DEFAULT_MAXIMUM_BYTES, DEFAULT_THREADS);
+        }
+        return defaultCache;
+    }
+
+    /**
+     * Create an artwork cache.
+     *
+     * @param maximumBytes maximum number of bytes of decoded images to keep
+     * @param threads number of threads for asynchronous loads
+     */
+    public ArtworkCache(long maximumBytes, int threads) {
+        if(maximumBytes < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid maximum size or thread count");
+        }
+        this.maximumBytes = maximumBytes;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-artwork-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Add a preset variant size, made for every image as soon as the full size image is decoded.
+     *
+     * @param width maximum width of the variant
+     * @param height maximum height of the variant
+     */
+    public void addVariantSize(int width, int height) {
+        logger.debug("addVariantSize(width={},height={})", width, height);
+        checkSize(width, height);
+        synchronized(variantSizes) {
+            variantSizes.add(new int[] {width, height});
+        }
+    }
+
+    /**
+     * Get the full size image for an artwork URL, loading it on the calling thread if necessary.
+     *
+     * @param artworkUrl artwork URL
+     * @return image, or <code>null</code> if the artwork format is not supported
+     * @throws RuntimeException if the artwork could not be loaded
+     */
+    public BufferedImage get(String artworkUrl) {
+        return get(artworkUrl, 0, 0);
+    }
+
+    /**
+     * Get an image for an artwork URL, scaled to fit within a given size, loading it on the
+     * calling thread if necessary.
+     *
+     * @param artworkUrl artwork URL
+     * @param width maximum width, or zero together with height for the full size image
+     * @param height maximum height, or zero together with width for the full size image
+     * @return image, or <code>null</code> if the artwork format is not supported
+     * @throws RuntimeException if the artwork could not be loaded
+     */
+    public BufferedImage get(String artworkUrl, int width, int height) {
+        logger.debug("get(artworkUrl={},width={},height={})", artworkUrl, width, height);
+        ConditionFutureTask<BufferedImage> task = task(artworkUrl, width, height, false, true);
+        // If the load is still queued, run it here rather than wait for a loader thread
+        task.run();
+        return result(task);
+    }
+
+    /**
+     * Load the full size image for an artwork URL asynchronously.
+     *
+     * @param artworkUrl artwork URL
+     * @return future image, the image is <code>null</code> if the artwork format is not supported
+     */
+    public ConditionFuture<BufferedImage> load(String artworkUrl) {
+        return load(artworkUrl, 0, 0);
+    }
+
+    /**
+     * Load an image for an artwork URL, scaled to fit within a given size, asynchronously.
+     *
+     * @param artworkUrl artwork URL
+     * @param width maximum width, or zero together with height for the full size image
+     * @param height maximum height, or zero together with width for the full size image
+     * @return future image, the image is <code>null</code> if the artwork format is not supported
+     */
+    public ConditionFuture<BufferedImage> load(String artworkUrl, int width, int height) {
+        logger.debug("load(artworkUrl={},width={},height={})", artworkUrl, width, height);
+        ConditionFutureTask<BufferedImage> shared = task(artworkUrl, width, height, true, true);
+        // Each caller gets its own future, so that one caller cancelling does not cancel the load
+        // for everyone else sharing it
+        final ConditionFutureTask<BufferedImage> result = new ConditionFutureTask<BufferedImage>();
+        shared.addCallback(new ConditionCallback<BufferedImage>() {
+            @Override
+            public void completed(BufferedImage image) {
+                result.complete(image);
+            }
+
+            @Override
+            public void failed(RuntimeException cause) {
+                if(cause instanceof CancellationException) {
+                    result.cancel(false);
+                }
+                else {
+                    result.fail(cause);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get the number of images in the cache.
+     *
+     * @return number of images, counting each variant separately
+     */
+    public synchronized int size() {
+        return images.size();
+    }
+
+    /**
+     * Get the number of bytes of decoded images in the cache.
+     *
+     * @return number of bytes
+     */
+    public synchronized long cacheBytes() {
+        return cacheBytes;
+    }
+
+    /**
+     * Get the number of requests satisfied from the cache.
+     *
+     * @return number of hits
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of requests that had to load an image.
+     *
+     * @return number of misses
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Get the number of images removed to keep within the maximum size.
+     *
+     * @return number of evictions
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Remove all images, and all variants, for an artwork URL.
+     *
+     * @param artworkUrl artwork URL
+     */
+    public synchronized void remove(String artworkUrl) {
+        logger.debug("remove(artworkUrl={})", artworkUrl);
+        String prefix = artworkUrl + '\n';
+        for(Iterator<Map.Entry<String, BufferedImage>> it = images.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, BufferedImage> entry = it.next();
+            if(entry.getKey().startsWith(prefix)) {
+                cacheBytes -= sizeOf(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove all images.
+     */
+    public synchronized void clear() {
+        logger.debug("clear()");
+        images.clear();
+        cacheBytes = 0;
+    }
+
+    /**
+     * Release the cache.
+     * <p>
+     * Queued loads are cancelled, loads already in progress are allowed to finish.
+     * <p>
+     * Releasing the {@link #defaultCache()} discards it, the next request for the default cache
+     * creates a new one.
+     */
+    public void release() {
+        logger.debug("release()");
+        synchronized(ArtworkCache.class) {
+            if(defaultCache == this) {
+                defaultCache = null;
+            }
+        }
+        executor.shutdown();
+        List<Runnable> queued = new ArrayList<Runnable>();
+        executor.getQueue().drainTo(queued);
+        for(Runnable runnable : queued) {
+            ((ConditionFutureTask<?>)runnable).cancel(false);
+        }
+        synchronized(this) {
+            loading.clear();
+        }
+        clear();
+    }
+
+    /**
+     * Get the task for an image, a completed task if the image is cached, the task already
+     * loading it if there is one, or else a new task.
+     *
+     * @param artworkUrl artwork URL
+     * @param width maximum width, or zero for the full size image
+     * @param height maximum height, or zero for the full size image
+     * @param submit <code>true</code> to submit a new task to the executor; <code>false</code> if the caller will run it
+     * @param keep <code>true</code> to keep the image in the cache; <code>false</code> if it is only needed to make a variant
+     * @return task
+     */
+    private ConditionFutureTask<BufferedImage> task(String artworkUrl, int width, int height, boolean submit, boolean keep) {
+        if(artworkUrl == null) {
+            throw new IllegalArgumentException("artworkUrl can not be null");
+        }
+        if(width != 0 || height != 0) {
+            checkSize(width, height);
+        }
+        final String key = key(artworkUrl, width, height);
+        ConditionFutureTask<BufferedImage> result;
+        LoadCallable load;
+        synchronized(this) {
+            final BufferedImage cached = images.get(key);
+            if(cached != null) {
+                hits++;
+                result = new ConditionFutureTask<BufferedImage>(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() {
+                        return cached;
+                    }
+                });
+                result.run();
+                return result;
+            }
+            load = loading.get(key);
+            if(load != null && !load.task.isCancelled()) {
+                if(keep) {
+                    load.keep = true;
+                }
+                return load.task;
+            }
+            misses++;
+            load = new LoadCallable(key, artworkUrl, width, height, keep);
+            loading.put(key, load);
+            result = load.task;
+        }
+        if(submit) {
+            try {
+                executor.execute(result);
+            }
+            catch(RejectedExecutionException e) {
+                synchronized(this) {
+                    if(loading.get(key) == load) {
+                        loading.remove(key);
+                    }
+                }
+                throw new IllegalStateException("Artwork cache has been released");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load an image.
+     *
+     * @param artworkUrl artwork URL
+     * @param width maximum width, or zero for the full size image
+     * @param height maximum height, or zero for the full size image
+     * @return image, or <code>null</code> if the artwork format is not supported
+     * @throws Exception if the artwork could not be loaded
+     */
+    private BufferedImage loadImage(String artworkUrl, int width, int height) throws Exception {
+        if(width == 0 && height == 0) {
+            URL url = new URL(artworkUrl);
+            logger.debug("url={}", url);
+            BufferedImage image = ImageIO.read(url);
+            if(image != null) {
+                List<int[]> presets;
+                synchronized(variantSizes) {
+                    presets = new ArrayList<int[]>(variantSizes);
+                }
+                for(int[] size : presets) {
+                    String key = key(artworkUrl, size[0], size[1]);
+                    synchronized(this) {
+                        if(images.containsKey(key)) {
+                            continue;
+                        }
+                    }
+                    store(key, scale(image, size[0], size[1]));
+                }
+            }
+            return image;
+        }
+        else {
+            // Share the full size load with anyone else asking for it, running it here if it has
+            // not already started - a loader thread never waits for a task queued behind it
+            ConditionFutureTask<BufferedImage> full = task(artworkUrl, 0, 0, false, false);
+            full.run();
+            BufferedImage image = result(full);
+            return image != null ? scale(image, width, height) : null;
+        }
+    }
+
+    /**
+     * Add an image to the cache, removing least recently used images to keep within the maximum
+     * size.
+     *
+     * @param key cache key
+     * @param image image
+     */
+    private synchronized void store(String key, BufferedImage image) {
+        long size = sizeOf(image);
+        if(size > maximumBytes) {
+            return;
+        }
+        BufferedImage previous = images.put(key, image);
+        if(previous != null) {
+            cacheBytes -= sizeOf(previous);
+        }
+        cacheBytes += size;
+        for(Iterator<BufferedImage> it = images.values().iterator(); cacheBytes > maximumBytes && it.hasNext(); ) {
+            cacheBytes -= sizeOf(it.next());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Get the result of a completed task.
+     *
+     * @param task task
+     * @return image
+     * @throws RuntimeException if the task failed
+     */
+    private static BufferedImage result(ConditionFutureTask<BufferedImage> task) {
+        try {
+            return task.get();
+        }
+        catch(ExecutionException e) {
+            throw new RuntimeException("Failed to load artwork", e.getCause());
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for artwork");
+        }
+    }
+
+    /**
+     * Scale an image to fit within a size, keeping its aspect ratio.
+     * <p>
+     * Large reductions are made in steps of no more than half, which gives much better quality
+     * than a single bilinear step for little extra cost.
+     *
+     * @param image image to scale
+     * @param width maximum width
+     * @param height maximum height
+     * @return scaled image, or the same image if it already fits
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        double ratio = Math.min((double)width / image.getWidth(), (double)height / image.getHeight());
+        if(ratio >= 1.0) {
+            return image;
+        }
+        int targetWidth = Math.max(1, (int)Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int)Math.round(image.getHeight() * ratio));
+        int type = image.getTransparency() == BufferedImage.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage result = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage step = new BufferedImage(w, h, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(result, 0, 0, w, h, null);
+            }
+            finally {
+                g.dispose();
+            }
+            result = step;
+        }
+        while(w != targetWidth || h != targetHeight);
+        return result;
+    }
+
+    /**
+     * Get the number of bytes used by an image's pixels.
+     *
+     * @param image image
+     * @return number of bytes
+     */
+    private static long sizeOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long)buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Get the cache key for an image.
+     *
+     * @param artworkUrl artwork URL
+     * @param width maximum width, or zero for the full size image
+     * @param height maximum height, or zero for the full size image
+     * @return key
+     */
+    private static String key(String artworkUrl, int width, int height) {
+        return artworkUrl + '\n' + width + 'x' + height;
+    }
+
+    /**
+     * Check a variant size.
+     *
+     * @param width maximum width
+     * @param height maximum height
+     */
+    private static void checkSize(int width, int height) {
+        if(width < 1 || height < 1) {
+            throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+        }
+    }
+
+    /**
+     * Load an image, add it to the cache if it is to be kept and then forget the task loading it.
+     */
+    private final class LoadCallable implements Callable<BufferedImage> {
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+
+        /**
+         * Artwork URL.
+         */
+        private final String artworkUrl;
+
+        /**
+         * Maximum width, or zero for the full size image.
+         */
+        private final int width;
+
+        /**
+         * Maximum height, or zero for the full size image.
+         */
+        private final int height;
+
+        /**
+         * Task running this load.
+         */
+        private final ConditionFutureTask<BufferedImage> task;
+
+        /**
+         * Set if the image is to be kept in the cache, rather than only being used to make a variant.
+         * <p>
+         * Only set with the cache locked, but read without the lock once the image is loaded.
+         */
+        private volatile boolean keep;
+
+        /**
+         * Create a load.
+         *
+         * @param key cache key
+         * @param artworkUrl artwork URL
+         * @param width maximum width, or zero for the full size image
+         * @param height maximum height, or zero for the full size image
+         * @param keep <code>true</code> to keep the image in the cache; <code>false</code> if it is only needed to make a variant
+         */
+        private LoadCallable(String key, String artworkUrl, int width, int height, boolean keep) {
+            this.key = key;
+            this.artworkUrl = artworkUrl;
+            this.width = width;
+            this.height = height;
+            this.keep = keep;
+            this.task = new ConditionFutureTask<BufferedImage>(this);
+        }
+
+        @Override
+        public BufferedImage call() throws Exception {
+            try {
+                BufferedImage result = loadImage(artworkUrl, width, height);
+                if(result != null && keep) {
+                    store(key, result);
+                }
+                return result;
+            }
+            finally {
+                synchronized(ArtworkCache.this) {
+                    // A cancelled load may already have been replaced by a new one for the same key
+                    if(loading.get(key) == this) {
+                        loading.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import uk.co.caprica.vlcj.player.condition.ConditionCallback;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
+
+/**
+ * Future for a queued or running task, notifying callbacks when it finishes.
+ * <p>
+ * A task that has not started yet may be run on the calling thread by invoking {@link #run()},
+ * which does nothing if the task already ran; this lets a caller that needs the result straight
+ * away avoid waiting behind other queued tasks.
+ *
+ * @param <T> type of result
+ */
+final class ConditionFutureTask<T> extends FutureTask<T> implements ConditionFuture<T> {
+
+    /**
+     * Callbacks waiting for the result, <code>null</code> once the result has been delivered.
+     */
+    private List<ConditionCallback<? super T>> callbacks = new ArrayList<ConditionCallback<? super T>>(1);
+
+    /**
+     * Create a task.
+     *
+     * @param callable task to run
+     */
+    ConditionFutureTask(Callable<T> callable) {
+        super(callable);
+    }
+
+    /**
+     * Create a task that is never run, it is completed by {@link #complete(Object)} or
+     * {@link #fail(Throwable)} instead.
+     */
+    ConditionFutureTask() {
+        super(new Callable<T>() {
+            @Override
+            public T call() {
+                throw new IllegalStateException("Task must be completed explicitly");
+            }
+        });
+    }
+
+    /**
+     * Complete the task with a result, unless it is already done.
+     *
+     * @param result result
+     */
+    void complete(T result) {
+        set(result);
+    }
+
+    /**
+     * Complete the task with a failure, unless it is already done.
+     *
+     * @param cause reason for the failure
+     */
+    void fail(Throwable cause) {
+        setException(cause);
+    }
+
+    @Override
+    public void addCallback(ConditionCallback<? super T> callback) {
+        if(callback != null) {
+            synchronized(this) {
+                if(callbacks != null) {
+                    callbacks.add(callback);
+                    return;
+                }
+            }
+            notifyCallback(callback);
+        }
+        else {
+            throw new IllegalArgumentException("callback can not be null");
+        }
+    }
+
+    @Override
+    protected void done() {
+        List<ConditionCallback<? super T>> toNotify;
+        synchronized(this) {
+            toNotify = callbacks;
+            callbacks = null;
+        }
+        for(ConditionCallback<? super T> callback : toNotify != null ? toNotify : Collections.<ConditionCallback<? super T>>emptyList()) {
+            notifyCallback(callback);
+        }
+    }
+
+    /**
+     * Deliver the outcome of the completed task to a callback.
+     *
+     * @param callback callback to notify
+     */
+    private void notifyCallback(ConditionCallback<? super T> callback) {
+        T result;
+        try {
+            result = get();
+        }
+        catch(CancellationException e) {
+            callback.failed(e);
+            return;
+        }
+        catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            callback.failed(cause instanceof RuntimeException ? (RuntimeException)cause : new RuntimeException(cause));
+            return;
+        }
+        catch(InterruptedException e) {
+            // Can not happen, the task is already done
+            Thread.currentThread().interrupt();
+            callback.failed(new CancellationException());
+            return;
+        }
+        callback.completed(result);
+    }
+}
@@ -20,17 +20,25 @@
 package uk.co.caprica.vlcj.player;
 
 import java.awt.image.BufferedImage;
-import java.net.URL;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sun.jna.Pointer;
+
 import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_callback_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_manager_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
 import uk.co.caprica.vlcj.version.Version;
 
 /**
@@ -40,7 +48,13 @@ import uk.co.caprica.vlcj.version.Version;
  * this native reference in {@link #release()}.
  * <p>
  * Invoking {@link #getArtworkUrl()}, {@link #getArtwork()} or {@link #toString()} may cause an
- * HTTP request to be made to download artwork.
+ * HTTP request to be made to download artwork. Artwork is kept in the shared
+ * {@link ArtworkCache#defaultCache()} rather than by each media meta instance.
+ * <p>
+ * All of the meta data values are read from the native media together, the first time any value
+ * is needed, and kept until the native media reports that its meta data changed. Reading many
+ * values, as {@link #asMediaMetaData()} and {@link #toString()} do, therefore costs one pass over
+ * the native meta data rather than a native call for every value.
  */
 class DefaultMediaMeta implements MediaMeta {
 
@@ -82,11 +96,27 @@ class DefaultMediaMeta implements MediaMeta {
     private final Version actualVersion;
 
     /**
-     * Artwork.
+     * Native event manager for the media.
+     */
+    private final libvlc_event_manager_t mediaEventManager;
+
+    /**
+     * Native callback to invalidate the cached meta data, a hard reference must be kept.
+     */
+    private final libvlc_callback_t metaChangedCallback = new MetaChangedCallback();
+
+    /**
+     * Incremented whenever the cached meta data is invalidated.
      * <p>
-     * Lazily loaded.
+     * A snapshot read from the native media is only kept if no invalidation happened while it was
+     * being read.
      */
-    private BufferedImage artwork;
+    private final AtomicInteger metaGeneration = new AtomicInteger();
+
+    /**
+     * Cached meta data values, <code>null</code> until read or after being invalidated.
+     */
+    private volatile Map<libvlc_meta_t, String> metaSnapshot;
 
     /**
      * Create media meta.
@@ -97,15 +127,18 @@ class DefaultMediaMeta implements MediaMeta {
     DefaultMediaMeta(LibVlc libvlc, libvlc_media_t media) {
         this.libvlc = libvlc;
         this.media = media;
-        this.actualVersion = new Version(libvlc.libvlc_get_version());
+        this.actualVersion = LibVlcCapabilities.capabilities(libvlc).version();
         // Keep a native reference
         libvlc.libvlc_media_retain(media);
+        this.mediaEventManager = libvlc.libvlc_media_event_manager(media);
+        libvlc.libvlc_event_attach(mediaEventManager, libvlc_event_e.libvlc_MediaMetaChanged.intValue(), metaChangedCallback, null);
     }
 
     @Override
     public final void parse() {
         logger.debug("parse()");
         libvlc.libvlc_media_parse(media);
+        invalidate();
     }
 
     @Override
@@ -389,20 +422,13 @@ class DefaultMediaMeta implements MediaMeta {
     @Override
     public final BufferedImage getArtwork() {
         logger.debug("getArtwork()");
-        if(artwork == null) {
-            String artworkUrl = getArtworkUrl();
-            if(artworkUrl != null && artworkUrl.length() > 0) {
-                try {
-                    URL url = new URL(artworkUrl);
-                    logger.debug("url={}", url);
-                    artwork = ImageIO.read(url);
-                }
-                catch(Exception e) {
-                    throw new RuntimeException("Failed to load artwork", e);
-                }
-            }
+        String artworkUrl = getArtworkUrl();
+        if(artworkUrl != null && artworkUrl.length() > 0) {
+            return ArtworkCache.defaultCache().get(artworkUrl);
+        }
+        else {
+            return null;
         }
-        return artwork;
     }
 
     @Override
@@ -420,42 +446,44 @@ class DefaultMediaMeta implements MediaMeta {
     public final void release() {
         logger.debug("release()");
         if(released.compareAndSet(false, true)) {
+            libvlc.libvlc_event_detach(mediaEventManager, libvlc_event_e.libvlc_MediaMetaChanged.intValue(), metaChangedCallback, null);
             libvlc.libvlc_media_release(media);
         }
     }
 
     @Override
     public MediaMetaData asMediaMetaData() {
+        Map<libvlc_meta_t, String> meta = snapshot();
         MediaMetaData result = new MediaMetaData();
-        result.setTitle(getTitle());
-        result.setArtist(getArtist());
-        result.setGenre(getGenre());
-        result.setCopyright(getCopyright());
-        result.setAlbum(getAlbum());
-        result.setTrackNumber(getTrackNumber());
-        result.setDescription(getDescription());
-        result.setRating(getRating());
-        result.setDate(getDate());
-        result.setSetting(getSetting());
-        result.setUrl(getUrl());
-        result.setLanguage(getLanguage());
-        result.setNowPlaying(getNowPlaying());
-        result.setPublisher(getPublisher());
-        result.setEncodedBy(getEncodedBy());
-        result.setArtworkUrl(getArtworkUrl());
-        result.setTrackId(getTrackId());
+        result.setTitle(meta.get(libvlc_meta_t.libvlc_meta_Title));
+        result.setArtist(meta.get(libvlc_meta_t.libvlc_meta_Artist));
+        result.setGenre(meta.get(libvlc_meta_t.libvlc_meta_Genre));
+        result.setCopyright(meta.get(libvlc_meta_t.libvlc_meta_Copyright));
+        result.setAlbum(meta.get(libvlc_meta_t.libvlc_meta_Album));
+        result.setTrackNumber(meta.get(libvlc_meta_t.libvlc_meta_TrackNumber));
+        result.setDescription(meta.get(libvlc_meta_t.libvlc_meta_Description));
+        result.setRating(meta.get(libvlc_meta_t.libvlc_meta_Rating));
+        result.setDate(meta.get(libvlc_meta_t.libvlc_meta_Date));
+        result.setSetting(meta.get(libvlc_meta_t.libvlc_meta_Setting));
+        result.setUrl(meta.get(libvlc_meta_t.libvlc_meta_URL));
+        result.setLanguage(meta.get(libvlc_meta_t.libvlc_meta_Language));
+        result.setNowPlaying(meta.get(libvlc_meta_t.libvlc_meta_NowPlaying));
+        result.setPublisher(meta.get(libvlc_meta_t.libvlc_meta_Publisher));
+        result.setEncodedBy(meta.get(libvlc_meta_t.libvlc_meta_EncodedBy));
+        result.setArtworkUrl(meta.get(libvlc_meta_t.libvlc_meta_ArtworkURL));
+        result.setTrackId(meta.get(libvlc_meta_t.libvlc_meta_TrackID));
         if (actualVersion.atLeast(VERSION_220)) {
-            result.setTrackTotal(getTrackTotal());
-            result.setDirector(getDirector());
-            result.setSeason(getSeason());
-            result.setEpisode(getEpisode());
-            result.setShowName(getShowName());
-            result.setActors(getActors());
+            result.setTrackTotal(meta.get(libvlc_meta_t.libvlc_meta_TrackTotal));
+            result.setDirector(meta.get(libvlc_meta_t.libvlc_meta_Director));
+            result.setSeason(meta.get(libvlc_meta_t.libvlc_meta_Season));
+            result.setEpisode(meta.get(libvlc_meta_t.libvlc_meta_Episode));
+            result.setShowName(meta.get(libvlc_meta_t.libvlc_meta_ShowName));
+            result.setActors(meta.get(libvlc_meta_t.libvlc_meta_Actors));
         }
         if (actualVersion.atLeast(VERSION_300)) {
-            result.setAlbumArtist(getAlbumArtist());
-            result.setDiscNumber(getDiscNumber());
-            result.setDiscTotal(getDiscTotal());
+            result.setAlbumArtist(meta.get(libvlc_meta_t.libvlc_meta_AlbumArtist));
+            result.setDiscNumber(meta.get(libvlc_meta_t.libvlc_meta_DiscNumber));
+            result.setDiscTotal(meta.get(libvlc_meta_t.libvlc_meta_DiscTotal));
         }
         return result;
     }
@@ -476,7 +504,39 @@ class DefaultMediaMeta implements MediaMeta {
      */
     private String getMeta(libvlc_meta_t metaType) {
         logger.trace("getMeta(metaType={},media={})", metaType, media);
-        return NativeString.getNativeString(libvlc, libvlc.libvlc_media_get_meta(media, metaType.intValue()));
+        return snapshot().get(metaType);
+    }
+
+    /**
+     * Get all of the meta data values, reading them from the native media if they are not cached.
+     *
+     * @return unmodifiable meta data values, by type
+     */
+    private Map<libvlc_meta_t, String> snapshot() {
+        Map<libvlc_meta_t, String> result = metaSnapshot;
+        if(result == null) {
+            int generation = metaGeneration.get();
+            EnumMap<libvlc_meta_t, String> values = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+            for(libvlc_meta_t metaType : libvlc_meta_t.values()) {
+                if(MediaParser.isMetaAvailable(metaType, actualVersion)) {
+                    values.put(metaType, NativeString.getNativeString(libvlc, libvlc.libvlc_media_get_meta(media, metaType.intValue())));
+                }
+            }
+            result = Collections.unmodifiableMap(values);
+            // Don't cache values that may have been changed while they were being read
+            if(metaGeneration.get() == generation) {
+                metaSnapshot = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Discard the cached meta data values.
+     */
+    private void invalidate() {
+        metaGeneration.incrementAndGet();
+        metaSnapshot = null;
     }
 
     /**
@@ -491,6 +551,7 @@ class DefaultMediaMeta implements MediaMeta {
     private void setMeta(libvlc_meta_t metaType, String value) {
         logger.trace("setMeta(metaType={},media={},value={})", metaType, media, value);
         libvlc.libvlc_media_set_meta(media, metaType.intValue(), value);
+        invalidate();
     }
 
     /**
@@ -509,38 +570,53 @@ class DefaultMediaMeta implements MediaMeta {
 
     @Override
     public String toString() {
+        Map<libvlc_meta_t, String> meta = snapshot();
         StringBuilder sb = new StringBuilder(200);
         sb.append(getClass().getSimpleName()).append('[');
-        sb.append("title=").append(getTitle()).append(',');
-        sb.append("artist=").append(getArtist()).append(',');
-        sb.append("genre=").append(getGenre()).append(',');
-        sb.append("copyright=").append(getCopyright()).append(',');
-        sb.append("album=").append(getAlbum()).append(',');
-        sb.append("trackNumber=").append(getTrackNumber()).append(',');
-        sb.append("description=").append(getDescription()).append(',');
-        sb.append("rating=").append(getRating()).append(',');
-        sb.append("date=").append(getDate()).append(',');
-        sb.append("setting=").append(getSetting()).append(',');
-        sb.append("url=").append(getUrl()).append(',');
-        sb.append("language=").append(getLanguage()).append(',');
-        sb.append("nowPlaying=").append(getNowPlaying()).append(',');
-        sb.append("publisher=").append(getPublisher()).append(',');
-        sb.append("encodedBy=").append(getEncodedBy()).append(',');
-        sb.append("artworkUrl=").append(getArtworkUrl()).append(',');
-        sb.append("trackId=").append(getTrackId()).append(',');
+        sb.append("title=").append(meta.get(libvlc_meta_t.libvlc_meta_Title)).append(',');
+        sb.append("artist=").append(meta.get(libvlc_meta_t.libvlc_meta_Artist)).append(',');
+        sb.append("genre=").append(meta.get(libvlc_meta_t.libvlc_meta_Genre)).append(',');
+        sb.append("copyright=").append(meta.get(libvlc_meta_t.libvlc_meta_Copyright)).append(',');
+        sb.append("album=").append(meta.get(libvlc_meta_t.libvlc_meta_Album)).append(',');
+        sb.append("trackNumber=").append(meta.get(libvlc_meta_t.libvlc_meta_TrackNumber)).append(',');
+        sb.append("description=").append(meta.get(libvlc_meta_t.libvlc_meta_Description)).append(',');
+        sb.append("rating=").append(meta.get(libvlc_meta_t.libvlc_meta_Rating)).append(',');
+        sb.append("date=").append(meta.get(libvlc_meta_t.libvlc_meta_Date)).append(',');
+        sb.append("setting=").append(meta.get(libvlc_meta_t.libvlc_meta_Setting)).append(',');
+        sb.append("url=").append(meta.get(libvlc_meta_t.libvlc_meta_URL)).append(',');
+        sb.append("language=").append(meta.get(libvlc_meta_t.libvlc_meta_Language)).append(',');
+        sb.append("nowPlaying=").append(meta.get(libvlc_meta_t.libvlc_meta_NowPlaying)).append(',');
+        sb.append("publisher=").append(meta.get(libvlc_meta_t.libvlc_meta_Publisher)).append(',');
+        sb.append("encodedBy=").append(meta.get(libvlc_meta_t.libvlc_meta_EncodedBy)).append(',');
+        sb.append("artworkUrl=").append(meta.get(libvlc_meta_t.libvlc_meta_ArtworkURL)).append(',');
+        sb.append("trackId=").append(meta.get(libvlc_meta_t.libvlc_meta_TrackID)).append(',');
         if (actualVersion.atLeast(VERSION_220)) {
-            sb.append("trackTotal=").append(getTrackTotal()).append(',');
-            sb.append("director=").append(getDirector()).append(',');
-            sb.append("season=").append(getSeason()).append(',');
-            sb.append("episode=").append(getEpisode()).append(',');
-            sb.append("showName=").append(getShowName()).append(',');
-            sb.append("actors=").append(getActors()).append(',');
+            sb.append("trackTotal=").append(meta.get(libvlc_meta_t.libvlc_meta_TrackTotal)).append(',');
+            sb.append("director=").append(meta.get(libvlc_meta_t.libvlc_meta_Director)).append(',');
+            sb.append("season=").append(meta.get(libvlc_meta_t.libvlc_meta_Season)).append(',');
+            sb.append("episode=").append(meta.get(libvlc_meta_t.libvlc_meta_Episode)).append(',');
+            sb.append("showName=").append(meta.get(libvlc_meta_t.libvlc_meta_ShowName)).append(',');
+            sb.append("actors=").append(meta.get(libvlc_meta_t.libvlc_meta_Actors)).append(',');
         }
         if (actualVersion.atLeast(VERSION_300)) {
-            sb.append("albumArtist=").append(getAlbumArtist()).append(',');
-            sb.append("discNumber=").append(getDiscNumber()).append(',');
+            sb.append("albumArtist=").append(meta.get(libvlc_meta_t.libvlc_meta_AlbumArtist)).append(',');
+            sb.append("discNumber=").append(meta.get(libvlc_meta_t.libvlc_meta_DiscNumber)).append(',');
         }
         sb.append("length=").append(getLength()).append(']');
         return sb.toString();
     }
+
+    /**
+     * Native callback to discard the cached meta data when the native meta data changes.
+     * <p>
+     * The native event thread must not call back into the native library, so this only discards
+     * the cache, the values are read again the next time they are needed.
+     */
+    private final class MetaChangedCallback implements libvlc_callback_t {
+
+        @Override
+        public void callback(libvlc_event_t event, Pointer userData) {
+            invalidate();
+        }
+    }
 }
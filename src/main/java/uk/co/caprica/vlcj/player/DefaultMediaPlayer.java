@@ -33,6 +33,9 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.imageio.ImageIO;
@@ -41,8 +44,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.LibVlcDirectFunctions;
 import uk.co.caprica.vlcj.binding.internal.libvlc_audio_output_device_t;
-import uk.co.caprica.vlcj.binding.internal.libvlc_audio_track_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_callback_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_chapter_description_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_equalizer_t;
@@ -57,29 +60,28 @@ import uk.co.caprica.vlcj.binding.internal.libvlc_media_parse_flag_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_player_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_stats_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
-import uk.co.caprica.vlcj.binding.internal.libvlc_media_track_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_media_type_e;
 import uk.co.caprica.vlcj.binding.internal.libvlc_navigate_mode_e;
 import uk.co.caprica.vlcj.binding.internal.libvlc_position_e;
 import uk.co.caprica.vlcj.binding.internal.libvlc_state_t;
-import uk.co.caprica.vlcj.binding.internal.libvlc_subtitle_track_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_title_description_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_track_description_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_track_type_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_video_adjust_option_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_video_logo_option_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_video_marquee_option_t;
-import uk.co.caprica.vlcj.binding.internal.libvlc_video_track_t;
 import uk.co.caprica.vlcj.medialist.MediaList;
 import uk.co.caprica.vlcj.player.condition.BeforeConditionAbortedException;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
+import uk.co.caprica.vlcj.player.condition.conditions.ParsedCondition;
 import uk.co.caprica.vlcj.player.events.MediaPlayerEvent;
 import uk.co.caprica.vlcj.player.events.MediaPlayerEventFactory;
 import uk.co.caprica.vlcj.player.events.MediaPlayerEventType;
 import uk.co.caprica.vlcj.player.media.Media;
 import uk.co.caprica.vlcj.player.media.callback.CallbackMedia;
+import uk.co.caprica.vlcj.player.media.prepared.PreparedMedia;
 import uk.co.caprica.vlcj.player.media.simple.SimpleMedia;
-import uk.co.caprica.vlcj.version.LibVlcVersion;
-import uk.co.caprica.vlcj.version.Version;
+import uk.co.caprica.vlcj.runtime.RuntimeUtil;
 
 import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
@@ -96,6 +98,15 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
      */
     private final Logger logger = LoggerFactory.getLogger(DefaultMediaPlayer.class);
 
+    /**
+     * Directory for temporary snapshot files.
+     * <p>
+     * A memory-backed file system is used when there is one, so a snapshot taken by
+     * {@link #getSnapshot()} never touches the disk, otherwise <code>null</code> for the default
+     * temporary directory.
+     */
+    private static final File SNAPSHOT_DIRECTORY = snapshotDirectory();
+
     /**
      * Collection of media player event listeners.
      */
@@ -134,11 +145,21 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
      */
     private libvlc_media_t mediaInstance;
 
+    /**
+     * Cached track information for the current media and its sub-items.
+     */
+    private final TrackInfoCache trackInfoCache = new TrackInfoCache();
+
     /**
      * Mask of the native events that will cause notifications to be sent to listeners.
      */
     private long eventMask = MediaPlayerEventType.ALL.value();
 
+    /**
+     * Journal of recent native events, or <code>null</code> if not enabled.
+     */
+    private volatile MediaPlayerEventJournal eventJournal;
+
     /**
      * Standard options to be applied to all played media.
      */
@@ -184,6 +205,33 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
      */
     private libvlc_equalizer_t equalizerInstance;
 
+    /**
+     * Lock guarding the equalizer state, since batched equalizer changes are applied by a
+     * background thread.
+     */
+    private final Object equalizerLock = new Object();
+
+    /**
+     * Pre-amplification value last applied to the native equalizer.
+     */
+    private float appliedPreamp;
+
+    /**
+     * Band amplification values last applied to the native equalizer, or <code>null</code> if
+     * all values must be applied.
+     */
+    private float[] appliedAmps;
+
+    /**
+     * Time window within which equalizer changes are batched, in nanoseconds.
+     */
+    private volatile long equalizerBatchWindow;
+
+    /**
+     * True if a batched equalizer update has been scheduled but not yet applied.
+     */
+    private boolean equalizerUpdatePending;
+
     /**
      * Opaque reference to user/application-specific data associated with this media player.
      */
@@ -194,6 +242,12 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
      */
     private final AtomicBoolean released = new AtomicBoolean();
 
+    /**
+     * True if the frequently polled status functions can be invoked as direct-mapped native
+     * methods, rather than via the native library proxy.
+     */
+    private final boolean direct;
+
     /**
      * Media that was last played (including media options).
      * <p>
@@ -211,6 +265,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     public DefaultMediaPlayer(LibVlc libvlc, libvlc_instance_t instance) {
         super(libvlc, instance);
         logger.debug("DefaultMediaPlayer(libvlc={}, instance={})", libvlc, instance);
+        this.direct = LibVlcDirectFunctions.isAvailable(libvlc);
         createInstance();
     }
 
@@ -242,6 +297,18 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         this.eventMask = eventMask;
     }
 
+    @Override
+    public void enableEventJournal(int capacity) {
+        logger.debug("enableEventJournal(capacity={})", capacity);
+        this.eventJournal = capacity > 0 ? new MediaPlayerEventJournal(capacity) : null;
+    }
+
+    @Override
+    public MediaPlayerEventJournal getEventJournal() {
+        logger.debug("getEventJournal()");
+        return eventJournal;
+    }
+
     // === Media Controls =======================================================
 
     @Override
@@ -301,6 +368,34 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    @Override
+    public ConditionFuture<Boolean> startMediaAsync(String mrl, String... mediaOptions) {
+        logger.debug("startMediaAsync(mrl={}, mediaOptions={})", mrl, Arrays.toString(mediaOptions));
+        return startMediaAsync(new SimpleMedia(mrl, mediaOptions));
+    }
+
+    @Override
+    public ConditionFuture<Boolean> startMediaAsync(Media media) {
+        logger.debug("startMediaAsync(media={})", media);
+        return startMediaAsync(media, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ConditionFuture<Boolean> startMediaAsync(Media media, long timeout, TimeUnit unit) {
+        logger.debug("startMediaAsync(media={},timeout={},unit={})", media, timeout, unit);
+        // First 'prepare' the media...
+        if(prepareMedia(media)) {
+            // ...then play it without waiting for it to start (or error)
+            return new MediaPlayerLatch(this).playAsync(timeout, unit);
+        }
+        else {
+            // Callers can handle this failure the same way as any other
+            ConditionFutureTask<Boolean> result = new ConditionFutureTask<Boolean>();
+            result.fail(new IllegalStateException("Failed to prepare media"));
+            return result;
+        }
+    }
+
     @Override
     public void parseMedia() {
         logger.debug("parseMedia()");
@@ -323,6 +418,29 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    @Override
+    public ConditionFuture<Integer> parseMediaAsync(long timeout, TimeUnit unit) {
+        logger.debug("parseMediaAsync(timeout={},unit={})", timeout, unit);
+        if(mediaInstance != null) {
+            return new ParsedCondition(this) {
+                @Override
+                protected boolean onBefore() {
+                    // No event will be raised if the media is already parsed
+                    if(isMediaParsed()) {
+                        ready(1);
+                    }
+                    else {
+                        requestParseMedia();
+                    }
+                    return true;
+                }
+            }.submit(timeout, unit);
+        }
+        else {
+            throw new IllegalStateException("No media");
+        }
+    }
+
     @Override
     public boolean requestParseMediaWithOptions(libvlc_media_parse_flag_t... options) {
         logger.debug("requestParseMediaWithOptions(options={})", options != null ? Arrays.toString(options) : "");
@@ -332,7 +450,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public boolean requestParseMediaWithOptions(int timeout, libvlc_media_parse_flag_t... options) {
         logger.debug("requestParseMediaWithOptions(timeout={},options={})", timeout, options != null ? Arrays.toString(options) : "");
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if(capabilities.isLibVlc3Available()) {
             int flags = 0;
             for (libvlc_media_parse_flag_t option : options) {
                 flags |= option.intValue();
@@ -589,7 +707,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public boolean isPlaying() {
         logger.trace("isPlaying()");
-        return libvlc.libvlc_media_player_is_playing(mediaPlayerInstance) == 1;
+        return (direct ? LibVlcDirectFunctions.libvlc_media_player_is_playing(mediaPlayerInstance) : libvlc.libvlc_media_player_is_playing(mediaPlayerInstance)) == 1;
     }
 
     @Override
@@ -613,19 +731,19 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public long getLength() {
         logger.trace("getLength()");
-        return libvlc.libvlc_media_player_get_length(mediaPlayerInstance);
+        return direct ? LibVlcDirectFunctions.libvlc_media_player_get_length(mediaPlayerInstance) : libvlc.libvlc_media_player_get_length(mediaPlayerInstance);
     }
 
     @Override
     public long getTime() {
         logger.trace("getTime()");
-        return libvlc.libvlc_media_player_get_time(mediaPlayerInstance);
+        return direct ? LibVlcDirectFunctions.libvlc_media_player_get_time(mediaPlayerInstance) : libvlc.libvlc_media_player_get_time(mediaPlayerInstance);
     }
 
     @Override
     public float getPosition() {
         logger.trace("getPosition()");
-        return libvlc.libvlc_media_player_get_position(mediaPlayerInstance);
+        return direct ? LibVlcDirectFunctions.libvlc_media_player_get_position(mediaPlayerInstance) : libvlc.libvlc_media_player_get_position(mediaPlayerInstance);
     }
 
     @Override
@@ -637,7 +755,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public float getRate() {
         logger.trace("getRate()");
-        return libvlc.libvlc_media_player_get_rate(mediaPlayerInstance);
+        return direct ? LibVlcDirectFunctions.libvlc_media_player_get_rate(mediaPlayerInstance) : libvlc.libvlc_media_player_get_rate(mediaPlayerInstance);
     }
 
     @Override
@@ -726,6 +844,25 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         return libvlcMediaStats;
     }
 
+    @Override
+    public boolean getMediaStatistics(libvlc_media_stats_t mediaStatistics) {
+        logger.trace("getMediaStatistics(mediaStatistics={})", mediaStatistics);
+        if(isPlaying()) {
+            // The native media player gives a new reference to its media, so the media can not be
+            // freed by a concurrent change of media while the statistics are read
+            libvlc_media_t media = libvlc.libvlc_media_player_get_media(mediaPlayerInstance);
+            if(media != null) {
+                try {
+                    return libvlc.libvlc_media_get_stats(media, mediaStatistics) != 0;
+                }
+                finally {
+                    libvlc.libvlc_media_release(media);
+                }
+            }
+        }
+        return false;
+    }
+
     // FIXME do not return the native structure, should be a Java enum
     @Override
     public libvlc_state_t getMediaState() {
@@ -741,7 +878,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public libvlc_state_t getMediaPlayerState() {
         logger.debug("getMediaPlayerState()");
-        return libvlc_state_t.state(libvlc.libvlc_media_player_get_state(mediaPlayerInstance));
+        return libvlc_state_t.state(direct ? LibVlcDirectFunctions.libvlc_media_player_get_state(mediaPlayerInstance) : libvlc.libvlc_media_player_get_state(mediaPlayerInstance));
     }
 
     // === Title/Track Controls =================================================
@@ -914,7 +1051,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public String getAudioOutputDevice() {
         logger.debug("getAudioOutputDevice()");
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if(capabilities.isLibVlc3Available()) {
             return NativeString.getNativeString(libvlc, libvlc.libvlc_audio_output_device_get(mediaPlayerInstance));
         }
         else {
@@ -925,7 +1062,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public List<AudioDevice> getAudioOutputDevices() {
         logger.debug("getAudioOutputDevices()");
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_220)) {
+        if(capabilities.isAudioOutputDeviceEnumerationAvailable()) {
             List<AudioDevice> result = new ArrayList<AudioDevice>();
             libvlc_audio_output_device_t audioDevices = libvlc.libvlc_audio_output_device_enum(mediaPlayerInstance);
             if (audioDevices != null) {
@@ -968,13 +1105,13 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public boolean isMute() {
         logger.debug("isMute()");
-        return libvlc.libvlc_audio_get_mute(mediaPlayerInstance) != 0;
+        return (direct ? LibVlcDirectFunctions.libvlc_audio_get_mute(mediaPlayerInstance) : libvlc.libvlc_audio_get_mute(mediaPlayerInstance)) != 0;
     }
 
     @Override
     public int getVolume() {
         logger.debug("getVolume()");
-        return libvlc.libvlc_audio_get_volume(mediaPlayerInstance);
+        return direct ? LibVlcDirectFunctions.libvlc_audio_get_volume(mediaPlayerInstance) : libvlc.libvlc_audio_get_volume(mediaPlayerInstance);
     }
 
     @Override
@@ -1209,7 +1346,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     public List<TitleDescription> getExtendedTitleDescriptions() {
         logger.debug("getExtendedTitleDescriptions()");
         List<TitleDescription> result;
-        if (LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if (capabilities.isLibVlc3Available()) {
             PointerByReference titles = new PointerByReference();
             int titleCount = libvlc.libvlc_media_player_get_full_title_descriptions(mediaPlayerInstance, titles);
             if (titleCount != -1) {
@@ -1242,7 +1379,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     public List<ChapterDescription> getExtendedChapterDescriptions(int title) {
         logger.debug("getExtendedChapterDescriptions(title={})", title);
         List<ChapterDescription> result;
-        if (LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if (capabilities.isLibVlc3Available()) {
             PointerByReference chapters = new PointerByReference();
             int chapterCount = libvlc.libvlc_media_player_get_full_chapter_descriptions(mediaPlayerInstance, title, chapters);
             if (chapterCount != -1) {
@@ -1287,110 +1424,45 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
                     requestedTypes.add(type);
                 }
             }
-            result = getTrackInfo(media, requestedTypes);
+            result = getTrackInfo(media, requestedTypes, false);
         }
         return result;
     }
 
     /**
      * Get track info using the new libvlc 2.1.0+ implementation.
+     * <p>
+     * The track info of the current media and its sub-items is cached until a native event that
+     * may change it. The current media is only cached if the run-time native library sends
+     * elementary stream events, sub-items only once they have been parsed since no events are
+     * received for them before that. Any other media is always read from the native media, since
+     * nothing would ever invalidate its cached track info.
      *
      * @param types set of desired track types
      * @param media media descriptor
+     * @param subItem <code>true</code> if the media is a sub-item of the current media
      * @return track info
      */
-    private List<TrackInfo> getTrackInfo(libvlc_media_t media, Set<TrackType> types) {
-        logger.debug("newGetTrackInfo(media={},types={})", media, types);
-        PointerByReference tracksPointer = new PointerByReference();
-        int numberOfTracks = libvlc.libvlc_media_tracks_get(media, tracksPointer);
-        logger.debug("numberOfTracks={}", numberOfTracks);
-        List<TrackInfo> result = new ArrayList<TrackInfo>(numberOfTracks);
-        if(numberOfTracks > 0) {
-            Pointer[] tracks = tracksPointer.getValue().getPointerArray(0, numberOfTracks);
-            for(Pointer track : tracks) {
-                libvlc_media_track_t trackInfo = new libvlc_media_track_t(track);
-                switch(libvlc_track_type_t.valueOf(trackInfo.i_type)) {
-                    case libvlc_track_unknown:
-                        if(types == null || types.contains(TrackType.UNKNOWN)) {
-                            result.add(new UnknownTrackInfo(
-                                trackInfo.i_codec,
-                                trackInfo.i_original_fourcc,
-                                trackInfo.i_id,
-                                trackInfo.i_profile,
-                                trackInfo.i_level,
-                                trackInfo.i_bitrate,
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
-                                getCodecDescription(libvlc_track_type_t.libvlc_track_unknown, trackInfo.i_codec)
-                            ));
-                        }
-                        break;
-
-                    case libvlc_track_video:
-                        if(types == null || types.contains(TrackType.VIDEO)) {
-                            trackInfo.u.setType(libvlc_video_track_t.class);
-                            trackInfo.u.read();
-                            result.add(new VideoTrackInfo(
-                                trackInfo.i_codec,
-                                trackInfo.i_original_fourcc,
-                                trackInfo.i_id,
-                                trackInfo.i_profile,
-                                trackInfo.i_level,
-                                trackInfo.i_bitrate,
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
-                                trackInfo.u.video.i_width,
-                                trackInfo.u.video.i_height,
-                                trackInfo.u.video.i_sar_num,
-                                trackInfo.u.video.i_sar_den,
-                                trackInfo.u.video.i_frame_rate_num,
-                                trackInfo.u.video.i_frame_rate_den,
-                                getCodecDescription(libvlc_track_type_t.libvlc_track_video, trackInfo.i_codec)
-                            ));
-                        }
-                        break;
-
-                    case libvlc_track_audio:
-                        if(types == null || types.contains(TrackType.AUDIO)) {
-                            trackInfo.u.setType(libvlc_audio_track_t.class);
-                            trackInfo.u.read();
-                            result.add(new AudioTrackInfo(
-                                trackInfo.i_codec,
-                                trackInfo.i_original_fourcc,
-                                trackInfo.i_id,
-                                trackInfo.i_profile,
-                                trackInfo.i_level,
-                                trackInfo.i_bitrate,
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
-                                trackInfo.u.audio.i_channels,
-                                trackInfo.u.audio.i_rate,
-                                getCodecDescription(libvlc_track_type_t.libvlc_track_audio, trackInfo.i_codec)
-                            ));
-                        }
-                        break;
-
-                    case libvlc_track_text:
-                        if(types == null || types.contains(TrackType.TEXT)) {
-                            trackInfo.u.setType(libvlc_subtitle_track_t.class);
-                            trackInfo.u.read();
-                            result.add(new TextTrackInfo(
-                                trackInfo.i_codec,
-                                trackInfo.i_original_fourcc,
-                                trackInfo.i_id,
-                                trackInfo.i_profile,
-                                trackInfo.i_level,
-                                trackInfo.i_bitrate,
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
-                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
-                                NativeString.copyNativeString(libvlc, trackInfo.u.subtitle.psz_encoding),
-                                getCodecDescription(libvlc_track_type_t.libvlc_track_text, trackInfo.i_codec)
-                            ));
-                        }
-                        break;
-                }
+    private List<TrackInfo> getTrackInfo(libvlc_media_t media, Set<TrackType> types, boolean subItem) {
+        logger.debug("newGetTrackInfo(media={},types={},subItem={})", media, types, subItem);
+        if(!subItem && !media.equals(mediaInstance)) {
+            return TrackInfoCache.filter(TrackInfoFactory.trackInfo(libvlc, capabilities, media, null), types);
+        }
+        List<TrackInfo> result = trackInfoCache.get(media, types);
+        if(result == null) {
+            int generation = trackInfoCache.generation();
+            List<TrackInfo> all = TrackInfoFactory.trackInfo(libvlc, capabilities, media, null);
+            boolean cacheable;
+            if(media.equals(mediaInstance)) {
+                cacheable = capabilities.mediaPlayerEvents().contains(libvlc_event_e.libvlc_MediaPlayerESAdded);
+            }
+            else {
+                cacheable = libvlc.libvlc_media_is_parsed(media) != 0;
             }
-            libvlc.libvlc_media_tracks_release(tracksPointer.getValue(), numberOfTracks); // FIXME maybe should copy the nativestring here?
+            if(cacheable) {
+                trackInfoCache.put(media, all, generation);
+            }
+            result = TrackInfoCache.filter(all, types);
         }
         return result;
     }
@@ -1415,7 +1487,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public String getCodecDescription(libvlc_track_type_t type, int codec) {
         logger.debug("getCodecDescription(type={},codec={})", type, codec);
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if(capabilities.isLibVlc3Available()) {
             return libvlc.libvlc_media_get_codec_description(type.intValue(), codec);
         }
         else {
@@ -1431,7 +1503,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
             public List<List<TrackInfo>> subItems(int count, libvlc_media_list_t subItems) {
                 List<List<TrackInfo>> result = new ArrayList<List<TrackInfo>>(count);
                 for(libvlc_media_t subItem : new LibVlcMediaListIterator(libvlc, subItems)) {
-                    result.add(getTrackInfo(subItem));
+                    result.add(getTrackInfo(subItem, null, true));
                 }
                 return result;
             }
@@ -1507,6 +1579,12 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    @Override
+    public ConditionFuture<String> saveSnapshotAsync(File file, int width, int height, long timeout, TimeUnit unit) {
+        logger.debug("saveSnapshotAsync(file={},width={},height={},timeout={},unit={})", file, width, height, timeout, unit);
+        return new WaitForSnapshot(this, file, width, height).submit(timeout, unit);
+    }
+
     @Override
     public BufferedImage getSnapshot() {
         logger.debug("getSnapshot()");
@@ -1518,7 +1596,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         logger.debug("getSnapshot(width={},height={})", width, height);
         File file = null;
         try {
-            file = File.createTempFile("vlcj-snapshot-", ".png");
+            file = File.createTempFile("vlcj-snapshot-", ".png", SNAPSHOT_DIRECTORY);
             logger.debug("file={}", file.getAbsolutePath());
             return ImageIO.read(new File(new WaitForSnapshot(this, file, width, height).await()));
         }
@@ -1540,6 +1618,21 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    /**
+     * Find a memory-backed directory for temporary snapshot files.
+     *
+     * @return directory, or <code>null</code> for the default temporary directory
+     */
+    private static File snapshotDirectory() {
+        if(RuntimeUtil.isNix()) {
+            File shm = new File("/dev/shm");
+            if(shm.isDirectory() && shm.canWrite()) {
+                return shm;
+            }
+        }
+        return null;
+    }
+
     // === Logo Controls ========================================================
 
     @Override
@@ -1781,32 +1874,66 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public void setEqualizer(Equalizer equalizer) {
         logger.debug("setEqualizer(equalizer={})", equalizer);
-        if(this.equalizer != null) {
-            this.equalizer.removeEqualizerListener(this);
-            libvlc.libvlc_audio_equalizer_release(equalizerInstance);
-            equalizerInstance = null;
-        }
-        this.equalizer = equalizer;
-        if(this.equalizer != null) {
-            equalizerInstance = libvlc.libvlc_audio_equalizer_new();
-            this.equalizer.addEqualizerListener(this);
+        synchronized(equalizerLock) {
+            if(this.equalizer != null) {
+                this.equalizer.removeEqualizerListener(this);
+                libvlc.libvlc_audio_equalizer_release(equalizerInstance);
+                equalizerInstance = null;
+            }
+            this.equalizer = equalizer;
+            if(this.equalizer != null) {
+                equalizerInstance = libvlc.libvlc_audio_equalizer_new();
+                this.equalizer.addEqualizerListener(this);
+            }
+            // A new native equalizer instance needs every value applied
+            appliedAmps = null;
+            applyEqualizer();
         }
-        applyEqualizer();
+    }
+
+    @Override
+    public void setEqualizerBatchWindow(long window, TimeUnit unit) {
+        logger.debug("setEqualizerBatchWindow(window={},unit={})", window, unit);
+        this.equalizerBatchWindow = Math.max(unit.toNanos(window), 0);
     }
 
     /**
      * Apply the audio equalizer settings to the native media player.
+     * <p>
+     * Only those values that changed since the equalizer was last applied are set on the native
+     * equalizer, and the native equalizer is only set on the media player if something changed.
+     * <p>
+     * The caller must hold the equalizer lock.
      */
     private void applyEqualizer() {
         logger.trace("applyEqualizer()");
         logger.trace("equalizerInstance={}", equalizerInstance);
+        equalizerUpdatePending = false;
         if(equalizerInstance != null) {
-            logger.trace("Set equalizer");
-            libvlc.libvlc_audio_equalizer_set_preamp(equalizerInstance, equalizer.getPreamp());
-            for(int i = 0; i < libvlc.libvlc_audio_equalizer_get_band_count(); i ++ ) {
-                libvlc.libvlc_audio_equalizer_set_amp_at_index(equalizerInstance, equalizer.getAmp(i), i);
+            int bandCount = equalizer.getBandCount();
+            boolean applyAll = appliedAmps == null;
+            if(applyAll) {
+                appliedAmps = new float[bandCount];
+            }
+            boolean changed = applyAll;
+            float preamp = equalizer.getPreamp();
+            if(applyAll || preamp != appliedPreamp) {
+                libvlc.libvlc_audio_equalizer_set_preamp(equalizerInstance, preamp);
+                appliedPreamp = preamp;
+                changed = true;
+            }
+            for(int i = 0; i < bandCount; i ++ ) {
+                float amp = equalizer.getAmp(i);
+                if(applyAll || amp != appliedAmps[i]) {
+                    libvlc.libvlc_audio_equalizer_set_amp_at_index(equalizerInstance, amp, i);
+                    appliedAmps[i] = amp;
+                    changed = true;
+                }
+            }
+            if(changed) {
+                logger.trace("Set equalizer");
+                libvlc.libvlc_media_player_set_equalizer(mediaPlayerInstance, equalizerInstance);
             }
-            libvlc.libvlc_media_player_set_equalizer(mediaPlayerInstance, equalizerInstance);
         }
         else {
             logger.trace("Disable equalizer");
@@ -1814,6 +1941,39 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    /**
+     * Lazily created shared timer used to apply batched equalizer changes.
+     */
+    private static final class EqualizerTimer {
+
+        /**
+         * Timer service, a single daemon thread is sufficient since the tasks are short.
+         */
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-equalizer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Task to apply batched equalizer changes.
+     */
+    private final class ApplyEqualizerRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            synchronized(equalizerLock) {
+                if(equalizerUpdatePending && !released.get()) {
+                    applyEqualizer();
+                }
+            }
+        }
+    }
+
     // === Implementation =======================================================
 
     @Override
@@ -1892,6 +2052,7 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         eventListenerList.add(new RepeatPlayEventHandler());
         eventListenerList.add(new SubItemEventHandler());
         eventListenerList.add(new ResetMediaHandler());
+        eventListenerList.add(new EventJournalErrorHandler());
     }
 
     /**
@@ -1900,6 +2061,11 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     private void destroyInstance() {
         logger.debug("destroyInstance()");
 
+        // Prevent any pending batched equalizer update from being applied
+        synchronized(equalizerLock) {
+            equalizerUpdatePending = false;
+        }
+
         logger.debug("Detach media events...");
         deregisterMediaEventListener();
         logger.debug("Media events detached.");
@@ -1922,14 +2088,16 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
             logger.debug("Media player released.");
         }
 
-        if(equalizer != null) {
-            equalizer.removeEqualizerListener(this);
-            equalizer = null;
-        }
+        synchronized(equalizerLock) {
+            if(equalizer != null) {
+                equalizer.removeEqualizerListener(this);
+                equalizer = null;
+            }
 
-        if(equalizerInstance != null) {
-            libvlc.libvlc_audio_equalizer_release(equalizerInstance);
-            equalizerInstance = null;
+            if(equalizerInstance != null) {
+                libvlc.libvlc_audio_equalizer_release(equalizerInstance);
+                equalizerInstance = null;
+            }
         }
 
         logger.debug("Shut down listeners...");
@@ -1943,13 +2111,10 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     private void registerEventListener() {
         logger.debug("registerEventListener()");
         callback = new EventCallback();
-        libvlc_event_e lastKnownEvent = lastKnownEvent();
-        for(libvlc_event_e event : libvlc_event_e.values()) {
-            if(event.intValue() >= libvlc_event_e.libvlc_MediaPlayerMediaChanged.intValue() && event.intValue() <= lastKnownEvent.intValue()) {
-                logger.debug("event={}", event);
-                int result = libvlc.libvlc_event_attach(mediaPlayerEventManager, event.intValue(), callback, null);
-                logger.debug("result={}", result);
-            }
+        for(libvlc_event_e event : capabilities.mediaPlayerEvents()) {
+            logger.debug("event={}", event);
+            int result = libvlc.libvlc_event_attach(mediaPlayerEventManager, event.intValue(), callback, null);
+            logger.debug("result={}", result);
         }
     }
 
@@ -1959,40 +2124,14 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     private void deregisterEventListener() {
         logger.debug("deregisterEventListener()");
         if(callback != null) {
-            libvlc_event_e lastKnownEvent = lastKnownEvent();
-            for(libvlc_event_e event : libvlc_event_e.values()) {
-                if(event.intValue() >= libvlc_event_e.libvlc_MediaPlayerMediaChanged.intValue() && event.intValue() <= lastKnownEvent.intValue()) {
-                    logger.debug("event={}", event);
-                    libvlc.libvlc_event_detach(mediaPlayerEventManager, event.intValue(), callback, null);
-                }
+            for(libvlc_event_e event : capabilities.mediaPlayerEvents()) {
+                logger.debug("event={}", event);
+                libvlc.libvlc_event_detach(mediaPlayerEventManager, event.intValue(), callback, null);
             }
             callback = null;
         }
     }
 
-    /**
-     * Get the last known event type supported by the run-time native event manager.
-     * <p>
-     * This is required to support earlier than LibVLC 2.2.0, and can be removed when such support
-     * is no longer required.
-     *
-     * @return event type
-     */
-    private libvlc_event_e lastKnownEvent() {
-        libvlc_event_e result;
-        Version version = new Version(libvlc.libvlc_get_version());
-        if(version.atLeast(new Version("3.0.0"))) {
-            result = libvlc_event_e.libvlc_MediaPlayerChapterChanged;
-        }
-        else if(version.atLeast(new Version("2.2.0"))) {
-            result = libvlc_event_e.libvlc_MediaPlayerScrambledChanged;
-        }
-        else {
-            result = libvlc_event_e.libvlc_MediaPlayerVout;
-        }
-        return result;
-    }
-
     /**
      * Register a call-back to receive media native events.
      */
@@ -2001,13 +2140,10 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         // If there is a media, register a new listener...
         if(mediaInstance != null) {
             libvlc_event_manager_t mediaEventManager = libvlc.libvlc_media_event_manager(mediaInstance);
-            libvlc_event_e lastKnownMediaEvent = lastKnownMediaEvent();
-            for(libvlc_event_e event : libvlc_event_e.values()) {
-                if(event.intValue() >= libvlc_event_e.libvlc_MediaMetaChanged.intValue() && event.intValue() <= lastKnownMediaEvent.intValue()) {
-                    logger.debug("event={}", event);
-                    int result = libvlc.libvlc_event_attach(mediaEventManager, event.intValue(), callback, null);
-                    logger.debug("result={}", result);
-                }
+            for(libvlc_event_e event : capabilities.mediaEvents()) {
+                logger.debug("event={}", event);
+                int result = libvlc.libvlc_event_attach(mediaEventManager, event.intValue(), callback, null);
+                logger.debug("result={}", result);
             }
         }
     }
@@ -2020,39 +2156,13 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         // If there is a media, deregister the listener...
         if(mediaInstance != null) {
             libvlc_event_manager_t mediaEventManager = libvlc.libvlc_media_event_manager(mediaInstance);
-            libvlc_event_e lastKnownMediaEvent = lastKnownMediaEvent();
-            for(libvlc_event_e event : libvlc_event_e.values()) {
-                if(event.intValue() >= libvlc_event_e.libvlc_MediaMetaChanged.intValue() && event.intValue() <= lastKnownMediaEvent.intValue()) {
-                    logger.debug("event={}", event);
-                    libvlc.libvlc_event_detach(mediaEventManager, event.intValue(), callback, null);
-                }
+            for(libvlc_event_e event : capabilities.mediaEvents()) {
+                logger.debug("event={}", event);
+                libvlc.libvlc_event_detach(mediaEventManager, event.intValue(), callback, null);
             }
         }
     }
 
-    /**
-     * Get the last known media event type supported by the run-time native event manager.
-     * <p>
-     * This is required to support earlier than LibVLC 2.2.0, and can be removed when such support
-     * is no longer required.
-     *
-     * @return event type
-     */
-    private libvlc_event_e lastKnownMediaEvent() {
-        libvlc_event_e result;
-        Version version = new Version(libvlc.libvlc_get_version());
-        if(version.atLeast(new Version("3.0.0"))) {
-            result = libvlc_event_e.libvlc_MediaParsedStatus;
-        }
-        else if(version.atLeast(new Version("2.1.5"))) {
-            result = libvlc_event_e.libvlc_MediaSubItemTreeAdded;
-        }
-        else {
-            result = libvlc_event_e.libvlc_MediaStateChanged;
-        }
-        return result;
-    }
-
     /**
      * Raise an event.
      *
@@ -2080,6 +2190,12 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         // instance pinned to prevent it from being garbage collected - critical when using the
         // native media callbacks)
         this.lastPlayedMedia = media;
+        // Prepared media may be the very same native media as the current media (e.g. on replay),
+        // so take a native reference of our own before the current media is released
+        boolean prepared = media instanceof PreparedMedia;
+        if(prepared) {
+            libvlc.libvlc_media_retain(((PreparedMedia)media).mediaInstance());
+        }
         // If there is a current media, clean it up
         if(mediaInstance != null) {
             // Release the media event listener
@@ -2090,19 +2206,21 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
         // Reset sub-items
         subItemIndex = -1;
+        trackInfoCache.clear();
         // Create the native media handle for the given media
         mediaInstance = createMediaInstance(media);
         logger.debug("mediaInstance={}", mediaInstance);
         if(mediaInstance != null) {
+            // Prepared media already has its options, and may be shared, so never add them again
             // Set the standard media options (if any)...
-            if(standardMediaOptions != null) {
+            if(!prepared && standardMediaOptions != null) {
                 for(String standardMediaOption : standardMediaOptions) {
                     logger.debug("standardMediaOption={}", standardMediaOption);
                     libvlc.libvlc_media_add_option(mediaInstance, standardMediaOption);
                 }
             }
             // Set the particular media options (if any)...
-            if(media.mediaOptions() != null) {
+            if(!prepared && media.mediaOptions() != null) {
                 for(String mediaOption : media.mediaOptions()) {
                     logger.debug("mediaOption={}", mediaOption);
                     libvlc.libvlc_media_add_option(mediaInstance, mediaOption);
@@ -2154,6 +2272,11 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
                 callbackMedia.getOpaque()
             );
         }
+        else if (media instanceof PreparedMedia) {
+            // The native reference was already retained by setMedia, it is released when the media
+            // is replaced
+            result = ((PreparedMedia)media).mediaInstance();
+        }
         else {
             throw new IllegalStateException("Don't know about media type " + media);
         }
@@ -2220,6 +2343,13 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         @Override
         public void callback(libvlc_event_t event, Pointer userData) {
             logger.trace("callback(event={},userData={})", event, userData);
+            MediaPlayerEventJournal journal = eventJournal;
+            if(journal != null) {
+                journal.record(event);
+            }
+            if(TrackInfoCache.invalidates(event.type)) {
+                trackInfoCache.clear();
+            }
             // Create a new media player event for the native event - due to internal implementation
             // details the event listener list is never empty so it is redundant to check that here
             MediaPlayerEvent mediaPlayerEvent = eventFactory.createEvent(event, eventMask);
@@ -2364,6 +2494,20 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
         }
     }
 
+    /**
+     * Event listener implementation that dumps the event journal, if there is one, when an error
+     * occurs.
+     */
+    private final class EventJournalErrorHandler extends MediaPlayerEventAdapter {
+        @Override
+        public void error(MediaPlayer mediaPlayer) {
+            MediaPlayerEventJournal journal = eventJournal;
+            if(journal != null && journal.isDumpOnError()) {
+                logger.warn("Media player error, {}", journal.dump());
+            }
+        }
+    }
+
     /**
      * Reset the media so it can be replayed.
      */
@@ -2394,6 +2538,17 @@ public abstract class DefaultMediaPlayer extends AbstractMediaPlayer implements
     @Override
     public final void equalizerChanged(Equalizer equalizer) {
         logger.trace("equalizerChanged(equalizer={})", equalizer);
-        applyEqualizer();
+        long window = equalizerBatchWindow;
+        synchronized(equalizerLock) {
+            if(window > 0) {
+                if(!equalizerUpdatePending) {
+                    equalizerUpdatePending = true;
+                    EqualizerTimer.INSTANCE.schedule(new ApplyEqualizerRunnable(), window, TimeUnit.NANOSECONDS);
+                }
+            }
+            else {
+                applyEqualizer();
+            }
+        }
     }
 }
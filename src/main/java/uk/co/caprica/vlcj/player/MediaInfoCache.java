@@ -0,0 +1,1171 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_parsed_status_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+
+/**
+ * A persistent cache of media meta data, track information and duration.
+ * <p>
+ * Entries are keyed by file path and are only returned if the size and last modified time of the
+ * file still match those recorded when the entry was stored, so a changed file is never served
+ * stale data.
+ * <p>
+ * The cache is stored in a directory containing a memory-mapped hash index and one or more data
+ * segment files. A lookup is a probe of the mapped index followed by a single positional read of
+ * the record, so opening a large cache costs little more than mapping the index, and no native
+ * media has to be parsed for files that are already cached.
+ * <p>
+ * Records are only ever appended. Replacing or removing an entry leaves its old record behind as
+ * garbage, which is reclaimed one segment at a time by {@link #compact()}, so compaction can be
+ * done in small steps while the cache is in use.
+ * <p>
+ * Every record carries a checksum, a corrupt or partially written record is treated as a cache
+ * miss.
+ * <p>
+ * This class is thread-safe. Only one instance should use a given directory at a time.
+ *
+ * <pre>
+ * MediaInfoCache cache = MediaInfoCache.open(new File(System.getProperty("user.home"), ".vlcj-cache"));
+ * ParsedMedia info = cache.get(file);
+ * if(info == null) {
+ *     info = mediaParser.parse(file.getAbsolutePath(), 5, TimeUnit.SECONDS).get();
+ *     cache.put(file, info);
+ * }
+ * </pre>
+ */
+public final class MediaInfoCache {
+
+    /**
+     * Log.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MediaInfoCache.class);
+
+    /**
+     * Index file identifier.
+     */
+    private static final int INDEX_MAGIC = 0x766c636a;
+
+    /**
+     * Version of the index and record format.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Size of the index header: magic, version, capacity, reserved.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Size of an index slot: hash, segment, offset, length, reserved.
+     */
+    private static final int SLOT_SIZE = 24;
+
+    /**
+     * Segment number marking a removed index slot.
+     */
+    private static final int TOMBSTONE = -1;
+
+    /**
+     * Initial number of index slots, must be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Fraction of index slots in use, including removed slots, that triggers a rebuild.
+     */
+    private static final float MAXIMUM_LOAD = 0.7f;
+
+    /**
+     * Default maximum size of a data segment, bytes.
+     */
+    private static final long DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Fraction of live data below which a segment is compacted.
+     */
+    private static final float COMPACTION_THRESHOLD = 0.5f;
+
+    /**
+     * Size of a record header: body length, checksum.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * Stored kind for {@link UnknownTrackInfo}.
+     */
+    private static final int TRACK_UNKNOWN = 0;
+
+    /**
+     * Stored kind for {@link VideoTrackInfo}.
+     */
+    private static final int TRACK_VIDEO = 1;
+
+    /**
+     * Stored kind for {@link AudioTrackInfo}.
+     */
+    private static final int TRACK_AUDIO = 2;
+
+    /**
+     * Stored kind for {@link TextTrackInfo}.
+     */
+    private static final int TRACK_TEXT = 3;
+
+    /**
+     * Character set for strings stored in a record.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Index file name pattern, the group is the index generation.
+     */
+    private static final Pattern INDEX_FILE_PATTERN = Pattern.compile("index-(\\d+)\\.idx");
+
+    /**
+     * Segment file name pattern, the group is the segment number.
+     */
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("segment-(\\d+)\\.dat");
+
+    /**
+     * Meta data types, indexed by native value.
+     */
+    private static final libvlc_meta_t[] META_TYPES = libvlc_meta_t.values();
+
+    /**
+     * Cache directory.
+     */
+    private final File directory;
+
+    /**
+     * Maximum size of a data segment, bytes.
+     */
+    private final long segmentSize;
+
+    /**
+     * Data segments, by segment number.
+     */
+    private final Map<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+
+    /**
+     * Segment that new records are appended to.
+     */
+    private Segment activeSegment;
+
+    /**
+     * Mapped index.
+     */
+    private MappedByteBuffer index;
+
+    /**
+     * Index file.
+     */
+    private File indexFile;
+
+    /**
+     * Index generation, incremented each time the index is rebuilt.
+     */
+    private int indexGeneration;
+
+    /**
+     * Number of index slots.
+     */
+    private int capacity;
+
+    /**
+     * Number of index slots that are not empty, including removed slots.
+     */
+    private int used;
+
+    /**
+     * Number of live entries.
+     */
+    private int live;
+
+    /**
+     * Set when the cache has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Open a cache with the default segment size, creating it if necessary.
+     *
+     * @param directory cache directory
+     * @return cache
+     * @throws IOException if the cache could not be opened
+     */
+    public static MediaInfoCache open(File directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Open a cache, creating it if necessary.
+     *
+     * @param directory cache directory
+     * @param segmentSize maximum size of a data segment, bytes
+     * @return cache
+     * @throws IOException if the cache could not be opened
+     */
+    public static MediaInfoCache open(File directory, long segmentSize) throws IOException {
+        logger.debug("open(directory={},segmentSize={})", directory, segmentSize);
+        if(segmentSize < 1024 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentSize must be between 1024 and " + Integer.MAX_VALUE);
+        }
+        if(!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create cache directory " + directory);
+        }
+        MediaInfoCache result = new MediaInfoCache(directory, segmentSize);
+        result.load();
+        return result;
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param directory cache directory
+     * @param segmentSize maximum size of a data segment, bytes
+     */
+    private MediaInfoCache(File directory, long segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Get the cached information for a local file.
+     *
+     * @param file file
+     * @return cached information, or <code>null</code> if there is none or the file has changed
+     * @throws IOException if the cache could not be read
+     */
+    public ParsedMedia get(File file) throws IOException {
+        return get(file.getAbsolutePath(), file.length(), file.lastModified());
+    }
+
+    /**
+     * Get the cached information for a media.
+     *
+     * @param path media path
+     * @param size size of the media, bytes
+     * @param lastModified last modified time of the media, milliseconds
+     * @return cached information, or <code>null</code> if there is none or the media has changed
+     * @throws IOException if the cache could not be read
+     */
+    public synchronized ParsedMedia get(String path, long size, long lastModified) throws IOException {
+        logger.trace("get(path={},size={},lastModified={})", path, size, lastModified);
+        checkOpen();
+        long hash = hash(path);
+        for(int slot = firstSlot(hash); slotHash(slot) != 0; slot = (slot + 1) & (capacity - 1)) {
+            if(slotHash(slot) == hash && slotSegment(slot) != TOMBSTONE) {
+                ByteBuffer body = readRecord(slot);
+                if(body != null && path.equals(readString(body))) {
+                    // An entry for a file that has since changed is a miss
+                    if(body.getLong() == size && body.getLong() == lastModified) {
+                        return decode(path, body);
+                    }
+                    else {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Store the information for a local file.
+     *
+     * @param file file
+     * @param parsedMedia information to store
+     * @throws IOException if the cache could not be written
+     */
+    public void put(File file, ParsedMedia parsedMedia) throws IOException {
+        put(file.getAbsolutePath(), file.length(), file.lastModified(), parsedMedia);
+    }
+
+    /**
+     * Store the information for a media, from the values returned by {@link MediaMeta} and
+     * {@link MediaPlayer#getTrackInfo(TrackType...)}.
+     *
+     * @param path media path
+     * @param size size of the media, bytes
+     * @param lastModified last modified time of the media, milliseconds
+     * @param metaData meta data
+     * @param trackInfo track information
+     * @param duration media duration, milliseconds
+     * @throws IOException if the cache could not be written
+     */
+    public void put(String path, long size, long lastModified, MediaMetaData metaData, List<TrackInfo> trackInfo, long duration) throws IOException {
+        put(path, size, lastModified, new ParsedMedia(path, null, duration, metaMap(metaData), new ArrayList<TrackInfo>(trackInfo), 0));
+    }
+
+    /**
+     * Store the information for a media.
+     * <p>
+     * Any existing entry for the same path is replaced.
+     *
+     * @param path media path
+     * @param size size of the media, bytes
+     * @param lastModified last modified time of the media, milliseconds
+     * @param parsedMedia information to store
+     * @throws IOException if the cache could not be written
+     */
+    public synchronized void put(String path, long size, long lastModified, ParsedMedia parsedMedia) throws IOException {
+        logger.trace("put(path={},size={},lastModified={})", path, size, lastModified);
+        checkOpen();
+        byte[] record = encode(path, size, lastModified, parsedMedia);
+        int offset = append(record);
+        long hash = hash(path);
+        int slot = findSlot(path, hash);
+        if(slot >= 0) {
+            segment(slot).liveBytes -= slotLength(slot);
+        }
+        else {
+            slot = freeSlot(hash);
+            if(slotHash(slot) == 0) {
+                used++;
+            }
+            live++;
+        }
+        writeSlot(slot, hash, activeSegment.number, offset, record.length);
+        activeSegment.liveBytes += record.length;
+        if(used > capacity * MAXIMUM_LOAD) {
+            rebuildIndex(live > capacity * MAXIMUM_LOAD / 2 ? capacity * 2 : capacity);
+        }
+    }
+
+    /**
+     * Remove the information for a media.
+     *
+     * @param path media path
+     * @return <code>true</code> if an entry was removed; <code>false</code> if there was none
+     * @throws IOException if the cache could not be read
+     */
+    public synchronized boolean remove(String path) throws IOException {
+        logger.debug("remove(path={})", path);
+        checkOpen();
+        int slot = findSlot(path, hash(path));
+        if(slot >= 0) {
+            segment(slot).liveBytes -= slotLength(slot);
+            index.putInt(slotPosition(slot) + 8, TOMBSTONE);
+            live--;
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     * <p>
+     * Entries for files that have since changed are included until they are replaced or removed.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Get the fraction of the data files occupied by records that have been replaced or removed.
+     *
+     * @return garbage ratio, from 0 to 1
+     */
+    public synchronized float garbage() {
+        long total = 0;
+        long liveBytes = 0;
+        for(Segment segment : segments.values()) {
+            total += segment.size;
+            liveBytes += segment.liveBytes;
+        }
+        return total > 0 ? (float)(total - liveBytes) / total : 0;
+    }
+
+    /**
+     * Perform one step of compaction.
+     * <p>
+     * The data segment with the least live data, if less than half of it is live, has its live
+     * records copied to the end of the active segment and is then deleted. Invoke this
+     * periodically, or repeatedly until it returns <code>false</code> to compact fully.
+     *
+     * @return <code>true</code> if a segment was compacted; <code>false</code> if there was nothing worth compacting
+     * @throws IOException if the cache could not be compacted
+     */
+    public synchronized boolean compact() throws IOException {
+        logger.debug("compact()");
+        checkOpen();
+        Segment victim = null;
+        float victimRatio = COMPACTION_THRESHOLD;
+        for(Segment segment : segments.values()) {
+            if(segment != activeSegment && segment.size > 0) {
+                float ratio = (float)segment.liveBytes / segment.size;
+                if(ratio < victimRatio) {
+                    victim = segment;
+                    victimRatio = ratio;
+                }
+            }
+        }
+        if(victim == null) {
+            return false;
+        }
+        logger.debug("victim={},liveBytes={},size={}", victim.number, victim.liveBytes, victim.size);
+        for(int slot = 0; slot < capacity && victim.liveBytes > 0; slot++) {
+            if(slotHash(slot) != 0 && slotSegment(slot) == victim.number) {
+                int length = slotLength(slot);
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(victim.channel, record, slotOffset(slot));
+                int offset = append(record.array());
+                index.putInt(slotPosition(slot) + 8, activeSegment.number);
+                index.putInt(slotPosition(slot) + 12, offset);
+                activeSegment.liveBytes += length;
+                victim.liveBytes -= length;
+            }
+        }
+        // Make sure the copies and the index are durable before the originals go
+        activeSegment.channel.force(false);
+        index.force();
+        segments.remove(victim.number);
+        victim.channel.close();
+        if(!victim.file.delete()) {
+            logger.warn("Failed to delete compacted segment {}", victim.file);
+        }
+        return true;
+    }
+
+    /**
+     * Write all changes to the storage device.
+     *
+     * @throws IOException if the changes could not be written
+     */
+    public synchronized void flush() throws IOException {
+        logger.debug("flush()");
+        checkOpen();
+        activeSegment.channel.force(false);
+        index.force();
+    }
+
+    /**
+     * Flush and close the cache.
+     *
+     * @throws IOException if the changes could not be written
+     */
+    public synchronized void close() throws IOException {
+        logger.debug("close()");
+        if(!closed) {
+            flush();
+            closed = true;
+            for(Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            index = null;
+        }
+    }
+
+    /**
+     * Load an existing cache, or initialise a new one.
+     *
+     * @throws IOException if the cache could not be loaded
+     */
+    private void load() throws IOException {
+        // Use the newest valid index, any others are left over from an interrupted rebuild
+        File[] files = directory.listFiles();
+        List<File> staleIndexFiles = new ArrayList<File>();
+        for(File file : files) {
+            Matcher matcher = INDEX_FILE_PATTERN.matcher(file.getName());
+            if(matcher.matches()) {
+                int generation = Integer.parseInt(matcher.group(1));
+                if(indexFile == null || generation > indexGeneration) {
+                    MappedByteBuffer mapped = mapIndex(file, -1);
+                    if(mapped != null) {
+                        if(indexFile != null) {
+                            staleIndexFiles.add(indexFile);
+                        }
+                        indexFile = file;
+                        indexGeneration = generation;
+                        index = mapped;
+                        capacity = mapped.getInt(8);
+                        continue;
+                    }
+                }
+                staleIndexFiles.add(file);
+            }
+        }
+        for(File file : staleIndexFiles) {
+            deleteQuietly(file);
+        }
+        if(indexFile == null) {
+            indexGeneration = 1;
+            indexFile = new File(directory, indexFileName(indexGeneration));
+            index = mapIndex(indexFile, INITIAL_CAPACITY);
+            commitIndex(index);
+            capacity = INITIAL_CAPACITY;
+        }
+        for(File file : files) {
+            Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getName());
+            if(matcher.matches()) {
+                Segment segment = new Segment(Integer.parseInt(matcher.group(1)), file);
+                segments.put(segment.number, segment);
+            }
+        }
+        // Recover the live data accounting from the index
+        for(int slot = 0; slot < capacity; slot++) {
+            if(slotHash(slot) != 0) {
+                used++;
+                int number = slotSegment(slot);
+                if(number != TOMBSTONE) {
+                    Segment segment = segments.get(number);
+                    if(segment != null && (long)slotOffset(slot) + slotLength(slot) <= segment.size) {
+                        segment.liveBytes += slotLength(slot);
+                        live++;
+                    }
+                    else {
+                        index.putInt(slotPosition(slot) + 8, TOMBSTONE);
+                    }
+                }
+            }
+        }
+        // Segments with no live data are of no further use
+        for(Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+            Segment segment = it.next();
+            if(segment.liveBytes == 0) {
+                segment.channel.close();
+                deleteQuietly(segment.file);
+                it.remove();
+            }
+        }
+        int lastNumber = 0;
+        for(Segment segment : segments.values()) {
+            lastNumber = segment.number;
+            activeSegment = segment;
+        }
+        if(activeSegment == null || activeSegment.size >= segmentSize) {
+            activeSegment = newSegment(lastNumber + 1);
+        }
+        logger.debug("live={},used={},capacity={},segments={}", live, used, capacity, segments.size());
+    }
+
+    /**
+     * Map an index file.
+     * <p>
+     * A new index is not valid until it is committed, see {@link #commitIndex(MappedByteBuffer)}.
+     *
+     * @param file index file
+     * @param newCapacity capacity to create a new empty index with, or -1 to open an existing index
+     * @return mapped index, or <code>null</code> if an existing index is not valid
+     * @throws IOException if the file could not be mapped
+     */
+    private static MappedByteBuffer mapIndex(File file, int newCapacity) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if(newCapacity < 0) {
+                if(raf.length() < HEADER_SIZE) {
+                    return null;
+                }
+                MappedByteBuffer header = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                int existingCapacity = header.getInt(8);
+                if(header.getInt(0) != INDEX_MAGIC || header.getInt(4) != FORMAT_VERSION || Integer.bitCount(existingCapacity) != 1 || raf.length() != indexLength(existingCapacity)) {
+                    logger.warn("Ignoring invalid index {}", file);
+                    return null;
+                }
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            }
+            else {
+                raf.setLength(0);
+                raf.setLength(indexLength(newCapacity));
+                MappedByteBuffer result = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, indexLength(newCapacity));
+                result.putInt(4, FORMAT_VERSION);
+                result.putInt(8, newCapacity);
+                return result;
+            }
+        }
+        finally {
+            // The mapping remains valid after the file is closed
+            raf.close();
+        }
+    }
+
+    /**
+     * Commit a new index, making it valid.
+     * <p>
+     * The magic number is written only after the rest of the index is on the storage device, so an
+     * index left half-written by a crash is rejected by {@link #load()} rather than being preferred
+     * over the complete older index.
+     *
+     * @param index new index
+     */
+    private static void commitIndex(MappedByteBuffer index) {
+        index.force();
+        index.putInt(0, INDEX_MAGIC);
+        index.force();
+    }
+
+    /**
+     * Rebuild the index, discarding removed slots.
+     *
+     * @param newCapacity number of slots in the new index
+     * @throws IOException if the new index could not be written
+     */
+    private void rebuildIndex(int newCapacity) throws IOException {
+        logger.debug("rebuildIndex(newCapacity={})", newCapacity);
+        int newGeneration = indexGeneration + 1;
+        File newFile = new File(directory, indexFileName(newGeneration));
+        MappedByteBuffer newIndex = mapIndex(newFile, newCapacity);
+        int newUsed = 0;
+        for(int slot = 0; slot < capacity; slot++) {
+            long hash = slotHash(slot);
+            if(hash != 0 && slotSegment(slot) != TOMBSTONE) {
+                int newSlot = (int)(hash ^ (hash >>> 32)) & (newCapacity - 1);
+                while(newIndex.getLong(HEADER_SIZE + newSlot * SLOT_SIZE) != 0) {
+                    newSlot = (newSlot + 1) & (newCapacity - 1);
+                }
+                int position = HEADER_SIZE + newSlot * SLOT_SIZE;
+                newIndex.putInt(position + 8, slotSegment(slot));
+                newIndex.putInt(position + 12, slotOffset(slot));
+                newIndex.putInt(position + 16, slotLength(slot));
+                newIndex.putLong(position, hash);
+                newUsed++;
+            }
+        }
+        commitIndex(newIndex);
+        File oldFile = indexFile;
+        index = newIndex;
+        indexFile = newFile;
+        indexGeneration = newGeneration;
+        capacity = newCapacity;
+        used = newUsed;
+        // On some platforms a mapped file can not be deleted, if so it is removed on the next open
+        deleteQuietly(oldFile);
+    }
+
+    /**
+     * Append a record to the active segment, starting a new segment if the active one is full.
+     *
+     * @param record record
+     * @return offset of the record in the active segment
+     * @throws IOException if the record could not be written
+     */
+    private int append(byte[] record) throws IOException {
+        if(activeSegment.size > 0 && activeSegment.size + record.length > segmentSize) {
+            activeSegment.channel.force(false);
+            activeSegment = newSegment(activeSegment.number + 1);
+        }
+        int offset = (int)activeSegment.size;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long position = offset;
+        while(buffer.hasRemaining()) {
+            position += activeSegment.channel.write(buffer, position);
+        }
+        activeSegment.size = position;
+        return offset;
+    }
+
+    /**
+     * Create a new empty segment.
+     *
+     * @param number segment number
+     * @return segment
+     * @throws IOException if the segment could not be created
+     */
+    private Segment newSegment(int number) throws IOException {
+        logger.debug("newSegment(number={})", number);
+        Segment result = new Segment(number, new File(directory, String.format("segment-%08d.dat", number)));
+        segments.put(number, result);
+        return result;
+    }
+
+    /**
+     * Find the index slot holding the live entry for a path.
+     *
+     * @param path media path
+     * @param hash hash of the path
+     * @return slot, or -1 if there is no entry
+     * @throws IOException if a record could not be read
+     */
+    private int findSlot(String path, long hash) throws IOException {
+        for(int slot = firstSlot(hash); ; slot = (slot + 1) & (capacity - 1)) {
+            long slotHash = slotHash(slot);
+            if(slotHash == 0) {
+                return -1;
+            }
+            if(slotHash == hash && slotSegment(slot) != TOMBSTONE) {
+                // Different paths may have the same hash, so confirm against the record
+                ByteBuffer body = readRecord(slot);
+                if(body != null && path.equals(readString(body))) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find an index slot to store a new entry in, re-using a removed slot if possible.
+     *
+     * @param hash hash of the path
+     * @return slot
+     */
+    private int freeSlot(long hash) {
+        for(int slot = firstSlot(hash); ; slot = (slot + 1) & (capacity - 1)) {
+            if(slotHash(slot) == 0 || slotSegment(slot) == TOMBSTONE) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Read and verify the record for an index slot.
+     *
+     * @param slot slot
+     * @return record body, or <code>null</code> if the record is corrupt
+     * @throws IOException if the record could not be read
+     */
+    private ByteBuffer readRecord(int slot) throws IOException {
+        Segment segment = segment(slot);
+        int length = slotLength(slot);
+        if(segment == null || length < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(segment.channel, record, slotOffset(slot));
+        record.flip();
+        int bodyLength = record.getInt();
+        int checksum = record.getInt();
+        if(bodyLength != length - RECORD_HEADER_SIZE) {
+            logger.warn("Corrupt record in segment {} at {}", segment.number, slotOffset(slot));
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_SIZE, bodyLength);
+        if((int)crc.getValue() != checksum) {
+            logger.warn("Checksum mismatch in segment {} at {}", segment.number, slotOffset(slot));
+            return null;
+        }
+        return record;
+    }
+
+    /**
+     * Encode a record.
+     *
+     * @param path media path
+     * @param size size of the media, bytes
+     * @param lastModified last modified time of the media, milliseconds
+     * @param parsedMedia information to encode
+     * @return record, including header
+     * @throws IOException if the record could not be encoded
+     */
+    private static byte[] encode(String path, long size, long lastModified, ParsedMedia parsedMedia) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        writeString(out, path);
+        out.writeLong(size);
+        out.writeLong(lastModified);
+        out.writeByte(parsedMedia.status() != null ? parsedMedia.status().intValue() : -1);
+        out.writeLong(parsedMedia.duration());
+        out.writeShort(parsedMedia.meta().size());
+        for(Map.Entry<libvlc_meta_t, String> entry : parsedMedia.meta().entrySet()) {
+            out.writeByte(entry.getKey().intValue());
+            writeString(out, entry.getValue());
+        }
+        out.writeShort(parsedMedia.trackInfo().size());
+        for(TrackInfo trackInfo : parsedMedia.trackInfo()) {
+            if(trackInfo instanceof VideoTrackInfo) {
+                out.writeByte(TRACK_VIDEO);
+            }
+            else if(trackInfo instanceof AudioTrackInfo) {
+                out.writeByte(TRACK_AUDIO);
+            }
+            else if(trackInfo instanceof TextTrackInfo) {
+                out.writeByte(TRACK_TEXT);
+            }
+            else {
+                out.writeByte(TRACK_UNKNOWN);
+            }
+            out.writeInt(trackInfo.codec());
+            out.writeInt(trackInfo.orignalCodec());
+            out.writeInt(trackInfo.id());
+            out.writeInt(trackInfo.profile());
+            out.writeInt(trackInfo.level());
+            out.writeInt(trackInfo.bitRate());
+            writeString(out, trackInfo.language());
+            writeString(out, trackInfo.description());
+            writeString(out, trackInfo.codecDescription());
+            if(trackInfo instanceof VideoTrackInfo) {
+                VideoTrackInfo video = (VideoTrackInfo)trackInfo;
+                out.writeInt(video.width());
+                out.writeInt(video.height());
+                out.writeInt(video.sampleAspectRatio());
+                out.writeInt(video.sampleAspectRatioBase());
+                out.writeInt(video.frameRate());
+                out.writeInt(video.frameRateBase());
+            }
+            else if(trackInfo instanceof AudioTrackInfo) {
+                AudioTrackInfo audio = (AudioTrackInfo)trackInfo;
+                out.writeInt(audio.channels());
+                out.writeInt(audio.rate());
+            }
+            else if(trackInfo instanceof TextTrackInfo) {
+                writeString(out, ((TextTrackInfo)trackInfo).encoding());
+            }
+        }
+        out.flush();
+        byte[] result = bytes.toByteArray();
+        int bodyLength = result.length - RECORD_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(result, RECORD_HEADER_SIZE, bodyLength);
+        ByteBuffer header = ByteBuffer.wrap(result);
+        header.putInt(bodyLength);
+        header.putInt((int)crc.getValue());
+        return result;
+    }
+
+    /**
+     * Decode the remainder of a record, following the path, size and last modified time.
+     *
+     * @param path media path
+     * @param body record body
+     * @return parsed media
+     */
+    private static ParsedMedia decode(String path, ByteBuffer body) {
+        int statusValue = body.get();
+        libvlc_media_parsed_status_e status = statusValue >= 0 ? libvlc_media_parsed_status_e.mediaParsedStatus(statusValue) : null;
+        long duration = body.getLong();
+        EnumMap<libvlc_meta_t, String> meta = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+        int metaCount = body.getShort() & 0xffff;
+        for(int i = 0; i < metaCount; i++) {
+            int metaType = body.get();
+            String value = readString(body);
+            if(metaType >= 0 && metaType < META_TYPES.length) {
+                meta.put(META_TYPES[metaType], value);
+            }
+        }
+        int trackCount = body.getShort() & 0xffff;
+        List<TrackInfo> trackInfo = new ArrayList<TrackInfo>(trackCount);
+        for(int i = 0; i < trackCount; i++) {
+            int kind = body.get();
+            int codec = body.getInt();
+            int originalCodec = body.getInt();
+            int id = body.getInt();
+            int profile = body.getInt();
+            int level = body.getInt();
+            int bitRate = body.getInt();
+            String language = readString(body);
+            String description = readString(body);
+            String codecDescription = readString(body);
+            switch(kind) {
+                case TRACK_VIDEO:
+                    trackInfo.add(new VideoTrackInfo(codec, originalCodec, id, profile, level, bitRate, language, description, body.getInt(), body.getInt(), body.getInt(), body.getInt(), body.getInt(), body.getInt(), codecDescription));
+                    break;
+                case TRACK_AUDIO:
+                    trackInfo.add(new AudioTrackInfo(codec, originalCodec, id, profile, level, bitRate, language, description, body.getInt(), body.getInt(), codecDescription));
+                    break;
+                case TRACK_TEXT:
+                    trackInfo.add(new TextTrackInfo(codec, originalCodec, id, profile, level, bitRate, language, description, readString(body), codecDescription));
+                    break;
+                default:
+                    trackInfo.add(new UnknownTrackInfo(codec, originalCodec, id, profile, level, bitRate, language, description, codecDescription));
+                    break;
+            }
+        }
+        return new ParsedMedia(path, status, duration, meta, trackInfo, 0);
+    }
+
+    /**
+     * Write a string that may be <code>null</code>.
+     *
+     * @param out stream to write to
+     * @param value value to write
+     * @throws IOException if the value could not be written
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value != null) {
+            byte[] bytes = value.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else {
+            out.writeInt(-1);
+        }
+    }
+
+    /**
+     * Read a string that may be <code>null</code>.
+     *
+     * @param in buffer to read from
+     * @return value, may be <code>null</code>
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if(length >= 0) {
+            String result = new String(in.array(), in.position(), length, UTF8);
+            in.position(in.position() + length);
+            return result;
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Convert meta data to a map of the values that are set.
+     *
+     * @param metaData meta data
+     * @return meta data values
+     */
+    private static EnumMap<libvlc_meta_t, String> metaMap(MediaMetaData metaData) {
+        EnumMap<libvlc_meta_t, String> result = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+        putMeta(result, libvlc_meta_t.libvlc_meta_Title, metaData.getTitle());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Artist, metaData.getArtist());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Genre, metaData.getGenre());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Copyright, metaData.getCopyright());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Album, metaData.getAlbum());
+        putMeta(result, libvlc_meta_t.libvlc_meta_TrackNumber, metaData.getTrackNumber());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Description, metaData.getDescription());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Rating, metaData.getRating());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Date, metaData.getDate());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Setting, metaData.getSetting());
+        putMeta(result, libvlc_meta_t.libvlc_meta_URL, metaData.getUrl());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Language, metaData.getLanguage());
+        putMeta(result, libvlc_meta_t.libvlc_meta_NowPlaying, metaData.getNowPlaying());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Publisher, metaData.getPublisher());
+        putMeta(result, libvlc_meta_t.libvlc_meta_EncodedBy, metaData.getEncodedBy());
+        putMeta(result, libvlc_meta_t.libvlc_meta_ArtworkURL, metaData.getArtworkUrl());
+        putMeta(result, libvlc_meta_t.libvlc_meta_TrackID, metaData.getTrackId());
+        putMeta(result, libvlc_meta_t.libvlc_meta_TrackTotal, metaData.getTrackTotal());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Director, metaData.getDirector());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Season, metaData.getSeason());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Episode, metaData.getEpisode());
+        putMeta(result, libvlc_meta_t.libvlc_meta_ShowName, metaData.getShowName());
+        putMeta(result, libvlc_meta_t.libvlc_meta_Actors, metaData.getActors());
+        putMeta(result, libvlc_meta_t.libvlc_meta_AlbumArtist, metaData.getAlbumArtist());
+        putMeta(result, libvlc_meta_t.libvlc_meta_DiscNumber, metaData.getDiscNumber());
+        putMeta(result, libvlc_meta_t.libvlc_meta_DiscTotal, metaData.getDiscTotal());
+        return result;
+    }
+
+    /**
+     * Add a meta data value to a map if it is set.
+     *
+     * @param meta map
+     * @param metaType type of meta data
+     * @param value value, may be <code>null</code>
+     */
+    private static void putMeta(EnumMap<libvlc_meta_t, String> meta, libvlc_meta_t metaType, String value) {
+        if(value != null) {
+            meta.put(metaType, value);
+        }
+    }
+
+    /**
+     * Read from a channel until a buffer is full.
+     *
+     * @param channel channel
+     * @param buffer buffer
+     * @param position position to read from
+     * @throws IOException if the channel could not be read, or ended early
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if(read < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Calculate the hash of a path.
+     * <p>
+     * Zero is reserved to mark an empty index slot.
+     *
+     * @param path media path
+     * @return 64-bit FNV-1a hash
+     */
+    private static long hash(String path) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * Get the index slot to start probing from for a hash.
+     */
+    private int firstSlot(long hash) {
+        return (int)(hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+
+    /**
+     * Get the position of an index slot in the mapped index.
+     */
+    private static int slotPosition(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Get the path hash stored in an index slot, zero if the slot is empty.
+     */
+    private long slotHash(int slot) {
+        return index.getLong(slotPosition(slot));
+    }
+
+    /**
+     * Get the segment number stored in an index slot.
+     */
+    private int slotSegment(int slot) {
+        return index.getInt(slotPosition(slot) + 8);
+    }
+
+    /**
+     * Get the record offset stored in an index slot.
+     */
+    private int slotOffset(int slot) {
+        return index.getInt(slotPosition(slot) + 12);
+    }
+
+    /**
+     * Get the record length stored in an index slot.
+     */
+    private int slotLength(int slot) {
+        return index.getInt(slotPosition(slot) + 16);
+    }
+
+    /**
+     * Get the segment referenced by an index slot.
+     */
+    private Segment segment(int slot) {
+        return segments.get(slotSegment(slot));
+    }
+
+    /**
+     * Write an index slot.
+     * <p>
+     * The hash is written last, since a non-zero hash is what makes the slot visible.
+     */
+    private void writeSlot(int slot, long hash, int segment, int offset, int length) {
+        int position = slotPosition(slot);
+        index.putInt(position + 8, segment);
+        index.putInt(position + 12, offset);
+        index.putInt(position + 16, length);
+        index.putLong(position, hash);
+    }
+
+    /**
+     * Get the size of an index file.
+     */
+    private static long indexLength(int capacity) {
+        return HEADER_SIZE + (long)capacity * SLOT_SIZE;
+    }
+
+    /**
+     * Get the name of an index file.
+     */
+    private static String indexFileName(int generation) {
+        return String.format("index-%08d.idx", generation);
+    }
+
+    /**
+     * Delete a file, logging rather than failing if it can not be deleted.
+     */
+    private static void deleteQuietly(File file) {
+        if(!file.delete()) {
+            logger.debug("Failed to delete {}", file);
+        }
+    }
+
+    /**
+     * Make sure the cache has not been closed.
+     */
+    private void checkOpen() {
+        if(closed) {
+            throw new IllegalStateException("Cache is closed");
+        }
+    }
+
+    /**
+     * A data segment file.
+     */
+    private static final class Segment {
+
+        /**
+         * Segment number.
+         */
+        private final int number;
+
+        /**
+         * Segment file.
+         */
+        private final File file;
+
+        /**
+         * Open channel to the segment file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Size of the segment, bytes.
+         */
+        private long size;
+
+        /**
+         * Number of bytes in the segment occupied by live records.
+         */
+        private long liveBytes;
+
+        /**
+         * Open a segment, creating the file if necessary.
+         *
+         * @param number segment number
+         * @param file segment file
+         * @throws IOException if the file could not be opened
+         */
+        private Segment(int number, File file) throws IOException {
+            this.number = number;
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.size = channel.size();
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_callback_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_manager_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_parse_flag_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_parsed_status_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+import uk.co.caprica.vlcj.binding.internal.media_parsed_status;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
+import uk.co.caprica.vlcj.player.condition.ConditionTimeoutException;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
+import uk.co.caprica.vlcj.version.Version;
+
+import com.sun.jna.Pointer;
+
+/**
+ * A service to parse many media concurrently, without a media player.
+ * <p>
+ * Each media is parsed on one of a fixed number of worker threads, so at most that many parses
+ * are in progress at the same time and the rest are queued. With LibVLC 3.0.0 or later the
+ * native asynchronous parser is used, and each parse is bounded by its own timeout. Earlier
+ * versions only have a blocking parse that can not be interrupted, so the timeout is not enforced.
+ * <p>
+ * The result of a parse is an immutable {@link ParsedMedia} snapshot that holds no native
+ * resources, the native media is released as soon as it has been parsed.
+ * <p>
+ * A parse that runs out of time fails with a {@link ConditionTimeoutException}. A parse that the
+ * native library reports as failed still completes normally, with a status of
+ * {@link libvlc_media_parsed_status_e#libvlc_media_parsed_status_failed}.
+ * <p>
+ * The parser must be released when it is no longer needed, and before the factory that created it
+ * is released.
+ *
+ * <pre>
+ * MediaParser parser = mediaPlayerFactory.newMediaParser(4);
+ * ConditionFuture&lt;ParsedMedia&gt; future = parser.parse("/home/music/track.mp3", 5, TimeUnit.SECONDS);
+ * future.addCallback(new ConditionCallback&lt;ParsedMedia&gt;() {
+ *     public void completed(ParsedMedia result) {
+ *         // ...
+ *     }
+ *     public void failed(RuntimeException cause) {
+ *         // ...
+ *     }
+ * });
+ * </pre>
+ */
+public final class MediaParser {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(MediaParser.class);
+
+    /**
+     * Minimum version for new meta data fields.
+     */
+    private static final Version VERSION_220 = new Version("2.2.0");
+
+    /**
+     * Minimum version for new meta data fields.
+     */
+    private static final Version VERSION_300 = new Version("3.0.0");
+
+    /**
+     * Additional time to wait for the parsed status event beyond the native parse timeout.
+     */
+    private static final long TIMEOUT_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Native library interface.
+     */
+    private final LibVlc libvlc;
+
+    /**
+     * Native library instance.
+     */
+    private final libvlc_instance_t instance;
+
+    /**
+     * Native library capabilities.
+     */
+    private final LibVlcCapabilities capabilities;
+
+    /**
+     * Native parse flags.
+     */
+    private final int parseFlags;
+
+    /**
+     * Worker threads.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Time the parser was created, nanoseconds.
+     */
+    private final long createdNanos = System.nanoTime();
+
+    /**
+     * Number of media submitted for parsing.
+     */
+    private final AtomicLong submitted = new AtomicLong();
+
+    /**
+     * Number of media parsed successfully.
+     */
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * Number of media that failed to parse.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Number of media that did not parse in the time allowed.
+     */
+    private final AtomicLong timedOut = new AtomicLong();
+
+    /**
+     * Number of media currently being parsed.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Total time spent parsing, nanoseconds.
+     */
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * Create a media parser.
+     *
+     * @param libvlc native library interface
+     * @param instance native library instance
+     * @param capabilities native library capabilities
+     * @param maximumConcurrent maximum number of media to parse at the same time
+     * @param network <code>true</code> to parse and fetch meta data for network media; <code>false</code> for local media only
+     */
+    MediaParser(LibVlc libvlc, libvlc_instance_t instance, LibVlcCapabilities capabilities, int maximumConcurrent, boolean network) {
+        if(maximumConcurrent < 1) {
+            throw new IllegalArgumentException("maximumConcurrent must be at least 1");
+        }
+        this.libvlc = libvlc;
+        this.instance = instance;
+        this.capabilities = capabilities;
+        int flags = libvlc_media_parse_flag_t.libvlc_media_fetch_local.intValue();
+        if(network) {
+            flags |= libvlc_media_parse_flag_t.libvlc_media_parse_network.intValue() | libvlc_media_parse_flag_t.libvlc_media_fetch_network.intValue();
+        }
+        this.parseFlags = flags;
+        this.executor = new ThreadPoolExecutor(maximumConcurrent, maximumConcurrent, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-media-parser-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Submit a media to be parsed.
+     * <p>
+     * This method returns immediately.
+     * <p>
+     * Cancelling the returned future before the parse starts removes it from the queue, once a
+     * parse has started it runs to completion, even if cancelled with interruption, and its
+     * result is discarded.
+     *
+     * @param mrl media resource locator, a local file path or a location
+     * @param timeout maximum time to allow for the parse once it has started
+     * @param unit unit of the timeout
+     * @return future parse result
+     */
+    public ConditionFuture<ParsedMedia> parse(String mrl, long timeout, TimeUnit unit) {
+        logger.debug("parse(mrl={},timeout={},unit={})", mrl, timeout, unit);
+        if(mrl == null) {
+            throw new IllegalArgumentException("mrl can not be null");
+        }
+        if(timeout <= 0) {
+            throw new IllegalArgumentException("timeout must be greater than zero");
+        }
+        ConditionFutureTask<ParsedMedia> task = new ConditionFutureTask<ParsedMedia>(new ParseCallable(mrl, unit.toMillis(timeout)));
+        submitted.incrementAndGet();
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Submit many media to be parsed.
+     *
+     * @param mrls media resource locators
+     * @param timeout maximum time to allow for each parse once it has started
+     * @param unit unit of the timeout
+     * @return future parse results, in the same order as the media resource locators
+     */
+    public List<ConditionFuture<ParsedMedia>> parse(List<String> mrls, long timeout, TimeUnit unit) {
+        logger.debug("parse(mrls={},timeout={},unit={})", mrls.size(), timeout, unit);
+        List<ConditionFuture<ParsedMedia>> result = new ArrayList<ConditionFuture<ParsedMedia>>(mrls.size());
+        for(String mrl : mrls) {
+            result.add(parse(mrl, timeout, unit));
+        }
+        return result;
+    }
+
+    /**
+     * Get a snapshot of the parser activity.
+     *
+     * @return statistics
+     */
+    public MediaParserStatistics getStatistics() {
+        return new MediaParserStatistics(submitted.get(), completed.get(), failed.get(), timedOut.get(), inFlight.get(), executor.getQueue().size(), totalNanos.get(), System.nanoTime() - createdNanos);
+    }
+
+    /**
+     * Release the parser.
+     * <p>
+     * Queued parses are cancelled, parses already in progress are allowed to finish.
+     */
+    public void release() {
+        logger.debug("release()");
+        // Shut down without interrupting the parses in progress, and cancel the queued ones
+        executor.shutdown();
+        List<Runnable> queued = new ArrayList<Runnable>();
+        executor.getQueue().drainTo(queued);
+        for(Runnable runnable : queued) {
+            ((ConditionFutureTask<?>)runnable).cancel(false);
+        }
+    }
+
+    /**
+     * Parse a single media on the calling thread.
+     *
+     * @param mrl media resource locator
+     * @param timeoutMillis maximum time to allow for the parse, milliseconds
+     * @return parsed media
+     */
+    private ParsedMedia parseMedia(String mrl, long timeoutMillis) {
+        logger.debug("parseMedia(mrl={},timeoutMillis={})", mrl, timeoutMillis);
+        long start = System.nanoTime();
+        libvlc_media_t media = MediaResourceLocator.isLocation(mrl) ? libvlc.libvlc_media_new_location(instance, mrl) : libvlc.libvlc_media_new_path(instance, mrl);
+        if(media == null) {
+            throw new IllegalArgumentException("Failed to create native media for " + mrl);
+        }
+        try {
+            libvlc_media_parsed_status_e status = null;
+            if(capabilities.isLibVlc3Available()) {
+                status = parseAsync(media, timeoutMillis);
+            }
+            else {
+                libvlc.libvlc_media_parse(media);
+            }
+            logger.debug("status={}", status);
+            if(status == libvlc_media_parsed_status_e.libvlc_media_parsed_status_timeout) {
+                throw new ConditionTimeoutException();
+            }
+            EnumMap<libvlc_meta_t, String> meta = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+            Version version = capabilities.version();
+            for(libvlc_meta_t metaType : libvlc_meta_t.values()) {
+                if(isMetaAvailable(metaType, version)) {
+                    String value = NativeString.getNativeString(libvlc, libvlc.libvlc_media_get_meta(media, metaType.intValue()));
+                    if(value != null) {
+                        meta.put(metaType, value);
+                    }
+                }
+            }
+            List<TrackInfo> trackInfo = TrackInfoFactory.trackInfo(libvlc, capabilities, media, null);
+            long duration = libvlc.libvlc_media_get_duration(media);
+            return new ParsedMedia(mrl, status, duration, meta, trackInfo, System.nanoTime() - start);
+        }
+        finally {
+            libvlc.libvlc_media_release(media);
+        }
+    }
+
+    /**
+     * Parse a media with the native asynchronous parser and wait for it to finish.
+     *
+     * @param media native media
+     * @param timeoutMillis maximum time to allow for the parse, milliseconds
+     * @return parse status
+     */
+    private libvlc_media_parsed_status_e parseAsync(libvlc_media_t media, long timeoutMillis) {
+        ParsedStatusCallback callback = new ParsedStatusCallback();
+        boolean interrupted = false;
+        libvlc_event_manager_t mediaEventManager = libvlc.libvlc_media_event_manager(media);
+        libvlc.libvlc_event_attach(mediaEventManager, libvlc_event_e.libvlc_MediaParsedStatus.intValue(), callback, null);
+        try {
+            int timeout = (int)Math.min(timeoutMillis, Integer.MAX_VALUE);
+            if(libvlc.libvlc_media_parse_with_options(media, parseFlags, timeout) != 0) {
+                return libvlc_media_parsed_status_e.libvlc_media_parsed_status_failed;
+            }
+            // A started parse always runs to completion, an interrupt (e.g. from cancelling the
+            // future) is remembered and restored once the parse has finished
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) + TIMEOUT_GRACE_NANOS;
+            for(;;) {
+                try {
+                    if(callback.latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        return libvlc_media_parsed_status_e.mediaParsedStatus(callback.status);
+                    }
+                    else {
+                        return libvlc_media_parsed_status_e.libvlc_media_parsed_status_timeout;
+                    }
+                }
+                catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            libvlc.libvlc_event_detach(mediaEventManager, libvlc_event_e.libvlc_MediaParsedStatus.intValue(), callback, null);
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Check whether or not a meta data type is supported by the native library.
+     *
+     * @param metaType meta data type
+     * @param version run-time native library version
+     * @return <code>true</code> if the meta data type is supported; <code>false</code> otherwise
+     */
+    static boolean isMetaAvailable(libvlc_meta_t metaType, Version version) {
+        if(metaType.intValue() >= libvlc_meta_t.libvlc_meta_AlbumArtist.intValue()) {
+            return version.atLeast(VERSION_300);
+        }
+        else if(metaType.intValue() >= libvlc_meta_t.libvlc_meta_TrackTotal.intValue()) {
+            return version.atLeast(VERSION_220);
+        }
+        else {
+            return true;
+        }
+    }
+
+    /**
+     * Native callback to receive the parsed status of a media.
+     * <p>
+     * The native event thread must not call back into the native library, so this only records
+     * the status and wakes up the waiting worker.
+     */
+    private static final class ParsedStatusCallback implements libvlc_callback_t {
+
+        /**
+         * Released when the status event has been received.
+         */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /**
+         * Native parse status.
+         */
+        private volatile int status;
+
+        @Override
+        public void callback(libvlc_event_t event, Pointer userData) {
+            status = ((media_parsed_status)event.u.getTypedValue(media_parsed_status.class)).new_status;
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Parse a single media, updating the parser statistics.
+     */
+    private final class ParseCallable implements Callable<ParsedMedia> {
+
+        /**
+         * Media resource locator.
+         */
+        private final String mrl;
+
+        /**
+         * Maximum time to allow for the parse, milliseconds.
+         */
+        private final long timeoutMillis;
+
+        /**
+         * Create a task.
+         *
+         * @param mrl media resource locator
+         * @param timeoutMillis maximum time to allow for the parse, milliseconds
+         */
+        private ParseCallable(String mrl, long timeoutMillis) {
+            this.mrl = mrl;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public ParsedMedia call() throws Exception {
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                ParsedMedia result = parseMedia(mrl, timeoutMillis);
+                if(result.status() == libvlc_media_parsed_status_e.libvlc_media_parsed_status_failed) {
+                    failed.incrementAndGet();
+                }
+                else {
+                    completed.incrementAndGet();
+                }
+                return result;
+            }
+            catch(ConditionTimeoutException e) {
+                timedOut.incrementAndGet();
+                throw e;
+            }
+            catch(Exception e) {
+                failed.incrementAndGet();
+                throw e;
+            }
+            finally {
+                totalNanos.addAndGet(System.nanoTime() - start);
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
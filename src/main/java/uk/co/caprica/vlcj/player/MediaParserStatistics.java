@@ -0,0 +1,189 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the activity of a {@link MediaParser}.
+ */
+public final class MediaParserStatistics {
+
+    /**
+     * Number of media submitted for parsing.
+     */
+    private final long submitted;
+
+    /**
+     * Number of media parsed successfully.
+     */
+    private final long completed;
+
+    /**
+     * Number of media that failed to parse.
+     */
+    private final long failed;
+
+    /**
+     * Number of media that did not parse in the time allowed.
+     */
+    private final long timedOut;
+
+    /**
+     * Number of media currently being parsed.
+     */
+    private final int inFlight;
+
+    /**
+     * Number of media waiting to be parsed.
+     */
+    private final int queued;
+
+    /**
+     * Total time spent parsing, nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * Time since the parser was created, nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Create a statistics snapshot.
+     *
+     * @param submitted number of media submitted for parsing
+     * @param completed number of media parsed successfully
+     * @param failed number of media that failed to parse
+     * @param timedOut number of media that did not parse in the time allowed
+     * @param inFlight number of media currently being parsed
+     * @param queued number of media waiting to be parsed
+     * @param totalNanos total time spent parsing, nanoseconds
+     * @param elapsedNanos time since the parser was created, nanoseconds
+     */
+    MediaParserStatistics(long submitted, long completed, long failed, long timedOut, int inFlight, int queued, long totalNanos, long elapsedNanos) {
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.totalNanos = totalNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the number of media submitted for parsing.
+     *
+     * @return number of media
+     */
+    public long submitted() {
+        return submitted;
+    }
+
+    /**
+     * Get the number of media parsed successfully.
+     *
+     * @return number of media
+     */
+    public long completed() {
+        return completed;
+    }
+
+    /**
+     * Get the number of media that failed to parse.
+     *
+     * @return number of media
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * Get the number of media that did not parse in the time allowed.
+     *
+     * @return number of media
+     */
+    public long timedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Get the number of media currently being parsed.
+     *
+     * @return number of media
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Get the number of media waiting to be parsed.
+     *
+     * @return number of media
+     */
+    public int queued() {
+        return queued;
+    }
+
+    /**
+     * Get the total time spent parsing, summed across all workers.
+     *
+     * @return time, nanoseconds
+     */
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Get the mean time taken to parse a media, whatever the outcome.
+     *
+     * @return time, nanoseconds
+     */
+    public long meanNanos() {
+        long finished = completed + failed + timedOut;
+        return finished > 0 ? totalNanos / finished : 0;
+    }
+
+    /**
+     * Get the number of media parsed per second since the parser was created, whatever the
+     * outcome.
+     *
+     * @return throughput, media per second
+     */
+    public double throughput() {
+        return elapsedNanos > 0 ? (completed + failed + timedOut) * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("submitted=").append(submitted).append(',');
+        sb.append("completed=").append(completed).append(',');
+        sb.append("failed=").append(failed).append(',');
+        sb.append("timedOut=").append(timedOut).append(',');
+        sb.append("inFlight=").append(inFlight).append(',');
+        sb.append("queued=").append(queued).append(',');
+        sb.append("totalNanos=").append(totalNanos).append(',');
+        sb.append("elapsedNanos=").append(elapsedNanos).append(']');
+        return sb.toString();
+    }
+}
@@ -25,6 +25,7 @@ import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import uk.co.caprica.vlcj.binding.internal.libvlc_audio_output_channel_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_logo_position_e;
@@ -39,6 +40,7 @@ import uk.co.caprica.vlcj.binding.internal.libvlc_state_t;
 import uk.co.caprica.vlcj.binding.internal.libvlc_track_type_t;
 import uk.co.caprica.vlcj.component.EmbeddedMediaPlayerComponent;
 import uk.co.caprica.vlcj.medialist.MediaList;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
 import uk.co.caprica.vlcj.player.events.MediaPlayerEventType;
 import uk.co.caprica.vlcj.player.media.Media;
 
@@ -198,6 +200,26 @@ public interface MediaPlayer {
      */
     void enableEvents(long eventMask);
 
+    /**
+     * Enable, or disable, the journal of recent native events.
+     * <p>
+     * The journal records the most recent native events received by this media player, whether
+     * or not they are enabled for event notifications, so that they can be inspected or dumped
+     * after a problem, see {@link MediaPlayerEventJournal}.
+     * <p>
+     * Enabling the journal discards any previous journal.
+     *
+     * @param capacity maximum number of events to keep, or zero to disable the journal
+     */
+    void enableEventJournal(int capacity);
+
+    /**
+     * Get the journal of recent native events.
+     *
+     * @return journal, or <code>null</code> if the journal is not enabled
+     */
+    MediaPlayerEventJournal getEventJournal();
+
     /**
      * Set standard media options for all media items subsequently played.
      * <p>
@@ -287,6 +309,46 @@ public interface MediaPlayer {
      */
     boolean startMedia(Media media);
 
+    /**
+     * Play a new media item, with options, without waiting for it to start playing or error.
+     * <p>
+     * This call does <strong>not</strong> block, the returned future yields <code>true</code> if
+     * the media started playing and <code>false</code> if the media failed to start because of an
+     * error.
+     *
+     * @param mrl media resource locator
+     * @param mediaOptions zero or more media item options
+     * @return future result, failed with an {@link IllegalStateException} if the media item could not be created
+     */
+    ConditionFuture<Boolean> startMediaAsync(String mrl, String... mediaOptions);
+
+    /**
+     * Play a new media item, with options, without waiting for it to start playing or error.
+     * <p>
+     * This call does <strong>not</strong> block, the returned future yields <code>true</code> if
+     * the media started playing and <code>false</code> if the media failed to start because of an
+     * error.
+     *
+     * @param media media, with options
+     * @return future result, failed with an {@link IllegalStateException} if the media item could not be created
+     */
+    ConditionFuture<Boolean> startMediaAsync(Media media);
+
+    /**
+     * Play a new media item, with options, without waiting for it to start playing or error.
+     * <p>
+     * This call does <strong>not</strong> block, the returned future yields <code>true</code> if
+     * the media started playing and <code>false</code> if the media failed to start because of an
+     * error. If neither happens within the timeout, the future fails with a
+     * {@link uk.co.caprica.vlcj.player.condition.ConditionTimeoutException}.
+     *
+     * @param media media, with options
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     * @return future result, failed with an {@link IllegalStateException} if the media item could not be created
+     */
+    ConditionFuture<Boolean> startMediaAsync(Media media, long timeout, TimeUnit unit);
+
     /**
      * Parse local meta data from the current media.
      * <p>
@@ -313,6 +375,23 @@ public interface MediaPlayer {
      */
     void requestParseMedia();
 
+    /**
+     * Parse local meta data from the current media without blocking.
+     * <p>
+     * The returned future yields the new parsed status when the parsed status changes, if the
+     * media has already been parsed the future is already complete with a status of 1.
+     * <p>
+     * If parsing does not finish within the timeout, the future fails with a
+     * {@link uk.co.caprica.vlcj.player.condition.ConditionTimeoutException}.
+     * <p>
+     * <strong>Invoking this method on a stream or DVB channel may cause a hang.</strong>
+     *
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     * @return future parsed status
+     */
+    ConditionFuture<Integer> parseMediaAsync(long timeout, TimeUnit unit);
+
     /**
      * Parse meta data from the current media, with options.
      * <p>
@@ -665,6 +744,18 @@ public interface MediaPlayer {
     // that do I?
     libvlc_media_stats_t getMediaStatistics(libvlc_media_t media);
 
+    /**
+     * Get the current media statistics into a structure owned by the caller.
+     * <p>
+     * Unlike {@link #getMediaStatistics()}, the statistics are not read into the structure shared
+     * by every caller, and a reference to the current media is held while they are read. This
+     * makes it safe to sample the statistics on another thread while the media is changed.
+     *
+     * @param mediaStatistics structure to read the statistics into
+     * @return <code>true</code> if the statistics were read; <code>false</code> if there is no media playing
+     */
+    boolean getMediaStatistics(libvlc_media_stats_t mediaStatistics);
+
     /**
      * Get the current media state.
      *
@@ -1420,6 +1511,25 @@ public interface MediaPlayer {
      */
     boolean saveSnapshot(File file, int width, int height);
 
+    /**
+     * Save a snapshot of the currently playing video without blocking.
+     * <p>
+     * The returned future yields the name of the file containing the snapshot when the
+     * {@link MediaPlayerEventListener#snapshotTaken(MediaPlayer, String)} event is received. If
+     * the snapshot could not be requested, the future fails with a
+     * {@link uk.co.caprica.vlcj.player.condition.BeforeConditionAbortedException}.
+     * <p>
+     * See {@link #saveSnapshot(File, int, int)}.
+     *
+     * @param file file to contain the snapshot
+     * @param width desired image width
+     * @param height desired image height
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     * @return future snapshot file name
+     */
+    ConditionFuture<String> saveSnapshotAsync(File file, int width, int height, long timeout, TimeUnit unit);
+
     /**
      * Get a snapshot of the currently playing video.
      * <p>
@@ -1806,6 +1916,22 @@ public interface MediaPlayer {
      */
     void setEqualizer(Equalizer equalizer);
 
+    /**
+     * Set the time window within which changes to the current audio equalizer are batched.
+     * <p>
+     * Only the values that actually changed are applied to the native media player. With a zero
+     * window (the default) changes are applied immediately. With a non-zero window, the first
+     * change schedules an update after the window has elapsed and any further changes made before
+     * then are applied by that same update - this is useful for example when the equalizer values
+     * are being changed rapidly by a user dragging a slider.
+     * <p>
+     * <strong>Requires vlc 2.2.0 or later.</strong>
+     *
+     * @param window batch window, zero to apply changes immediately
+     * @param unit unit of the batch window
+     */
+    void setEqualizerBatchWindow(long window, TimeUnit unit);
+
     /**
      * Get the media resource locator for the current media instance.
      * <p>
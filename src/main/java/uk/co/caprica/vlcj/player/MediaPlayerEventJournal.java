@@ -0,0 +1,365 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_t;
+
+import com.sun.jna.Pointer;
+
+/**
+ * Fixed-size journal of the most recent native events received by a media player.
+ * <p>
+ * This is intended for post-mortem diagnostics - when a media player misbehaves, the journal shows
+ * what the native media player reported leading up to the problem, regardless of what was logged.
+ * <p>
+ * Each entry records the native event type, the {@link System#nanoTime()} when the event was
+ * received and the primary numeric value carried by the event (e.g. the new time for a time
+ * changed event, the new position for a position changed event, or zero if the event has no
+ * numeric value).
+ * <p>
+ * The entries are kept in pre-allocated primitive arrays used as a ring buffer, so recording an
+ * event does not allocate - objects are only created when the journal is read, see
+ * {@link #entries()} and {@link #dump()}.
+ * <p>
+ * Enable the journal via {@link MediaPlayer#enableEventJournal(int)}.
+ */
+public final class MediaPlayerEventJournal {
+
+    /**
+     * Lookup table for the media and media player native event types, indexed by native event
+     * type value.
+     * <p>
+     * This avoids the boxing that {@link libvlc_event_e#event(int)} would incur on every event.
+     */
+    private static final libvlc_event_e[] EVENTS = new libvlc_event_e[libvlc_event_e.libvlc_MediaListItemAdded.intValue()];
+
+    static {
+        for(libvlc_event_e event : libvlc_event_e.values()) {
+            if(event.intValue() < EVENTS.length) {
+                EVENTS[event.intValue()] = event;
+            }
+        }
+    }
+
+    /**
+     * Maximum number of entries kept.
+     */
+    private final int capacity;
+
+    /**
+     * Native event types.
+     */
+    private final int[] types;
+
+    /**
+     * Time-stamps, nanoseconds.
+     */
+    private final long[] timestamps;
+
+    /**
+     * Primary numeric values.
+     */
+    private final double[] values;
+
+    /**
+     * Total number of events ever recorded, the next entry is written at this value modulo the
+     * capacity.
+     */
+    private long count;
+
+    /**
+     * Flag whether or not the journal should be dumped to the log when the media player reports an
+     * error.
+     */
+    private volatile boolean dumpOnError;
+
+    /**
+     * Create a journal.
+     *
+     * @param capacity maximum number of entries kept, must be greater than zero
+     */
+    MediaPlayerEventJournal(int capacity) {
+        if(capacity > 0) {
+            this.capacity = capacity;
+            this.types = new int[capacity];
+            this.timestamps = new long[capacity];
+            this.values = new double[capacity];
+        }
+        else {
+            throw new IllegalArgumentException("capacity must be greater than zero");
+        }
+    }
+
+    /**
+     * Record a native event.
+     * <p>
+     * This is invoked on the native event call-back thread and does not allocate.
+     *
+     * @param event native event
+     */
+    void record(libvlc_event_t event) {
+        long timestamp = System.nanoTime();
+        double value = value(event);
+        synchronized(this) {
+            int index = (int)(count % capacity);
+            types[index] = event.type;
+            timestamps[index] = timestamp;
+            values[index] = value;
+            count++;
+        }
+    }
+
+    /**
+     * Get the maximum number of entries kept.
+     *
+     * @return capacity
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Get the total number of events recorded, including those no longer kept.
+     *
+     * @return number of events
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Discard all entries.
+     */
+    public synchronized void clear() {
+        count = 0;
+    }
+
+    /**
+     * Set whether or not the journal should be dumped to the log, at warning level, when the media
+     * player reports an error.
+     *
+     * @param dumpOnError <code>true</code> to dump the journal on error; <code>false</code> otherwise
+     */
+    public void setDumpOnError(boolean dumpOnError) {
+        this.dumpOnError = dumpOnError;
+    }
+
+    /**
+     * Should the journal be dumped to the log when the media player reports an error?
+     *
+     * @return <code>true</code> if the journal is dumped on error; <code>false</code> otherwise
+     */
+    public boolean isDumpOnError() {
+        return dumpOnError;
+    }
+
+    /**
+     * Get a copy of the entries currently kept, oldest first.
+     *
+     * @return entries
+     */
+    public List<Entry> entries() {
+        int[] types;
+        long[] timestamps;
+        double[] values;
+        int size;
+        int start;
+        synchronized(this) {
+            size = (int)Math.min(count, capacity);
+            start = (int)((count - size) % capacity);
+            types = this.types.clone();
+            timestamps = this.timestamps.clone();
+            values = this.values.clone();
+        }
+        List<Entry> result = new ArrayList<Entry>(size);
+        for(int i = 0; i < size; i++) {
+            int index = (start + i) % capacity;
+            result.add(new Entry(types[index], timestamps[index], values[index]));
+        }
+        return result;
+    }
+
+    /**
+     * Format the entries currently kept, oldest first, one per line.
+     * <p>
+     * Times are shown relative to the most recent entry.
+     *
+     * @return formatted journal
+     */
+    public String dump() {
+        List<Entry> entries = entries();
+        StringBuilder sb = new StringBuilder(40 + entries.size() * 60);
+        sb.append("Media player event journal (").append(entries.size()).append(" of ").append(count()).append(" events)");
+        if(!entries.isEmpty()) {
+            long last = entries.get(entries.size() - 1).timestamp();
+            for(Entry entry : entries) {
+                sb.append('\n');
+                sb.append(String.format("%+12.3fms %-36s %s", (entry.timestamp() - last) / 1000000.0, entry.eventName(), entry.value()));
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(60);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("capacity=").append(capacity).append(',');
+        sb.append("count=").append(count()).append(',');
+        sb.append("dumpOnError=").append(dumpOnError).append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Get the primary numeric value carried by a native event.
+     * <p>
+     * The value is read straight from the native memory of the event union, at the offset of the
+     * field in the event's structure, rather than via {@link com.sun.jna.Union#getTypedValue(Class)}
+     * which reads the union reflectively and creates a new structure.
+     *
+     * @param event native event
+     * @return value, or zero if the event does not carry a numeric value
+     */
+    private static double value(libvlc_event_t event) {
+        libvlc_event_e type = event.type >= 0 && event.type < EVENTS.length ? EVENTS[event.type] : null;
+        if(type != null) {
+            Pointer u = event.u.getPointer();
+            switch(type) {
+                case libvlc_MediaPlayerTimeChanged:
+                case libvlc_MediaPlayerLengthChanged:
+                case libvlc_MediaDurationChanged:
+                    // new_time, new_length, new_duration
+                    return u.getLong(0);
+                case libvlc_MediaPlayerPositionChanged:
+                case libvlc_MediaPlayerBuffering:
+                    // new_position, new_cache
+                    return u.getFloat(0);
+                case libvlc_MediaPlayerTitleChanged:
+                case libvlc_MediaPlayerVout:
+                case libvlc_MediaParsedChanged:
+                case libvlc_MediaStateChanged:
+                    // new_title, new_count, new_status, new_state
+                    return u.getInt(0);
+                case libvlc_MediaPlayerESAdded:
+                case libvlc_MediaPlayerESDeleted:
+                case libvlc_MediaPlayerESSelected:
+                    // i_id, after i_type
+                    return u.getInt(4);
+                default:
+                    break;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A single journal entry.
+     */
+    public static final class Entry {
+
+        /**
+         * Native event type.
+         */
+        private final int type;
+
+        /**
+         * Time-stamp, nanoseconds.
+         */
+        private final long timestamp;
+
+        /**
+         * Primary numeric value.
+         */
+        private final double value;
+
+        /**
+         * Create an entry.
+         *
+         * @param type native event type
+         * @param timestamp time-stamp, nanoseconds
+         * @param value primary numeric value
+         */
+        private Entry(int type, long timestamp, double value) {
+            this.type = type;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        /**
+         * Get the native event type.
+         *
+         * @return event type
+         */
+        public int type() {
+            return type;
+        }
+
+        /**
+         * Get the native event.
+         *
+         * @return event, or <code>null</code> if the event type is not known
+         */
+        public libvlc_event_e event() {
+            return libvlc_event_e.event(type);
+        }
+
+        /**
+         * Get the time-stamp.
+         *
+         * @return time-stamp, as per {@link System#nanoTime()}
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get the primary numeric value.
+         *
+         * @return value
+         */
+        public double value() {
+            return value;
+        }
+
+        /**
+         * Get a name for the native event.
+         *
+         * @return event name
+         */
+        private String eventName() {
+            libvlc_event_e event = event();
+            return event != null ? event.name() : "0x" + Integer.toHexString(type);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(80);
+            sb.append(getClass().getSimpleName()).append('[');
+            sb.append("event=").append(eventName()).append(',');
+            sb.append("timestamp=").append(timestamp).append(',');
+            sb.append("value=").append(value).append(']');
+            return sb.toString();
+        }
+    }
+}
@@ -31,6 +31,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,11 +70,14 @@ import uk.co.caprica.vlcj.player.headless.DefaultHeadlessMediaPlayer;
 import uk.co.caprica.vlcj.player.headless.HeadlessMediaPlayer;
 import uk.co.caprica.vlcj.player.list.DefaultMediaListPlayer;
 import uk.co.caprica.vlcj.player.list.MediaListPlayer;
+import uk.co.caprica.vlcj.player.list.PagedPlaylist;
 import uk.co.caprica.vlcj.player.manager.DefaultMediaManager;
 import uk.co.caprica.vlcj.player.manager.MediaManager;
+import uk.co.caprica.vlcj.player.pool.MediaPlayerCreator;
+import uk.co.caprica.vlcj.player.pool.MediaPlayerPool;
 import uk.co.caprica.vlcj.runtime.RuntimeUtil;
 import uk.co.caprica.vlcj.runtime.x.LibXUtil;
-import uk.co.caprica.vlcj.version.LibVlcVersion;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
 import uk.co.caprica.vlcj.version.Version;
 
 /**
@@ -199,6 +204,12 @@ public class MediaPlayerFactory {
      */
     protected final libvlc_instance_t instance;
 
+    /**
+     * Capabilities of the native library, shared with all media players and other components
+     * created by this factory.
+     */
+    protected final LibVlcCapabilities capabilities;
+
     /**
      * Flag if the native equalizer is available or not.
      * <p>
@@ -218,6 +229,51 @@ public class MediaPlayerFactory {
      */
     private final List<String> equalizerPresetNames;
 
+    /**
+     * Cached audio outputs, or <code>null</code> if not yet loaded.
+     */
+    private volatile List<AudioOutput> audioOutputs;
+
+    /**
+     * Incremented each time the cached audio outputs are invalidated, so that a concurrent load
+     * does not replace the invalidated audio outputs with stale ones.
+     */
+    private final AtomicInteger audioOutputsGeneration = new AtomicInteger();
+
+    /**
+     * Cached audio filters, or <code>null</code> if not yet loaded.
+     */
+    private volatile List<ModuleDescription> audioFilters;
+
+    /**
+     * Cached video filters, or <code>null</code> if not yet loaded.
+     */
+    private volatile List<ModuleDescription> videoFilters;
+
+    /**
+     * Cached preset equalizers, by preset name, or <code>null</code> if not yet loaded.
+     * <p>
+     * These instances are never given out, only copies of them.
+     */
+    private volatile Map<String, Equalizer> presetEqualizers;
+
+    /**
+     * True if the cached audio outputs should be invalidated whenever a media player created by
+     * this factory reports an audio device change.
+     */
+    private volatile boolean invalidateAudioOutputsOnDeviceChange;
+
+    /**
+     * Listener added to media players to invalidate the cached audio outputs when the audio device
+     * changes.
+     */
+    private final MediaPlayerEventListener audioDeviceListener = new MediaPlayerEventAdapter() {
+        @Override
+        public void audioDeviceChanged(MediaPlayer mediaPlayer, String audioDevice) {
+            invalidateAudioOutputs();
+        }
+    };
+
     /**
      * True when the factory has been released.
      */
@@ -299,8 +355,11 @@ public class MediaPlayerFactory {
             String msg = MessageFormat.format(PLUGIN_PATH_HELP, new Object[] {RuntimeUtil.getLibVlcName(), RuntimeUtil.getLibVlcCoreName(), RuntimeUtil.getPluginsDirectoryName()});
             throw new RuntimeException(msg);
         }
+        // Determine the native capabilities once for all components
+        this.capabilities = LibVlcCapabilities.capabilities(libvlc);
+        logger.debug("capabilities={}", capabilities);
         // Cache the equalizer static data
-        equalizerAvailable = LibVlcVersion.getVersion().atLeast(new Version("2.2.0"));
+        equalizerAvailable = capabilities.isEqualizerAvailable();
         logger.debug("equalizerAvailable={}", equalizerAvailable);
         if(equalizerAvailable) {
             equalizerBandFrequencies = createEqualizerBandFrequencies();
@@ -389,16 +448,76 @@ public class MediaPlayerFactory {
         libvlc.libvlc_set_app_id(instance, id, version, icon);
     }
 
+    // === Catalogs =============================================================
+
+    /**
+     * Discard all of the cached catalogs (audio outputs, filters and preset equalizers), they will
+     * be loaded again from the native library when they are next requested.
+     */
+    public void refreshCatalogs() {
+        logger.debug("refreshCatalogs()");
+        invalidateAudioOutputs();
+        audioFilters = null;
+        videoFilters = null;
+        presetEqualizers = null;
+    }
+
+    /**
+     * Discard the cached audio outputs, they will be loaded again from the native library when they
+     * are next requested.
+     * <p>
+     * This might be used for example when an audio device has been added or removed.
+     */
+    public void invalidateAudioOutputs() {
+        logger.debug("invalidateAudioOutputs()");
+        audioOutputsGeneration.incrementAndGet();
+        audioOutputs = null;
+    }
+
+    /**
+     * Set whether or not the cached audio outputs should be invalidated automatically whenever a
+     * media player created by this factory reports an audio device change.
+     * <p>
+     * This applies only to media players created after this setting has been enabled.
+     *
+     * @param invalidate <code>true</code> to invalidate automatically; <code>false</code> otherwise
+     */
+    public void setInvalidateAudioOutputsOnDeviceChange(boolean invalidate) {
+        logger.debug("setInvalidateAudioOutputsOnDeviceChange(invalidate={})", invalidate);
+        this.invalidateAudioOutputsOnDeviceChange = invalidate;
+    }
+
     /**
      * Get the available audio outputs.
      * <p>
      * Each audio output has zero or more audio devices, each device having it's own unique
      * identifier that can be used on a media player to set the select the required output device.
+     * <p>
+     * The audio outputs are loaded from the native library on first use and cached, see
+     * {@link #invalidateAudioOutputs()} and {@link #setInvalidateAudioOutputsOnDeviceChange(boolean)}.
      *
-     * @return collection of audio outputs
+     * @return unmodifiable collection of audio outputs
      */
     public List<AudioOutput> getAudioOutputs() {
         logger.debug("getAudioOutputs()");
+        List<AudioOutput> result = audioOutputs;
+        if(result == null) {
+            int generation = audioOutputsGeneration.get();
+            result = createAudioOutputs();
+            if(audioOutputsGeneration.get() == generation) {
+                audioOutputs = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create the available audio outputs.
+     *
+     * @return unmodifiable collection of audio outputs
+     */
+    private List<AudioOutput> createAudioOutputs() {
+        logger.debug("createAudioOutputs()");
         List<AudioOutput> result = new ArrayList<AudioOutput>();
         libvlc_audio_output_t audioOutputs = libvlc.libvlc_audio_output_list_get(instance);
         if(audioOutputs != null) {
@@ -417,14 +536,14 @@ public class MediaPlayerFactory {
             }
             libvlc.libvlc_audio_output_list_release(audioOutputs);
         }
-        return result;
+        return Collections.unmodifiableList(result);
     }
 
     /**
      * Get the devices associated with an audio output.
      *
      * @param outputName output
-     * @return collection of audio output devices
+     * @return unmodifiable collection of audio output devices
      */
     private List<AudioDevice> getAudioOutputDevices(String outputName) {
         logger.debug("getAudioOutputDevices(outputName={})", outputName);
@@ -446,18 +565,35 @@ public class MediaPlayerFactory {
             }
             libvlc.libvlc_audio_output_device_list_release(audioDevices);
         }
-        return result;
+        return Collections.unmodifiableList(result);
     }
 
     /**
      * Get the available audio filters.
+     * <p>
+     * The audio filters are loaded from the native library on first use and cached.
      *
-     * @return collection of audio filter descriptions
+     * @return unmodifiable collection of audio filter descriptions
      *
      * @since libvlc 2.0.0
      */
     public List<ModuleDescription> getAudioFilters() {
         logger.debug("getAudioFilters()");
+        List<ModuleDescription> result = audioFilters;
+        if(result == null) {
+            result = createAudioFilters();
+            audioFilters = result;
+        }
+        return result;
+    }
+
+    /**
+     * Create the available audio filters.
+     *
+     * @return unmodifiable collection of audio filter descriptions
+     */
+    private List<ModuleDescription> createAudioFilters() {
+        logger.debug("createAudioFilters()");
         libvlc_module_description_t moduleDescriptions = libvlc.libvlc_audio_filter_list_get(instance);
         // Without disabling auto synch on this JNA structure a fatal crash will
         // intermittently occur when the release call is made - this is the only
@@ -471,13 +607,30 @@ public class MediaPlayerFactory {
 
     /**
      * Get the available video filters.
+     * <p>
+     * The video filters are loaded from the native library on first use and cached.
      *
-     * @return collection of video filter descriptions
+     * @return unmodifiable collection of video filter descriptions
      *
      * @since libvlc 2.0.0
      */
     public List<ModuleDescription> getVideoFilters() {
         logger.debug("getVideoFilters()");
+        List<ModuleDescription> result = videoFilters;
+        if(result == null) {
+            result = createVideoFilters();
+            videoFilters = result;
+        }
+        return result;
+    }
+
+    /**
+     * Create the available video filters.
+     *
+     * @return unmodifiable collection of video filter descriptions
+     */
+    private List<ModuleDescription> createVideoFilters() {
+        logger.debug("createVideoFilters()");
         libvlc_module_description_t moduleDescriptions = libvlc.libvlc_video_filter_list_get(instance);
         // Without disabling auto synch on this JNA structure a fatal crash will
         // intermittently occur when the release call is made - this is the only
@@ -493,7 +646,7 @@ public class MediaPlayerFactory {
      * Convert a collection of native module description structures.
      *
      * @param moduleDescriptions module descriptions
-     * @return collection of module descriptions
+     * @return unmodifiable collection of module descriptions
      */
     private List<ModuleDescription> getModuleDescriptions(libvlc_module_description_t moduleDescriptions) {
         List<ModuleDescription> result = new ArrayList<ModuleDescription>();
@@ -502,7 +655,7 @@ public class MediaPlayerFactory {
             result.add(new ModuleDescription(moduleDescription.psz_name, moduleDescription.psz_shortname, moduleDescription.psz_longname, moduleDescription.psz_help));
             moduleDescription = moduleDescription.p_next;
         }
-        return result;
+        return Collections.unmodifiableList(result);
     }
 
     // === Equalizer ============================================================
@@ -585,7 +738,7 @@ public class MediaPlayerFactory {
     public final Equalizer newEqualizer() {
         logger.debug("newEqualizer()");
         checkEqualizer();
-        return new Equalizer(libvlc.libvlc_audio_equalizer_get_band_count());
+        return new Equalizer(equalizerBandFrequencies.size());
     }
 
     /**
@@ -598,21 +751,9 @@ public class MediaPlayerFactory {
     public final Equalizer newEqualizer(String presetName) {
         logger.debug("newEqualizer(presetName={})", presetName);
         checkEqualizer();
-        int index = equalizerPresetNames.indexOf(presetName);
-        if(index != -1) {
-            libvlc_equalizer_t presetEqualizer = libvlc.libvlc_audio_equalizer_new_from_preset(index);
-            if(presetEqualizer != null) {
-                Equalizer equalizer = new Equalizer(libvlc.libvlc_audio_equalizer_get_band_count());
-                equalizer.setPreamp(libvlc.libvlc_audio_equalizer_get_preamp(presetEqualizer));
-                for(int i = 0; i < libvlc.libvlc_audio_equalizer_get_band_count(); i++) {
-                    equalizer.setAmp(i, libvlc.libvlc_audio_equalizer_get_amp_at_index(presetEqualizer, i));
-                }
-                libvlc.libvlc_audio_equalizer_release(presetEqualizer);
-                return equalizer;
-            }
-            else {
-                return null;
-            }
+        if(equalizerPresetNames.contains(presetName)) {
+            Equalizer presetEqualizer = getPresetEqualizers().get(presetName);
+            return presetEqualizer != null ? copyEqualizer(presetEqualizer) : null;
         }
         else {
             throw new IllegalArgumentException("No such preset named '" + presetName + "'");
@@ -622,9 +763,9 @@ public class MediaPlayerFactory {
     /**
      * Get all of the available preset equalizer instances.
      * <p>
-     * This will return new equalizer instances (i.e. they are not cached or shared), so
-     * applications are free to change the values in the returned equalizer instances if
-     * so desired.
+     * This will return new equalizer instances (i.e. they are not shared), so applications are
+     * free to change the values in the returned equalizer instances if so desired. The preset
+     * values themselves are loaded from the native library only once.
      *
      * @return map of preset name to equalizer instance, sorted by name
      * @since libvlc 2.2.0
@@ -633,13 +774,65 @@ public class MediaPlayerFactory {
         logger.debug("getAllPresetEqualizers()");
         checkEqualizer();
         Map<String, Equalizer> result = new TreeMap<String, Equalizer>();
-        for(String presetName : equalizerPresetNames) {
-            result.put(presetName, newEqualizer(presetName));
+        for(Map.Entry<String, Equalizer> entry : getPresetEqualizers().entrySet()) {
+            result.put(entry.getKey(), copyEqualizer(entry.getValue()));
         }
         logger.trace("result={}", result);
         return result;
     }
 
+    /**
+     * Get the cached preset equalizers, loading them from the native library if necessary.
+     *
+     * @return map of preset name to (shared) equalizer instance
+     */
+    private Map<String, Equalizer> getPresetEqualizers() {
+        Map<String, Equalizer> result = presetEqualizers;
+        if(result == null) {
+            result = createPresetEqualizers();
+            presetEqualizers = result;
+        }
+        return result;
+    }
+
+    /**
+     * Create the preset equalizers.
+     * <p>
+     * A preset that can not be created natively is omitted.
+     *
+     * @return unmodifiable map of preset name to equalizer instance
+     */
+    private Map<String, Equalizer> createPresetEqualizers() {
+        logger.debug("createPresetEqualizers()");
+        int bandCount = equalizerBandFrequencies.size();
+        Map<String, Equalizer> result = new TreeMap<String, Equalizer>();
+        for(int index = 0; index < equalizerPresetNames.size(); index++) {
+            libvlc_equalizer_t presetEqualizer = libvlc.libvlc_audio_equalizer_new_from_preset(index);
+            if(presetEqualizer != null) {
+                Equalizer equalizer = new Equalizer(bandCount);
+                equalizer.setPreamp(libvlc.libvlc_audio_equalizer_get_preamp(presetEqualizer));
+                for(int i = 0; i < bandCount; i++) {
+                    equalizer.setAmp(i, libvlc.libvlc_audio_equalizer_get_amp_at_index(presetEqualizer, i));
+                }
+                libvlc.libvlc_audio_equalizer_release(presetEqualizer);
+                result.put(equalizerPresetNames.get(index), equalizer);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Create a new equalizer with the same values as another.
+     *
+     * @param equalizer equalizer to copy
+     * @return new equalizer
+     */
+    private Equalizer copyEqualizer(Equalizer equalizer) {
+        Equalizer result = new Equalizer(equalizer.getBandCount());
+        result.setEqualizer(equalizer);
+        return result;
+    }
+
     /**
      * Check whether or not the audio equalizer is available.
      *
@@ -675,7 +868,7 @@ public class MediaPlayerFactory {
      */
     public EmbeddedMediaPlayer newEmbeddedMediaPlayer(FullScreenStrategy fullScreenStrategy) {
         logger.debug("newEmbeddedMediaPlayer(fullScreenStrategy={})", fullScreenStrategy);
-        return new DefaultEmbeddedMediaPlayer(libvlc, instance, fullScreenStrategy);
+        return configure(new DefaultEmbeddedMediaPlayer(libvlc, instance, fullScreenStrategy));
     }
 
     /**
@@ -687,7 +880,7 @@ public class MediaPlayerFactory {
      */
     public DirectMediaPlayer newDirectMediaPlayer(BufferFormatCallback bufferFormatCallback, RenderCallback renderCallback) {
         logger.debug("newDirectMediaPlayer(formatCallback={},renderCallback={})", bufferFormatCallback, renderCallback);
-        return new DefaultDirectMediaPlayer(libvlc, instance, bufferFormatCallback, renderCallback);
+        return configure(new DefaultDirectMediaPlayer(libvlc, instance, bufferFormatCallback, renderCallback));
     }
 
     /**
@@ -701,7 +894,7 @@ public class MediaPlayerFactory {
      */
     public DirectAudioPlayer newDirectAudioPlayer(String format, int rate, int channels, AudioCallback audioCallback) {
         logger.debug("newDirectAudioPlayer(format={},rate={},channels={},audioCallback={}", format, rate, channels, audioCallback);
-        return new DefaultDirectAudioPlayer(libvlc, instance, format, rate, channels, audioCallback);
+        return configure(new DefaultDirectAudioPlayer(libvlc, instance, format, rate, channels, audioCallback));
     }
 
     /**
@@ -715,7 +908,7 @@ public class MediaPlayerFactory {
      */
     public HeadlessMediaPlayer newHeadlessMediaPlayer() {
         logger.debug("newHeadlessMediaPlayer()");
-        return new DefaultHeadlessMediaPlayer(libvlc, instance);
+        return configure(new DefaultHeadlessMediaPlayer(libvlc, instance));
     }
 
     /**
@@ -728,6 +921,97 @@ public class MediaPlayerFactory {
         return new DefaultMediaListPlayer(libvlc, instance);
     }
 
+    /**
+     * Apply the factory configuration to a new media player.
+     * <p>
+     * Package-private so that {@link ShardedMediaPlayerFactory} can configure the media players it
+     * creates on each shard.
+     *
+     * @param <T> type of media player
+     * @param mediaPlayer media player
+     * @return the same media player
+     */
+    <T extends MediaPlayer> T configure(T mediaPlayer) {
+        if(invalidateAudioOutputsOnDeviceChange) {
+            mediaPlayer.addMediaPlayerEventListener(audioDeviceListener);
+        }
+        return mediaPlayer;
+    }
+
+    // === Media Player Pool ====================================================
+
+    /**
+     * Create a new pool of re-usable headless media players.
+     * <p>
+     * The pool must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param maximumSize maximum number of media players, idle and in use
+     * @param maximumIdleTime maximum time a media player may be idle before it is released
+     * @param unit unit of the maximum idle time
+     * @return media player pool
+     */
+    public MediaPlayerPool<HeadlessMediaPlayer> newHeadlessMediaPlayerPool(int maximumSize, long maximumIdleTime, TimeUnit unit) {
+        logger.debug("newHeadlessMediaPlayerPool(maximumSize={},maximumIdleTime={},unit={})", maximumSize, maximumIdleTime, unit);
+        return new MediaPlayerPool<HeadlessMediaPlayer>(new MediaPlayerCreator<HeadlessMediaPlayer>() {
+            @Override
+            public HeadlessMediaPlayer newMediaPlayer() {
+                return newHeadlessMediaPlayer();
+            }
+        }, maximumSize, maximumIdleTime, unit);
+    }
+
+    /**
+     * Create a new pool of re-usable direct video rendering media players.
+     * <p>
+     * All of the media players in the pool share the same callbacks, the media player is passed
+     * to each callback.
+     * <p>
+     * The pool must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param maximumSize maximum number of media players, idle and in use
+     * @param maximumIdleTime maximum time a media player may be idle before it is released
+     * @param unit unit of the maximum idle time
+     * @param bufferFormatCallback callback to set the desired buffer format
+     * @param renderCallback callback to receive the video frame data
+     * @return media player pool
+     */
+    public MediaPlayerPool<DirectMediaPlayer> newDirectMediaPlayerPool(int maximumSize, long maximumIdleTime, TimeUnit unit, final BufferFormatCallback bufferFormatCallback, final RenderCallback renderCallback) {
+        logger.debug("newDirectMediaPlayerPool(maximumSize={},maximumIdleTime={},unit={},formatCallback={},renderCallback={})", maximumSize, maximumIdleTime, unit, bufferFormatCallback, renderCallback);
+        return new MediaPlayerPool<DirectMediaPlayer>(new MediaPlayerCreator<DirectMediaPlayer>() {
+            @Override
+            public DirectMediaPlayer newMediaPlayer() {
+                return newDirectMediaPlayer(bufferFormatCallback, renderCallback);
+            }
+        }, maximumSize, maximumIdleTime, unit);
+    }
+
+    /**
+     * Create a new pool of re-usable direct audio media players.
+     * <p>
+     * All of the media players in the pool share the same audio format and callback, the media
+     * player is passed to the callback.
+     * <p>
+     * The pool must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param maximumSize maximum number of media players, idle and in use
+     * @param maximumIdleTime maximum time a media player may be idle before it is released
+     * @param unit unit of the maximum idle time
+     * @param format decoded audio format
+     * @param rate decoded audio sample rate
+     * @param channels decoded audio channels
+     * @param audioCallback callback
+     * @return media player pool
+     */
+    public MediaPlayerPool<DirectAudioPlayer> newDirectAudioPlayerPool(int maximumSize, long maximumIdleTime, TimeUnit unit, final String format, final int rate, final int channels, final AudioCallback audioCallback) {
+        logger.debug("newDirectAudioPlayerPool(maximumSize={},maximumIdleTime={},unit={},format={},rate={},channels={},audioCallback={})", maximumSize, maximumIdleTime, unit, format, rate, channels, audioCallback);
+        return new MediaPlayerPool<DirectAudioPlayer>(new MediaPlayerCreator<DirectAudioPlayer>() {
+            @Override
+            public DirectAudioPlayer newMediaPlayer() {
+                return newDirectAudioPlayer(format, rate, channels, audioCallback);
+            }
+        }, maximumSize, maximumIdleTime, unit);
+    }
+
     // === Video Surface ========================================================
 
     /**
@@ -794,6 +1078,19 @@ public class MediaPlayerFactory {
         return new MediaList(libvlc, instance);
     }
 
+    /**
+     * Create a new play-list for very large collections of media, that creates native media only
+     * for a small window of items around the current item.
+     *
+     * @param windowBehind number of items behind the current item to keep native media for
+     * @param windowAhead number of items ahead of the current item to keep native media for
+     * @return play-list
+     */
+    public PagedPlaylist newPagedPlaylist(int windowBehind, int windowAhead) {
+        logger.debug("newPagedPlaylist(windowBehind={},windowAhead={})", windowBehind, windowAhead);
+        return new PagedPlaylist(libvlc, instance, windowBehind, windowAhead);
+    }
+
     // === Meta Data ============================================================
 
     /**
@@ -829,6 +1126,48 @@ public class MediaPlayerFactory {
         }
     }
 
+    /**
+     * Create a new service to parse media meta data and track information concurrently.
+     * <p>
+     * Only local media are parsed and only local artwork is fetched.
+     * <p>
+     * The parser must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param maximumConcurrent maximum number of media to parse at the same time
+     * @return media parser
+     */
+    public MediaParser newMediaParser(int maximumConcurrent) {
+        return newMediaParser(maximumConcurrent, false);
+    }
+
+    /**
+     * Create a new service to parse media meta data and track information concurrently.
+     * <p>
+     * The parser must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param maximumConcurrent maximum number of media to parse at the same time
+     * @param network <code>true</code> to also parse network media and fetch meta data from the network; <code>false</code> for local only
+     * @return media parser
+     */
+    public MediaParser newMediaParser(int maximumConcurrent, boolean network) {
+        logger.debug("newMediaParser(maximumConcurrent={},network={})", maximumConcurrent, network);
+        return new MediaParser(libvlc, instance, capabilities, maximumConcurrent, network);
+    }
+
+    /**
+     * Create a new write-behind editor to change and save the meta data of many media in parallel.
+     * <p>
+     * The editor must be released when it is no longer needed, and before this factory is released.
+     *
+     * @param threads maximum number of media to save at the same time
+     * @param batchSize number of media with pending changes that causes them to be saved
+     * @return meta data editor
+     */
+    public MetaEditor newMetaEditor(int threads, int batchSize) {
+        logger.debug("newMetaEditor(threads={},batchSize={})", threads, batchSize);
+        return new MetaEditor(libvlc, instance, capabilities.version(), threads, batchSize);
+    }
+
     // === MediaType ============================================================
 
     /**
@@ -864,7 +1203,7 @@ public class MediaPlayerFactory {
      */
     public String getCodecDescription(libvlc_track_type_t type, int codec) {
         logger.debug("getCodecDescription(type={},codec={})", type, codec);
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_300)) {
+        if(capabilities.isLibVlc3Available()) {
             return libvlc.libvlc_media_get_codec_description(type.intValue(), codec);
         }
         else {
@@ -884,7 +1223,7 @@ public class MediaPlayerFactory {
      */
     public NativeLog newLog() {
         logger.debug("newLog()");
-        if(LibVlcVersion.getVersion().atLeast(LibVlcVersion.LIBVLC_210)) {
+        if(capabilities.isNativeLogAvailable()) {
             return new NativeLog(libvlc, instance);
         }
         else {
@@ -966,6 +1305,18 @@ public class MediaPlayerFactory {
 
     // === Build Information ====================================================
 
+    /**
+     * Get the capabilities of the native library.
+     * <p>
+     * The capabilities are determined once and shared with all media players and other components
+     * created by this factory.
+     *
+     * @return native library capabilities
+     */
+    public LibVlcCapabilities capabilities() {
+        return capabilities;
+    }
+
     /**
      * Get the libvlc version.
      *
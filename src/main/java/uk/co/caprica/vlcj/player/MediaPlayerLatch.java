@@ -19,12 +19,15 @@
 
 package uk.co.caprica.vlcj.player;
 
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.co.caprica.vlcj.player.condition.Condition;
+import uk.co.caprica.vlcj.player.condition.ConditionFuture;
+import uk.co.caprica.vlcj.player.condition.ConditionTimeoutException;
+
 /**
  * This class implements a mechanism to play a media item and wait for it to start (or wait for it
  * to raise an error instead of starting).
@@ -41,6 +44,9 @@ import org.slf4j.LoggerFactory;
  * The strategy is simply to block the play call until a media player "playing" or "error" event is
  * received.
  * <p>
+ * Non-blocking variants, see {@link #playAsync()}, return a future instead of blocking the calling
+ * thread.
+ * <p>
  * Example usage:
  *
  * <pre>
@@ -84,68 +90,110 @@ public class MediaPlayerLatch {
      */
     public boolean play() {
         logger.debug("play()");
-        // If the media player is already playing, then the latch will wait for an event that
-        // will never arrive and so will block incorrectly
-        if(!mediaPlayer.isPlaying()) {
-            CountDownLatch latch = new CountDownLatch(1);
-            LatchListener listener = new LatchListener(latch);
-            mediaPlayer.addMediaPlayerEventListener(listener);
-            mediaPlayer.play();
-            try {
-                logger.debug("Waiting for media playing or error...");
-                latch.await();
-                logger.debug("Finished waiting.");
-                boolean started = listener.playing.get();
-                logger.debug("started={}", started);
-                return started;
-            }
-            catch(InterruptedException e) {
-                logger.debug("Interrupted while waiting for media player", e);
-                return false;
-            }
-            finally {
-                mediaPlayer.removeMediaPlayerEventListener(listener);
-            }
+        try {
+            logger.debug("Waiting for media playing or error...");
+            boolean started = new PlayCondition(mediaPlayer).await();
+            logger.debug("started={}", started);
+            return started;
         }
-        else {
-            return true;
+        catch(InterruptedException e) {
+            logger.debug("Interrupted while waiting for media player", e);
+            return false;
         }
     }
 
     /**
-     * Short-lived listener to wait for playing/error events.
+     * Play the media and wait, for at most the given time, for it to either start playing or
+     * error.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout value
+     * @return true if the media definitely started playing and false if it did not, the wait
+     *          timed out, or the thread was interrupted while waiting (in which case the media
+     *          player <em>might</em> still start)
      */
-    private static final class LatchListener extends MediaPlayerEventAdapter {
+    public boolean play(long timeout, TimeUnit unit) {
+        logger.debug("play(timeout={},unit={})", timeout, unit);
+        try {
+            logger.debug("Waiting for media playing or error...");
+            boolean started = new PlayCondition(mediaPlayer).await(timeout, unit);
+            logger.debug("started={}", started);
+            return started;
+        }
+        catch(InterruptedException e) {
+            logger.debug("Interrupted while waiting for media player", e);
+            return false;
+        }
+        catch(ConditionTimeoutException e) {
+            logger.debug("Timed out waiting for media player");
+            return false;
+        }
+    }
 
-        /**
-         * Synchronisation latch.
-         */
-        private final CountDownLatch latch;
+    /**
+     * Play the media without blocking.
+     * <p>
+     * The returned future yields true if the media started playing and false if the media player
+     * reported an error instead.
+     *
+     * @return future result
+     */
+    public ConditionFuture<Boolean> playAsync() {
+        logger.debug("playAsync()");
+        return new PlayCondition(mediaPlayer).submit();
+    }
 
-        /**
-         * True if the media started, otherwise false.
-         */
-        private final AtomicBoolean playing = new AtomicBoolean();
+    /**
+     * Play the media without blocking, giving up after the given time.
+     * <p>
+     * The returned future yields true if the media started playing and false if the media player
+     * reported an error instead, if the media did neither in time the future fails with a
+     * {@link ConditionTimeoutException}.
+     *
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     * @return future result
+     */
+    public ConditionFuture<Boolean> playAsync(long timeout, TimeUnit unit) {
+        logger.debug("playAsync(timeout={},unit={})", timeout, unit);
+        return new PlayCondition(mediaPlayer).submit(timeout, unit);
+    }
+
+    /**
+     * Short-lived condition to wait for playing/error events.
+     */
+    private static final class PlayCondition extends Condition<Boolean> {
 
         /**
-         * Create a new listener.
+         * Create a new condition.
          *
-         * @param latch synchronisation latch.
+         * @param mediaPlayer media player
          */
-        private LatchListener(CountDownLatch latch) {
-            this.latch = latch;
+        private PlayCondition(MediaPlayer mediaPlayer) {
+            super(mediaPlayer);
+        }
+
+        @Override
+        protected boolean onBefore() {
+            // If the media player is already playing, then waiting for an event that will never
+            // arrive would block incorrectly
+            if(!mediaPlayer.isPlaying()) {
+                mediaPlayer.play();
+            }
+            else {
+                ready(true);
+            }
+            return true;
         }
 
         @Override
         public void playing(MediaPlayer mediaPlayer) {
-            playing.set(true);
-            latch.countDown();
+            ready(true);
         }
 
         @Override
         public void error(MediaPlayer mediaPlayer) {
-            playing.set(false);
-            latch.countDown();
+            ready(false);
         }
     }
 }
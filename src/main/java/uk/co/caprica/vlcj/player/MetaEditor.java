@@ -0,0 +1,481 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+import uk.co.caprica.vlcj.version.Version;
+
+/**
+ * A write-behind editor for the meta data of many media.
+ * <p>
+ * Changing meta data through {@link MediaMeta} makes a native call for every field and then a
+ * save for every media, all on the calling thread. This editor instead collects the changes for
+ * each media, later changes to the same field replacing earlier ones, and hands them in batches to
+ * a bounded pool of worker threads. Each worker applies all of the changes for a media together
+ * and saves it, so many media are saved in parallel.
+ * <p>
+ * Changes are handed to the workers whenever {@link #getBatchSize()} media have pending changes,
+ * and by {@link #submit()} or {@link #flush(long, TimeUnit)}. A media is never saved by two
+ * workers at the same time, changes made while a media is being saved are saved after it.
+ * <p>
+ * Fields not supported by the run-time version of LibVLC are ignored.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   MetaEditor editor = mediaPlayerFactory.newMetaEditor(4, 100);
+ *   for(String file : files) {
+ *       editor.set(file, libvlc_meta_t.libvlc_meta_Album, "Greatest Hits");
+ *   }
+ *   editor.flush(1, TimeUnit.MINUTES);
+ *   editor.release();
+ * </pre>
+ *
+ * This class is thread-safe.
+ */
+public final class MetaEditor {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(MetaEditor.class);
+
+    /**
+     * Native library interface.
+     */
+    private final LibVlc libvlc;
+
+    /**
+     * Native library instance.
+     */
+    private final libvlc_instance_t instance;
+
+    /**
+     * Run-time native library version.
+     */
+    private final Version version;
+
+    /**
+     * Number of media with pending changes that causes them to be handed to the workers.
+     */
+    private final int batchSize;
+
+    /**
+     * Worker threads.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Changes not yet handed to the workers, by media resource locator, in the order first changed.
+     */
+    private final Map<String, EnumMap<libvlc_meta_t, String>> pending = new LinkedHashMap<String, EnumMap<libvlc_meta_t, String>>();
+
+    /**
+     * Media currently being saved.
+     */
+    private final Set<String> saving = new HashSet<String>();
+
+    /**
+     * Components to notify of saves.
+     */
+    private final List<MetaEditorListener> listeners = new CopyOnWriteArrayList<MetaEditorListener>();
+
+    /**
+     * Number of media saved.
+     */
+    private final AtomicLong saved = new AtomicLong();
+
+    /**
+     * Number of media that could not be saved.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Set when the editor has been released.
+     */
+    private boolean released;
+
+    /**
+     * Create a meta data editor.
+     *
+     * @param libvlc native library interface
+     * @param instance native library instance
+     * @param version run-time native library version
+     * @param threads maximum number of media to save at the same time
+     * @param batchSize number of media with pending changes that causes them to be saved
+     */
+    MetaEditor(LibVlc libvlc, libvlc_instance_t instance, Version version, int threads, int batchSize) {
+        if(threads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("threads and batchSize must be at least 1");
+        }
+        this.libvlc = libvlc;
+        this.instance = instance;
+        this.version = version;
+        this.batchSize = batchSize;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-meta-editor-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Add a component to be notified of saves.
+     *
+     * @param listener component to add
+     */
+    public void addMetaEditorListener(MetaEditorListener listener) {
+        logger.debug("addMetaEditorListener(listener={})", listener);
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a component previously added.
+     *
+     * @param listener component to remove
+     */
+    public void removeMetaEditorListener(MetaEditorListener listener) {
+        logger.debug("removeMetaEditorListener(listener={})", listener);
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the number of media with pending changes that causes them to be saved.
+     *
+     * @return batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Change one meta data field of a media.
+     *
+     * @param mrl media resource locator
+     * @param metaType meta data field
+     * @param value new value
+     * @throws IllegalStateException if the editor has been released
+     */
+    public void set(String mrl, libvlc_meta_t metaType, String value) {
+        logger.debug("set(mrl={},metaType={},value={})", mrl, metaType, value);
+        EnumMap<libvlc_meta_t, String> changes = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+        put(changes, metaType, value);
+        set(mrl, changes);
+    }
+
+    /**
+     * Change many meta data fields of a media.
+     * <p>
+     * Only the fields that are not <code>null</code> are changed.
+     *
+     * @param mrl media resource locator
+     * @param changes new values
+     * @throws IllegalStateException if the editor has been released
+     */
+    public void set(String mrl, MediaMetaData changes) {
+        logger.debug("set(mrl={},changes={})", mrl, changes);
+        set(mrl, changes(changes));
+    }
+
+    /**
+     * Hand all pending changes to the workers.
+     * <p>
+     * This method returns immediately.
+     */
+    public void submit() {
+        logger.debug("submit()");
+        List<String> toSave;
+        synchronized(this) {
+            toSave = new ArrayList<String>(pending.keySet());
+        }
+        for(String mrl : toSave) {
+            submit(mrl);
+        }
+    }
+
+    /**
+     * Hand all pending changes to the workers and wait for them, and any other saves in progress,
+     * to finish.
+     * <p>
+     * A save has finished once its outcome is counted and the listeners have been notified.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return <code>true</code> if all changes were saved, or failed, in time; <code>false</code> if the time ran out
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        logger.debug("flush(timeout={},unit={})", timeout, unit);
+        submit();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized(this) {
+            while(!pending.isEmpty() || !saving.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of media with changes not yet saved.
+     *
+     * @return number of media
+     */
+    public synchronized int pendingCount() {
+        return pending.size() + saving.size();
+    }
+
+    /**
+     * Get the number of media saved.
+     *
+     * @return number of media
+     */
+    public long savedCount() {
+        return saved.get();
+    }
+
+    /**
+     * Get the number of media that could not be saved.
+     *
+     * @return number of media
+     */
+    public long failedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Release the editor.
+     * <p>
+     * Pending changes that have not been handed to the workers are discarded, saves already handed
+     * to the workers are allowed to finish. No further changes can be made once the editor has been
+     * released.
+     */
+    public void release() {
+        logger.debug("release()");
+        synchronized(this) {
+            released = true;
+            pending.clear();
+            notifyAll();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Record changes to a media, handing pending changes to the workers if there are enough.
+     *
+     * @param mrl media resource locator
+     * @param changes changes
+     */
+    private void set(String mrl, EnumMap<libvlc_meta_t, String> changes) {
+        if(mrl == null) {
+            throw new IllegalArgumentException("mrl can not be null");
+        }
+        boolean full;
+        synchronized(this) {
+            if(released) {
+                throw new IllegalStateException("Meta editor has been released");
+            }
+            EnumMap<libvlc_meta_t, String> existing = pending.get(mrl);
+            if(existing != null) {
+                existing.putAll(changes);
+            }
+            else {
+                pending.put(mrl, changes);
+            }
+            full = pending.size() >= batchSize;
+        }
+        if(full) {
+            submit();
+        }
+    }
+
+    /**
+     * Hand the pending changes for a media to the workers, unless the media is already being
+     * saved, in which case they are handed over when that save finishes.
+     *
+     * @param mrl media resource locator
+     */
+    private void submit(final String mrl) {
+        final EnumMap<libvlc_meta_t, String> changes;
+        synchronized(this) {
+            if(released || saving.contains(mrl) || !pending.containsKey(mrl)) {
+                return;
+            }
+            changes = pending.remove(mrl);
+            saving.add(mrl);
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // The outcome is recorded and the listeners notified before the media stops
+                    // being saved, so a flush never returns ahead of them
+                    try {
+                        boolean success = false;
+                        try {
+                            success = save(mrl, changes);
+                        }
+                        catch(RuntimeException e) {
+                            logger.warn("Failed to save meta data for '{}': {}", mrl, e);
+                        }
+                        (success ? saved : failed).incrementAndGet();
+                        for(MetaEditorListener listener : listeners) {
+                            try {
+                                if(success) {
+                                    listener.saved(mrl);
+                                }
+                                else {
+                                    listener.saveFailed(mrl);
+                                }
+                            }
+                            catch(Exception e) {
+                                logger.warn("Meta editor listener {} threw an exception", listener, e);
+                            }
+                        }
+                    }
+                    finally {
+                        synchronized(MetaEditor.this) {
+                            saving.remove(mrl);
+                            MetaEditor.this.notifyAll();
+                        }
+                    }
+                    // Changes made while this media was being saved
+                    submit(mrl);
+                }
+            });
+        }
+        catch(RejectedExecutionException e) {
+            // The editor was released after the changes were taken, they are discarded like any other pending changes
+            synchronized(this) {
+                saving.remove(mrl);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Apply all of the changes to a media and save it, on the calling thread.
+     *
+     * @param mrl media resource locator
+     * @param changes changes
+     * @return <code>true</code> if the media was saved; <code>false</code> otherwise
+     */
+    private boolean save(String mrl, EnumMap<libvlc_meta_t, String> changes) {
+        logger.debug("save(mrl={},changes={})", mrl, changes);
+        String encodedMrl = MediaResourceLocator.encodeMrl(mrl);
+        libvlc_media_t media = MediaResourceLocator.isLocation(encodedMrl) ? libvlc.libvlc_media_new_location(instance, encodedMrl) : libvlc.libvlc_media_new_path(instance, encodedMrl);
+        if(media == null) {
+            return false;
+        }
+        try {
+            // The existing meta data must be read first, or saving would lose it
+            libvlc.libvlc_media_parse(media);
+            for(Map.Entry<libvlc_meta_t, String> entry : changes.entrySet()) {
+                if(MediaParser.isMetaAvailable(entry.getKey(), version)) {
+                    libvlc.libvlc_media_set_meta(media, entry.getKey().intValue(), entry.getValue());
+                }
+            }
+            return libvlc.libvlc_media_save_meta(media) != 0;
+        }
+        finally {
+            libvlc.libvlc_media_release(media);
+        }
+    }
+
+    /**
+     * Get the fields of a meta data value object that are not <code>null</code>.
+     *
+     * @param changes meta data value object
+     * @return changes
+     */
+    private static EnumMap<libvlc_meta_t, String> changes(MediaMetaData changes) {
+        EnumMap<libvlc_meta_t, String> result = new EnumMap<libvlc_meta_t, String>(libvlc_meta_t.class);
+        put(result, libvlc_meta_t.libvlc_meta_Title, changes.getTitle());
+        put(result, libvlc_meta_t.libvlc_meta_Artist, changes.getArtist());
+        put(result, libvlc_meta_t.libvlc_meta_Genre, changes.getGenre());
+        put(result, libvlc_meta_t.libvlc_meta_Copyright, changes.getCopyright());
+        put(result, libvlc_meta_t.libvlc_meta_Album, changes.getAlbum());
+        put(result, libvlc_meta_t.libvlc_meta_TrackNumber, changes.getTrackNumber());
+        put(result, libvlc_meta_t.libvlc_meta_Description, changes.getDescription());
+        put(result, libvlc_meta_t.libvlc_meta_Rating, changes.getRating());
+        put(result, libvlc_meta_t.libvlc_meta_Date, changes.getDate());
+        put(result, libvlc_meta_t.libvlc_meta_Setting, changes.getSetting());
+        put(result, libvlc_meta_t.libvlc_meta_URL, changes.getUrl());
+        put(result, libvlc_meta_t.libvlc_meta_Language, changes.getLanguage());
+        put(result, libvlc_meta_t.libvlc_meta_NowPlaying, changes.getNowPlaying());
+        put(result, libvlc_meta_t.libvlc_meta_Publisher, changes.getPublisher());
+        put(result, libvlc_meta_t.libvlc_meta_EncodedBy, changes.getEncodedBy());
+        put(result, libvlc_meta_t.libvlc_meta_ArtworkURL, changes.getArtworkUrl());
+        put(result, libvlc_meta_t.libvlc_meta_TrackID, changes.getTrackId());
+        put(result, libvlc_meta_t.libvlc_meta_TrackTotal, changes.getTrackTotal());
+        put(result, libvlc_meta_t.libvlc_meta_Director, changes.getDirector());
+        put(result, libvlc_meta_t.libvlc_meta_Season, changes.getSeason());
+        put(result, libvlc_meta_t.libvlc_meta_Episode, changes.getEpisode());
+        put(result, libvlc_meta_t.libvlc_meta_ShowName, changes.getShowName());
+        put(result, libvlc_meta_t.libvlc_meta_Actors, changes.getActors());
+        put(result, libvlc_meta_t.libvlc_meta_AlbumArtist, changes.getAlbumArtist());
+        put(result, libvlc_meta_t.libvlc_meta_DiscNumber, changes.getDiscNumber());
+        put(result, libvlc_meta_t.libvlc_meta_DiscTotal, changes.getDiscTotal());
+        return result;
+    }
+
+    /**
+     * Add a change.
+     *
+     * @param changes changes to add to
+     * @param metaType meta data field
+     * @param value new value, ignored if <code>null</code>
+     */
+    private static void put(EnumMap<libvlc_meta_t, String> changes, libvlc_meta_t metaType, String value) {
+        if(value != null) {
+            changes.put(metaType, value);
+        }
+    }
+}
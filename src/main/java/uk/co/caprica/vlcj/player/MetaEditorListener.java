@@ -0,0 +1,43 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+/**
+ * Specification for a component that is interested in the outcome of the saves made by a
+ * {@link MetaEditor}.
+ * <p>
+ * Notifications are sent on the editor's worker threads, implementations must not block.
+ */
+public interface MetaEditorListener {
+
+    /**
+     * The meta data changes for a media were saved.
+     *
+     * @param mrl media resource locator
+     */
+    void saved(String mrl);
+
+    /**
+     * The meta data changes for a media could not be saved.
+     *
+     * @param mrl media resource locator
+     */
+    void saveFailed(String mrl);
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_parsed_status_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_meta_t;
+
+/**
+ * Immutable snapshot of the meta data and track information of a parsed media.
+ * <p>
+ * Unlike {@link MediaMeta}, this holds no native resources and can be kept for as long as the
+ * application needs it.
+ *
+ * @see MediaParser
+ */
+public final class ParsedMedia {
+
+    /**
+     * Media resource locator.
+     */
+    private final String mrl;
+
+    /**
+     * Native parse status, may be <code>null</code>.
+     */
+    private final libvlc_media_parsed_status_e status;
+
+    /**
+     * Media duration, milliseconds.
+     */
+    private final long duration;
+
+    /**
+     * Meta data values, only those that are set.
+     */
+    private final Map<libvlc_meta_t, String> meta;
+
+    /**
+     * Track information.
+     */
+    private final List<TrackInfo> trackInfo;
+
+    /**
+     * Time taken to parse the media, nanoseconds.
+     */
+    private final long parseNanos;
+
+    /**
+     * Create a parsed media snapshot.
+     *
+     * @param mrl media resource locator
+     * @param status native parse status, may be <code>null</code>
+     * @param duration media duration, milliseconds
+     * @param meta meta data values, the map is not copied
+     * @param trackInfo track information, the list is not copied
+     * @param parseNanos time taken to parse the media, nanoseconds
+     */
+    ParsedMedia(String mrl, libvlc_media_parsed_status_e status, long duration, EnumMap<libvlc_meta_t, String> meta, List<TrackInfo> trackInfo, long parseNanos) {
+        this.mrl = mrl;
+        this.status = status;
+        this.duration = duration;
+        this.meta = Collections.unmodifiableMap(meta);
+        this.trackInfo = Collections.unmodifiableList(trackInfo);
+        this.parseNanos = parseNanos;
+    }
+
+    /**
+     * Get the media resource locator.
+     *
+     * @return mrl
+     */
+    public String mrl() {
+        return mrl;
+    }
+
+    /**
+     * Get the native parse status.
+     * <p>
+     * Prior to LibVLC 3.0.0 there is no parse status and this method returns <code>null</code>.
+     *
+     * @return status, may be <code>null</code>
+     */
+    public libvlc_media_parsed_status_e status() {
+        return status;
+    }
+
+    /**
+     * Get the media duration.
+     *
+     * @return duration, milliseconds, or -1 if not known
+     */
+    public long duration() {
+        return duration;
+    }
+
+    /**
+     * Get a meta data value.
+     *
+     * @param metaType type of meta data
+     * @return value, or <code>null</code> if not set
+     */
+    public String getMeta(libvlc_meta_t metaType) {
+        return meta.get(metaType);
+    }
+
+    /**
+     * Get all meta data values that are set.
+     *
+     * @return unmodifiable meta data values
+     */
+    public Map<libvlc_meta_t, String> meta() {
+        return meta;
+    }
+
+    /**
+     * Get the meta data as a new {@link MediaMetaData} value object.
+     *
+     * @return meta data
+     */
+    public MediaMetaData asMediaMetaData() {
+        MediaMetaData result = new MediaMetaData();
+        result.setTitle(meta.get(libvlc_meta_t.libvlc_meta_Title));
+        result.setArtist(meta.get(libvlc_meta_t.libvlc_meta_Artist));
+        result.setGenre(meta.get(libvlc_meta_t.libvlc_meta_Genre));
+        result.setCopyright(meta.get(libvlc_meta_t.libvlc_meta_Copyright));
+        result.setAlbum(meta.get(libvlc_meta_t.libvlc_meta_Album));
+        result.setTrackNumber(meta.get(libvlc_meta_t.libvlc_meta_TrackNumber));
+        result.setDescription(meta.get(libvlc_meta_t.libvlc_meta_Description));
+        result.setRating(meta.get(libvlc_meta_t.libvlc_meta_Rating));
+        result.setDate(meta.get(libvlc_meta_t.libvlc_meta_Date));
+        result.setSetting(meta.get(libvlc_meta_t.libvlc_meta_Setting));
+        result.setUrl(meta.get(libvlc_meta_t.libvlc_meta_URL));
+        result.setLanguage(meta.get(libvlc_meta_t.libvlc_meta_Language));
+        result.setNowPlaying(meta.get(libvlc_meta_t.libvlc_meta_NowPlaying));
+        result.setPublisher(meta.get(libvlc_meta_t.libvlc_meta_Publisher));
+        result.setEncodedBy(meta.get(libvlc_meta_t.libvlc_meta_EncodedBy));
+        result.setArtworkUrl(meta.get(libvlc_meta_t.libvlc_meta_ArtworkURL));
+        result.setTrackId(meta.get(libvlc_meta_t.libvlc_meta_TrackID));
+        result.setTrackTotal(meta.get(libvlc_meta_t.libvlc_meta_TrackTotal));
+        result.setDirector(meta.get(libvlc_meta_t.libvlc_meta_Director));
+        result.setSeason(meta.get(libvlc_meta_t.libvlc_meta_Season));
+        result.setEpisode(meta.get(libvlc_meta_t.libvlc_meta_Episode));
+        result.setShowName(meta.get(libvlc_meta_t.libvlc_meta_ShowName));
+        result.setActors(meta.get(libvlc_meta_t.libvlc_meta_Actors));
+        result.setAlbumArtist(meta.get(libvlc_meta_t.libvlc_meta_AlbumArtist));
+        result.setDiscNumber(meta.get(libvlc_meta_t.libvlc_meta_DiscNumber));
+        result.setDiscTotal(meta.get(libvlc_meta_t.libvlc_meta_DiscTotal));
+        return result;
+    }
+
+    /**
+     * Get the track information.
+     *
+     * @return unmodifiable track information
+     */
+    public List<TrackInfo> trackInfo() {
+        return trackInfo;
+    }
+
+    /**
+     * Get the time taken to parse the media.
+     * <p>
+     * This is zero if the snapshot did not come from a parse, for example if it was loaded from a
+     * {@link MediaInfoCache}.
+     *
+     * @return time, nanoseconds
+     */
+    public long parseNanos() {
+        return parseNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("mrl=").append(mrl).append(',');
+        sb.append("status=").append(status).append(',');
+        sb.append("duration=").append(duration).append(',');
+        sb.append("meta=").append(meta).append(',');
+        sb.append("trackInfo=").append(trackInfo).append(',');
+        sb.append("parseNanos=").append(parseNanos).append(']');
+        return sb.toString();
+    }
+}
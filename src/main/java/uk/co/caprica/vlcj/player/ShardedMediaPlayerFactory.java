@@ -0,0 +1,328 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.LibVlcFactory;
+import uk.co.caprica.vlcj.player.direct.BufferFormatCallback;
+import uk.co.caprica.vlcj.player.direct.DefaultDirectMediaPlayer;
+import uk.co.caprica.vlcj.player.direct.DirectMediaPlayer;
+import uk.co.caprica.vlcj.player.direct.RenderCallback;
+import uk.co.caprica.vlcj.player.directaudio.AudioCallback;
+import uk.co.caprica.vlcj.player.directaudio.DefaultDirectAudioPlayer;
+import uk.co.caprica.vlcj.player.directaudio.DirectAudioPlayer;
+import uk.co.caprica.vlcj.player.embedded.DefaultEmbeddedMediaPlayer;
+import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
+import uk.co.caprica.vlcj.player.embedded.FullScreenStrategy;
+import uk.co.caprica.vlcj.player.headless.DefaultHeadlessMediaPlayer;
+import uk.co.caprica.vlcj.player.headless.HeadlessMediaPlayer;
+
+/**
+ * Factory for media player instances that spreads the media players over a number of separate
+ * libvlc instances ("shards").
+ * <p>
+ * All media players created by a {@link MediaPlayerFactory} share a single libvlc instance, and
+ * so share any instance-wide locks and resources inside the native library. On hosts with many
+ * cores running many media players at once, that single instance can become a bottleneck.
+ * <p>
+ * This factory creates a fixed number of {@link MediaPlayerFactory} instances with the same
+ * libvlc arguments, and assigns each new media player to one of them according to a
+ * {@link Policy}. Each media player is configured by its shard in the same way as if it had been
+ * created by that {@link MediaPlayerFactory} directly.
+ * <p>
+ * The number of live (not yet released) media players on each shard is tracked and is available
+ * via {@link #getShardLoads()}. Other factory features (e.g. media discovery, the native log or
+ * the media manager) can be used via the individual shards, see {@link #shard(int)}.
+ * <p>
+ * You should release the factory when your application terminates to properly clean up native
+ * resources, this releases every shard.
+ */
+public class ShardedMediaPlayerFactory {
+
+    /**
+     * Log.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ShardedMediaPlayerFactory.class);
+
+    /**
+     * Enumeration of shard assignment policies.
+     */
+    public enum Policy {
+
+        /**
+         * Assign media players to each shard in turn.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Assign media players to the shard with the fewest live media players.
+         */
+        LEAST_LOADED
+    }
+
+    /**
+     * Shards.
+     */
+    private final MediaPlayerFactory[] shards;
+
+    /**
+     * Shard assignment policy.
+     */
+    private final Policy policy;
+
+    /**
+     * Number of live media players on each shard.
+     */
+    private final AtomicIntegerArray loads;
+
+    /**
+     * Next shard for round-robin assignment.
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Create a new sharded media player factory.
+     *
+     * @param shardCount number of libvlc instances
+     * @param policy shard assignment policy
+     * @param libvlcArgs initialisation arguments to pass to each libvlc instance
+     */
+    public ShardedMediaPlayerFactory(int shardCount, Policy policy, String... libvlcArgs) {
+        this(LibVlcFactory.factory().atLeast("2.1.0").create(), shardCount, policy, libvlcArgs);
+    }
+
+    /**
+     * Create a new sharded media player factory.
+     * <p>
+     * Use {@link LibVlcFactory} to get a reference to the native library. If a synchronised
+     * native library is used, prefer {@link LibVlcFactory#synchronisePerObject()} so that the
+     * shards do not contend for a single global lock.
+     *
+     * @param libvlc interface to the native library
+     * @param shardCount number of libvlc instances
+     * @param policy shard assignment policy
+     * @param libvlcArgs initialisation arguments to pass to each libvlc instance
+     */
+    public ShardedMediaPlayerFactory(LibVlc libvlc, int shardCount, Policy policy, String... libvlcArgs) {
+        logger.debug("ShardedMediaPlayerFactory(libvlc={},shardCount={},policy={},libvlcArgs={})", libvlc, shardCount, policy, Arrays.toString(libvlcArgs));
+        if(shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        this.policy = policy;
+        this.shards = new MediaPlayerFactory[shardCount];
+        this.loads = new AtomicIntegerArray(shardCount);
+        try {
+            for(int i = 0; i < shardCount; i++) {
+                shards[i] = new MediaPlayerFactory(libvlc, libvlcArgs);
+            }
+        }
+        catch(RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Release the native resources associated with every shard.
+     * <p>
+     * All media players created by this factory must have been released first.
+     */
+    public void release() {
+        logger.debug("release()");
+        for(MediaPlayerFactory shard : shards) {
+            if(shard != null) {
+                shard.release();
+            }
+        }
+    }
+
+    /**
+     * Get the number of shards.
+     *
+     * @return number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Get a shard.
+     *
+     * @param index shard index
+     * @return media player factory for the shard
+     */
+    public MediaPlayerFactory shard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * Get the number of live media players on each shard.
+     *
+     * @return number of media players, indexed by shard
+     */
+    public int[] getShardLoads() {
+        int[] result = new int[loads.length()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = loads.get(i);
+        }
+        return result;
+    }
+
+    // === Media Player =========================================================
+
+    /**
+     * Create a new embedded media player.
+     *
+     * @param fullScreenStrategy full screen implementation, may be <code>null</code>
+     * @return media player instance
+     */
+    public EmbeddedMediaPlayer newEmbeddedMediaPlayer(FullScreenStrategy fullScreenStrategy) {
+        logger.debug("newEmbeddedMediaPlayer(fullScreenStrategy={})", fullScreenStrategy);
+        final int index = assign();
+        try {
+            MediaPlayerFactory shard = shards[index];
+            return shard.configure(new DefaultEmbeddedMediaPlayer(shard.libvlc, shard.instance, fullScreenStrategy) {
+                @Override
+                protected void onAfterRelease() {
+                    super.onAfterRelease();
+                    loads.decrementAndGet(index);
+                }
+            });
+        }
+        catch(RuntimeException e) {
+            loads.decrementAndGet(index);
+            throw e;
+        }
+    }
+
+    /**
+     * Create a new direct video rendering media player.
+     *
+     * @param bufferFormatCallback callback to set the desired buffer format
+     * @param renderCallback callback to receive the video frame data
+     * @return media player instance
+     */
+    public DirectMediaPlayer newDirectMediaPlayer(BufferFormatCallback bufferFormatCallback, RenderCallback renderCallback) {
+        logger.debug("newDirectMediaPlayer(formatCallback={},renderCallback={})", bufferFormatCallback, renderCallback);
+        final int index = assign();
+        try {
+            MediaPlayerFactory shard = shards[index];
+            return shard.configure(new DefaultDirectMediaPlayer(shard.libvlc, shard.instance, bufferFormatCallback, renderCallback) {
+                @Override
+                protected void onAfterRelease() {
+                    super.onAfterRelease();
+                    loads.decrementAndGet(index);
+                }
+            });
+        }
+        catch(RuntimeException e) {
+            loads.decrementAndGet(index);
+            throw e;
+        }
+    }
+
+    /**
+     * Create a new direct audio media player.
+     *
+     * @param format decoded audio format
+     * @param rate decoded audio sample rate
+     * @param channels decoded audio channels
+     * @param audioCallback callback
+     * @return media player instance
+     */
+    public DirectAudioPlayer newDirectAudioPlayer(String format, int rate, int channels, AudioCallback audioCallback) {
+        logger.debug("newDirectAudioPlayer(format={},rate={},channels={},audioCallback={}", format, rate, channels, audioCallback);
+        final int index = assign();
+        try {
+            MediaPlayerFactory shard = shards[index];
+            return shard.configure(new DefaultDirectAudioPlayer(shard.libvlc, shard.instance, format, rate, channels, audioCallback) {
+                @Override
+                protected void onAfterRelease() {
+                    super.onAfterRelease();
+                    loads.decrementAndGet(index);
+                }
+            });
+        }
+        catch(RuntimeException e) {
+            loads.decrementAndGet(index);
+            throw e;
+        }
+    }
+
+    /**
+     * Create a new headless media player.
+     *
+     * @return media player instance
+     */
+    public HeadlessMediaPlayer newHeadlessMediaPlayer() {
+        logger.debug("newHeadlessMediaPlayer()");
+        final int index = assign();
+        try {
+            MediaPlayerFactory shard = shards[index];
+            return shard.configure(new DefaultHeadlessMediaPlayer(shard.libvlc, shard.instance) {
+                @Override
+                protected void onAfterRelease() {
+                    super.onAfterRelease();
+                    loads.decrementAndGet(index);
+                }
+            });
+        }
+        catch(RuntimeException e) {
+            loads.decrementAndGet(index);
+            throw e;
+        }
+    }
+
+    /**
+     * Choose the shard for a new media player and count the media player against it.
+     *
+     * @return shard index
+     */
+    private int assign() {
+        int index;
+        switch(policy) {
+            case LEAST_LOADED:
+                index = 0;
+                int least = loads.get(0);
+                for(int i = 1; i < loads.length() && least > 0; i++) {
+                    int load = loads.get(i);
+                    if(load < least) {
+                        least = load;
+                        index = i;
+                    }
+                }
+                break;
+            case ROUND_ROBIN:
+            default:
+                index = (next.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+                break;
+        }
+        loads.incrementAndGet(index);
+        logger.debug("index={}", index);
+        return index;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_e;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+
+/**
+ * Cache of the track information of native media.
+ * <p>
+ * Building track information means fetching the native track structures and copying every field,
+ * and with LibVLC 3.0.0 and later asking for a codec description for every track, so a user
+ * interface that asks for the tracks many times a second makes a lot of needless native calls.
+ * <p>
+ * The cache holds the track information for all track types of each media, unmodifiable, and
+ * filters it by type on the way out. Everything in the cache is discarded whenever a native event
+ * that may change the tracks is received - elementary streams being added, removed or selected,
+ * the media being parsed or getting sub-items, or the media player changing media. Discarding
+ * everything rather than a single media keeps the event handling trivial, the cache only ever
+ * holds the current media and its sub-items.
+ * <p>
+ * This class is thread-safe.
+ */
+final class TrackInfoCache {
+
+    /**
+     * Cached track information, by native media.
+     */
+    private final Map<libvlc_media_t, List<TrackInfo>> cache = new HashMap<libvlc_media_t, List<TrackInfo>>();
+
+    /**
+     * Incremented whenever the cache is cleared.
+     * <p>
+     * Track information read from the native media is only cached if the cache was not cleared
+     * while it was being read.
+     */
+    private int generation;
+
+    /**
+     * Test whether or not a native event may change the tracks of a media.
+     *
+     * @param eventType native event type
+     * @return <code>true</code> if the event invalidates cached track information; <code>false</code> otherwise
+     */
+    static boolean invalidates(int eventType) {
+        return eventType == libvlc_event_e.libvlc_MediaPlayerESAdded.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaPlayerESDeleted.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaPlayerESSelected.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaParsedChanged.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaParsedStatus.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaSubItemAdded.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaSubItemTreeAdded.intValue() ||
+               eventType == libvlc_event_e.libvlc_MediaPlayerMediaChanged.intValue();
+    }
+
+    /**
+     * Get the current generation, to pass to {@link #put(libvlc_media_t, List, int)}.
+     *
+     * @return generation
+     */
+    synchronized int generation() {
+        return generation;
+    }
+
+    /**
+     * Get cached track information.
+     *
+     * @param media native media
+     * @param types track types to get, or <code>null</code> for all
+     * @return new list of track information, or <code>null</code> if nothing is cached for the media
+     */
+    List<TrackInfo> get(libvlc_media_t media, Set<TrackType> types) {
+        List<TrackInfo> all;
+        synchronized(this) {
+            all = cache.get(media);
+        }
+        return all != null ? filter(all, types) : null;
+    }
+
+    /**
+     * Cache track information, unless the cache was cleared after the generation was taken.
+     *
+     * @param media native media
+     * @param trackInfo track information for all track types
+     * @param generation generation taken before the track information was read
+     */
+    synchronized void put(libvlc_media_t media, List<TrackInfo> trackInfo, int generation) {
+        if(this.generation == generation) {
+            cache.put(media, Collections.unmodifiableList(new ArrayList<TrackInfo>(trackInfo)));
+        }
+    }
+
+    /**
+     * Discard all cached track information.
+     */
+    synchronized void clear() {
+        generation++;
+        cache.clear();
+    }
+
+    /**
+     * Filter track information by track type.
+     *
+     * @param trackInfo track information
+     * @param types track types to keep, or <code>null</code> for all
+     * @return new list of track information
+     */
+    static List<TrackInfo> filter(List<TrackInfo> trackInfo, Set<TrackType> types) {
+        List<TrackInfo> result = new ArrayList<TrackInfo>(trackInfo.size());
+        for(TrackInfo info : trackInfo) {
+            if(types == null || types.contains(trackType(info))) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the type of a track.
+     *
+     * @param trackInfo track information
+     * @return track type
+     */
+    private static TrackType trackType(TrackInfo trackInfo) {
+        if(trackInfo instanceof VideoTrackInfo) {
+            return TrackType.VIDEO;
+        }
+        else if(trackInfo instanceof AudioTrackInfo) {
+            return TrackType.AUDIO;
+        }
+        else if(trackInfo instanceof TextTrackInfo) {
+            return TrackType.TEXT;
+        }
+        else {
+            return TrackType.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_audio_track_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_track_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_subtitle_track_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_track_type_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_video_track_t;
+import uk.co.caprica.vlcj.version.LibVlcCapabilities;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
+
+/**
+ * Creates track information from a native media instance.
+ * <p>
+ * This is shared by the media player and by components that work with media without a media
+ * player.
+ */
+final class TrackInfoFactory {
+
+    /**
+     * Log.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TrackInfoFactory.class);
+
+    /**
+     * Prevent direct instantiation by others.
+     */
+    private TrackInfoFactory() {
+    }
+
+    /**
+     * Get track information for a media.
+     * <p>
+     * The media must have been parsed or played.
+     *
+     * @param libvlc native library instance
+     * @param capabilities native library capabilities
+     * @param media native media instance
+     * @param types set of desired track types, or <code>null</code> for all types
+     * @return track information
+     */
+    static List<TrackInfo> trackInfo(LibVlc libvlc, LibVlcCapabilities capabilities, libvlc_media_t media, Set<TrackType> types) {
+        PointerByReference tracksPointer = new PointerByReference();
+        int numberOfTracks = libvlc.libvlc_media_tracks_get(media, tracksPointer);
+        logger.debug("numberOfTracks={}", numberOfTracks);
+        List<TrackInfo> result = new ArrayList<TrackInfo>(numberOfTracks);
+        if(numberOfTracks > 0) {
+            Pointer[] tracks = tracksPointer.getValue().getPointerArray(0, numberOfTracks);
+            for(Pointer track : tracks) {
+                libvlc_media_track_t trackInfo = new libvlc_media_track_t(track);
+                switch(libvlc_track_type_t.valueOf(trackInfo.i_type)) {
+                    case libvlc_track_unknown:
+                        if(types == null || types.contains(TrackType.UNKNOWN)) {
+                            result.add(new UnknownTrackInfo(
+                                trackInfo.i_codec,
+                                trackInfo.i_original_fourcc,
+                                trackInfo.i_id,
+                                trackInfo.i_profile,
+                                trackInfo.i_level,
+                                trackInfo.i_bitrate,
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
+                                codecDescription(libvlc, capabilities, libvlc_track_type_t.libvlc_track_unknown, trackInfo.i_codec)
+                            ));
+                        }
+                        break;
+
+                    case libvlc_track_video:
+                        if(types == null || types.contains(TrackType.VIDEO)) {
+                            trackInfo.u.setType(libvlc_video_track_t.class);
+                            trackInfo.u.read();
+                            result.add(new VideoTrackInfo(
+                                trackInfo.i_codec,
+                                trackInfo.i_original_fourcc,
+                                trackInfo.i_id,
+                                trackInfo.i_profile,
+                                trackInfo.i_level,
+                                trackInfo.i_bitrate,
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
+                                trackInfo.u.video.i_width,
+                                trackInfo.u.video.i_height,
+                                trackInfo.u.video.i_sar_num,
+                                trackInfo.u.video.i_sar_den,
+                                trackInfo.u.video.i_frame_rate_num,
+                                trackInfo.u.video.i_frame_rate_den,
+                                codecDescription(libvlc, capabilities, libvlc_track_type_t.libvlc_track_video, trackInfo.i_codec)
+                            ));
+                        }
+                        break;
+
+                    case libvlc_track_audio:
+                        if(types == null || types.contains(TrackType.AUDIO)) {
+                            trackInfo.u.setType(libvlc_audio_track_t.class);
+                            trackInfo.u.read();
+                            result.add(new AudioTrackInfo(
+                                trackInfo.i_codec,
+                                trackInfo.i_original_fourcc,
+                                trackInfo.i_id,
+                                trackInfo.i_profile,
+                                trackInfo.i_level,
+                                trackInfo.i_bitrate,
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
+                                trackInfo.u.audio.i_channels,
+                                trackInfo.u.audio.i_rate,
+                                codecDescription(libvlc, capabilities, libvlc_track_type_t.libvlc_track_audio, trackInfo.i_codec)
+                            ));
+                        }
+                        break;
+
+                    case libvlc_track_text:
+                        if(types == null || types.contains(TrackType.TEXT)) {
+                            trackInfo.u.setType(libvlc_subtitle_track_t.class);
+                            trackInfo.u.read();
+                            result.add(new TextTrackInfo(
+                                trackInfo.i_codec,
+                                trackInfo.i_original_fourcc,
+                                trackInfo.i_id,
+                                trackInfo.i_profile,
+                                trackInfo.i_level,
+                                trackInfo.i_bitrate,
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_language),
+                                NativeString.copyNativeString(libvlc, trackInfo.psz_description),
+                                NativeString.copyNativeString(libvlc, trackInfo.u.subtitle.psz_encoding),
+                                codecDescription(libvlc, capabilities, libvlc_track_type_t.libvlc_track_text, trackInfo.i_codec)
+                            ));
+                        }
+                        break;
+                }
+            }
+            libvlc.libvlc_media_tracks_release(tracksPointer.getValue(), numberOfTracks); // FIXME maybe should copy the nativestring here?
+        }
+        return result;
+    }
+
+    /**
+     * Get a codec description, if the native library supports it.
+     *
+     * @param libvlc native library instance
+     * @param capabilities native library capabilities
+     * @param type track type
+     * @param codec codec
+     * @return codec description, or an empty string if not available
+     */
+    private static String codecDescription(LibVlc libvlc, LibVlcCapabilities capabilities, libvlc_track_type_t type, int codec) {
+        if(capabilities.isLibVlc3Available()) {
+            return libvlc.libvlc_media_get_codec_description(type.intValue(), codec);
+        }
+        else {
+            return "";
+        }
+    }
+}
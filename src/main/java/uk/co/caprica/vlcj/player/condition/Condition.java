@@ -19,7 +19,17 @@
 
 package uk.co.caprica.vlcj.player.condition;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -80,6 +90,14 @@ import uk.co.caprica.vlcj.player.MediaPlayerEventListener;
  *        // Whatever...
  *    }
  * </pre>
+ * A condition can instead be waited for without blocking the calling thread by
+ * using {@link #submit()} or {@link #submit(long, TimeUnit)}, which return a
+ * {@link ConditionFuture} immediately. In this case {@link #onAfter(Object)} is
+ * invoked on the thread that completes the condition rather than the thread that
+ * waits for it.
+ * <p>
+ * Whichever way the condition is waited for, the temporary event listener is
+ * removed as soon as the condition completes, times out or is cancelled.
  *
  * @param <T> type of result that may be returned when the desired condition arises
  *
@@ -113,6 +131,13 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
      */
     private final AtomicBoolean finished = new AtomicBoolean();
 
+    /**
+     * Callbacks to notify when the condition completes.
+     * <p>
+     * Set to <code>null</code> once the callbacks have been notified.
+     */
+    private List<ConditionCallback<? super T>> callbacks = new ArrayList<ConditionCallback<? super T>>(1);
+
     /**
      * Associated media player.
      */
@@ -124,6 +149,16 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
      */
     private boolean used;
 
+    /**
+     * Flag whether or not this condition is being waited for asynchronously.
+     */
+    private volatile boolean asynchronous;
+
+    /**
+     * Scheduled task used to expire this condition, may be <code>null</code>.
+     */
+    private volatile ScheduledFuture<?> timeoutTask;
+
     /**
      * Create a new waiter.
      *
@@ -139,43 +174,82 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
      * Wait for the required condition to occur.
      *
      * @return optional result
-     * @throws InterruptedException if the condition was interrupted while waiting
+     * @throws InterruptedException if the condition was interrupted while waiting, the temporary event listener is removed
      * @throws UnexpectedErrorConditionException if an unexpected error occurred
      * @throws UnexpectedFinishedConditionException if the condition finished unexpectedly
      */
     public final T await() throws InterruptedException, UnexpectedErrorConditionException, UnexpectedFinishedConditionException {
         logger.debug("await()");
-        if(!used) {
-            used = true;
-            // Invoke the template method before waiting
-            if(onBefore()) {
-                // Wait for the completion latch to be triggered...
-                completionLatch.await();
-                // Depending on the result status...
-                switch(resultStatus.get()) {
-                    case NORMAL:
-                        // ...normal processing, first invoke the template method after finished
-                        onAfter(this.result.get());
-                        // ...then return the result
-                        return result.get();
-                    case ERROR:
-                        // ...an error occurred
-                        throw new UnexpectedErrorConditionException();
-                    case FINISHED:
-                        // ...the media finished unexpectedly
-                        throw new UnexpectedFinishedConditionException();
-                    default:
-                        // Can not happen
-                        throw new IllegalStateException("Unexpected result status: " + resultStatus.get());
-                }
-            }
-            else {
-                throw new BeforeConditionAbortedException();
+        start(0, null);
+        // Wait for the completion latch to be triggered...
+        try {
+            completionLatch.await();
+        }
+        catch(InterruptedException e) {
+            // Stop listening, so the waiter does not leak a listener on the media player
+            release(ResultStatus.CANCELLED, null);
+            throw e;
+        }
+        return outcome();
+    }
+
+    /**
+     * Wait, for at most the given time, for the required condition to occur.
+     * <p>
+     * If the condition does not occur in time, the temporary event listener is
+     * removed and a {@link ConditionTimeoutException} is thrown.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout value
+     * @return optional result
+     * @throws InterruptedException if the condition was interrupted while waiting
+     * @throws UnexpectedErrorConditionException if an unexpected error occurred
+     * @throws UnexpectedFinishedConditionException if the condition finished unexpectedly
+     * @throws ConditionTimeoutException if the condition did not occur in time
+     */
+    public final T await(long timeout, TimeUnit unit) throws InterruptedException, UnexpectedErrorConditionException, UnexpectedFinishedConditionException, ConditionTimeoutException {
+        logger.debug("await(timeout={},unit={})", timeout, unit);
+        start(0, null);
+        try {
+            if(!completionLatch.await(timeout, unit)) {
+                // Only takes effect if the condition did not complete in the meantime
+                release(ResultStatus.TIMEOUT, null);
             }
         }
-        else {
-            throw new IllegalStateException("Can not re-use Condition instances, create a new instance instead");
+        catch(InterruptedException e) {
+            // Stop listening, so the waiter does not leak a listener on the media player
+            release(ResultStatus.CANCELLED, null);
+            throw e;
         }
+        return outcome();
+    }
+
+    /**
+     * Start waiting for the required condition to occur, without blocking.
+     *
+     * @return future to retrieve the optional result, or cancel waiting
+     */
+    public final ConditionFuture<T> submit() {
+        logger.debug("submit()");
+        return submit(0, null);
+    }
+
+    /**
+     * Start waiting, for at most the given time, for the required condition to
+     * occur, without blocking.
+     * <p>
+     * If the condition does not occur in time, the temporary event listener is
+     * removed and the future fails with a {@link ConditionTimeoutException}.
+     *
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     * @return future to retrieve the optional result, or cancel waiting
+     */
+    public final ConditionFuture<T> submit(long timeout, TimeUnit unit) {
+        logger.debug("submit(timeout={},unit={})", timeout, unit);
+        asynchronous = true;
+        start(timeout, unit);
+        return new ConditionFutureImpl();
     }
 
     /**
@@ -197,16 +271,7 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
      */
     protected final void ready(T result) {
         logger.debug("ready(result={})", result);
-        if(!finished.getAndSet(true)) {
-            logger.debug("Finished");
-            // Store the result
-            this.result.set(result);
-            // Finish waiting and release the waiter
-            release(ResultStatus.NORMAL);
-        }
-        else {
-            logger.debug("Already finished");
-        }
+        release(ResultStatus.NORMAL, result);
     }
 
     /**
@@ -216,7 +281,7 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
     protected final void error() {
         logger.debug("error()");
         // Finish waiting...
-        release(ResultStatus.ERROR);
+        release(ResultStatus.ERROR, null);
     }
 
     /**
@@ -226,7 +291,7 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
     protected final void finished() {
         logger.debug("finished()");
         // Finish waiting...
-        release(ResultStatus.FINISHED);
+        release(ResultStatus.FINISHED, null);
     }
 
     /**
@@ -250,18 +315,153 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
         // Default implementation does nothing
     }
 
+    /**
+     * Begin waiting for the condition.
+     *
+     * @param timeout maximum time to wait, zero or less to wait indefinitely
+     * @param unit unit of the timeout value
+     */
+    private void start(long timeout, TimeUnit unit) {
+        if(!used) {
+            used = true;
+            // Invoke the template method before waiting
+            boolean proceed = false;
+            try {
+                proceed = onBefore();
+            }
+            finally {
+                if(!proceed) {
+                    release(ResultStatus.ABORTED, null);
+                }
+            }
+            if(timeout > 0 && !finished.get()) {
+                timeoutTask = ConditionTimer.INSTANCE.schedule(new TimeoutRunnable(), timeout, unit);
+            }
+        }
+        else {
+            throw new IllegalStateException("Can not re-use Condition instances, create a new instance instead");
+        }
+    }
+
+    /**
+     * Get the outcome of a completed condition.
+     *
+     * @return optional result
+     * @throws RuntimeException if the condition did not complete normally
+     */
+    private T outcome() {
+        // Depending on the result status...
+        if(resultStatus.get() == ResultStatus.NORMAL) {
+            // ...normal processing, first invoke the template method after finished
+            if(!asynchronous) {
+                onAfter(this.result.get());
+            }
+            // ...then return the result
+            return result.get();
+        }
+        else {
+            throw failure();
+        }
+    }
+
+    /**
+     * Create the exception corresponding to the result status of a condition that
+     * did not complete normally.
+     *
+     * @return exception
+     */
+    private RuntimeException failure() {
+        switch(resultStatus.get()) {
+            case ERROR:
+                // ...an error occurred
+                return new UnexpectedErrorConditionException();
+            case FINISHED:
+                // ...the media finished unexpectedly
+                return new UnexpectedFinishedConditionException();
+            case ABORTED:
+                // ...the before template method aborted
+                return new BeforeConditionAbortedException();
+            case TIMEOUT:
+                // ...the condition took too long
+                return new ConditionTimeoutException();
+            case CANCELLED:
+                // ...the application gave up waiting
+                return new CancellationException();
+            default:
+                // Can not happen
+                return new IllegalStateException("Unexpected result status: " + resultStatus.get());
+        }
+    }
+
     /**
      * Release the waiter.
+     * <p>
+     * Only the first invocation has any effect.
      *
      * @param resultStatus result status indicator
+     * @param result optional result
      */
-    private void release(ResultStatus resultStatus) {
-        // Stop listening for media player events
-        mediaPlayer.removeMediaPlayerEventListener(this);
-        // Store the result status
-        this.resultStatus.set(resultStatus);
-        // Trigger the completion latch to release the waiter
-        completionLatch.countDown();
+    private void release(ResultStatus resultStatus, T result) {
+        if(!finished.getAndSet(true)) {
+            logger.debug("Finished");
+            // Stop listening for media player events
+            mediaPlayer.removeMediaPlayerEventListener(this);
+            ScheduledFuture<?> task = timeoutTask;
+            if(task != null) {
+                task.cancel(false);
+            }
+            // Store the result and the result status
+            this.result.set(result);
+            this.resultStatus.set(resultStatus);
+            // If nobody is blocked waiting, invoke the template method after finished here
+            if(asynchronous && resultStatus == ResultStatus.NORMAL) {
+                try {
+                    onAfter(result);
+                }
+                catch(RuntimeException e) {
+                    logger.warn("Condition onAfter threw an exception {}", e.getMessage());
+                }
+            }
+            // Trigger the completion latch to release the waiter
+            completionLatch.countDown();
+            notifyCallbacks();
+        }
+        else {
+            logger.debug("Already finished");
+        }
+    }
+
+    /**
+     * Notify all pending callbacks of the outcome.
+     */
+    private void notifyCallbacks() {
+        List<ConditionCallback<? super T>> pending;
+        synchronized(this) {
+            pending = callbacks;
+            callbacks = null;
+        }
+        for(ConditionCallback<? super T> callback : pending) {
+            notifyCallback(callback);
+        }
+    }
+
+    /**
+     * Notify a callback of the outcome.
+     *
+     * @param callback callback to notify
+     */
+    private void notifyCallback(ConditionCallback<? super T> callback) {
+        try {
+            if(resultStatus.get() == ResultStatus.NORMAL) {
+                callback.completed(result.get());
+            }
+            else {
+                callback.failed(failure());
+            }
+        }
+        catch(Exception e) {
+            logger.warn("Condition callback {} threw an exception {}", callback, e.getMessage());
+        }
     }
 
     /**
@@ -282,6 +482,124 @@ public abstract class Condition<T> extends MediaPlayerEventAdapter {
         /**
          * The media finished unexpectedly.
          */
-        FINISHED
+        FINISHED,
+
+        /**
+         * The before template method aborted.
+         */
+        ABORTED,
+
+        /**
+         * The condition did not occur in time.
+         */
+        TIMEOUT,
+
+        /**
+         * Waiting for the condition was cancelled.
+         */
+        CANCELLED
+    }
+
+    /**
+     * Future implementation for conditions waited for asynchronously.
+     */
+    private final class ConditionFutureImpl implements ConditionFuture<T> {
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            logger.debug("cancel(mayInterruptIfRunning={})", mayInterruptIfRunning);
+            release(ResultStatus.CANCELLED, null);
+            return isCancelled();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return resultStatus.get() == ResultStatus.CANCELLED;
+        }
+
+        @Override
+        public boolean isDone() {
+            return completionLatch.getCount() == 0;
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            completionLatch.await();
+            return futureOutcome();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if(completionLatch.await(timeout, unit)) {
+                return futureOutcome();
+            }
+            else {
+                throw new TimeoutException();
+            }
+        }
+
+        @Override
+        public void addCallback(ConditionCallback<? super T> callback) {
+            if(callback != null) {
+                synchronized(Condition.this) {
+                    if(callbacks != null) {
+                        callbacks.add(callback);
+                        return;
+                    }
+                }
+                notifyCallback(callback);
+            }
+            else {
+                throw new IllegalArgumentException("callback can not be null");
+            }
+        }
+
+        /**
+         * Get the outcome of the completed condition, following the {@link java.util.concurrent.Future}
+         * contract for failures.
+         *
+         * @return optional result
+         * @throws ExecutionException if the condition did not complete normally
+         */
+        private T futureOutcome() throws ExecutionException {
+            try {
+                return outcome();
+            }
+            catch(CancellationException e) {
+                throw e;
+            }
+            catch(RuntimeException e) {
+                throw new ExecutionException(e);
+            }
+        }
+    }
+
+    /**
+     * Task to expire the condition if it has not completed in time.
+     */
+    private final class TimeoutRunnable implements Runnable {
+        @Override
+        public void run() {
+            logger.debug("Condition timed out");
+            release(ResultStatus.TIMEOUT, null);
+        }
+    }
+
+    /**
+     * Lazily created shared timer used to expire conditions.
+     */
+    private static final class ConditionTimer {
+
+        /**
+         * Timer service, a single daemon thread is sufficient since the tasks are trivial.
+         */
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-condition-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.condition;
+
+/**
+ * Specification for a component that is notified when an asynchronous media
+ * player condition completes.
+ * <p>
+ * Exactly one of the two methods will be invoked, exactly once.
+ * <p>
+ * The notification is delivered on whichever thread completed the condition -
+ * usually the media player event notification thread, but possibly the condition
+ * timer thread (on timeout) or an application thread (on cancellation). If the
+ * condition had already completed when the callback was added, the callback is
+ * invoked immediately on the calling thread.
+ * <p>
+ * As with other media player event listeners, implementations must not block and
+ * must not call back into the native media player.
+ *
+ * @param <T> type of result
+ */
+public interface ConditionCallback<T> {
+
+    /**
+     * The condition completed normally.
+     *
+     * @param result optional result, may be <code>null</code>
+     */
+    void completed(T result);
+
+    /**
+     * The condition did not complete normally.
+     * <p>
+     * The cause will be one of {@link UnexpectedErrorConditionException},
+     * {@link UnexpectedFinishedConditionException}, {@link BeforeConditionAbortedException},
+     * {@link ConditionTimeoutException} or {@link java.util.concurrent.CancellationException}.
+     *
+     * @param cause reason for the failure
+     */
+    void failed(RuntimeException cause);
+}
@@ -0,0 +1,49 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.condition;
+
+import java.util.concurrent.Future;
+
+/**
+ * Handle to a media player condition that is being waited for asynchronously.
+ * <p>
+ * This is the non-blocking counterpart to {@link Condition#await()}, see
+ * {@link Condition#submit()}.
+ * <p>
+ * If the condition did not complete normally, {@link #get()} throws an
+ * {@link java.util.concurrent.ExecutionException} whose cause is the same exception
+ * that {@link Condition#await()} would have thrown.
+ * <p>
+ * Cancelling the future removes the condition's temporary media player event
+ * listener, the media player itself is not affected.
+ *
+ * @param <T> type of result
+ */
+public interface ConditionFuture<T> extends Future<T> {
+
+    /**
+     * Add a callback to be notified when the condition completes.
+     * <p>
+     * If the condition has already completed, the callback is invoked immediately.
+     *
+     * @param callback callback to add
+     */
+    void addCallback(ConditionCallback<? super T> callback);
+}
@@ -6,5 +6,8 @@
  * <p>
  * Most applications are not expected to use this synchronous approach, but
  * there are some use-cases where it can be convenient.
+ * <p>
+ * Conditions may also be waited for without blocking, via a {@link uk.co.caprica.vlcj.player.condition.ConditionFuture},
+ * with an optional timeout.
  */
 package uk.co.caprica.vlcj.player.condition;
@@ -0,0 +1,447 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.direct;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.IntBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jna.Memory;
+
+/**
+ * A render call-back that captures video frames straight from the native video buffers of a
+ * direct media player.
+ * <p>
+ * {@link uk.co.caprica.vlcj.player.MediaPlayer#getSnapshot()} asks the native library to encode
+ * a PNG file, waits for it to be written and then decodes it again. This class instead copies the
+ * pixels of a frame directly into a {@link BufferedImage}, which is orders of magnitude cheaper
+ * and so fast enough to capture frames many times a second.
+ * <p>
+ * The media player must be sending pixels in the RV32 format, see
+ * {@link uk.co.caprica.vlcj.player.direct.format.RV32BufferFormat}.
+ * <p>
+ * Frames can be captured in three ways:
+ * <ul>
+ * <li>{@link #grab(BufferedImage)} copies the most recently rendered frame;</li>
+ * <li>{@link #nextFrame(BufferedImage, long, TimeUnit)} waits for the next frame and copies it;</li>
+ * <li>{@link #startCapture(long, TimeUnit, int, FrameGrabberListener)} copies frames at a regular
+ * interval into a small pool of reused images and hands them to a listener on a separate thread,
+ * dropping frames rather than falling behind if the listener is too slow.</li>
+ * </ul>
+ * Every render call-back is passed on to an optional delegate, so a frame grabber can be added to a
+ * direct media player that already renders its video somewhere.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   FrameGrabber frameGrabber = new FrameGrabber();
+ *   DirectMediaPlayer mediaPlayer = mediaPlayerFactory.newDirectMediaPlayer(new BufferFormatCallback() {
+ *       public BufferFormat getBufferFormat(int sourceWidth, int sourceHeight) {
+ *           return new RV32BufferFormat(sourceWidth, sourceHeight);
+ *       }
+ *   }, frameGrabber);
+ *   mediaPlayer.playMedia(mrl);
+ *
+ *   ...
+ *
+ *   BufferedImage image = frameGrabber.grab(null);
+ * </pre>
+ */
+public class FrameGrabber implements RenderCallback {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(FrameGrabber.class);
+
+    /**
+     * Pixel format required to capture frames.
+     */
+    private static final String RV32 = "RV32";
+
+    /**
+     * Render call-back to pass every frame on to, may be <code>null</code>.
+     */
+    private final RenderCallback delegate;
+
+    /**
+     * Media player the most recent frame came from.
+     */
+    private volatile DirectMediaPlayer mediaPlayer;
+
+    /**
+     * Format of the most recent frame.
+     */
+    private volatile BufferFormat bufferFormat;
+
+    /**
+     * Image waiting to receive the next frame, <code>null</code> if nobody is waiting.
+     * <p>
+     * Guarded by this object's monitor.
+     */
+    private BufferedImage nextFrameTarget;
+
+    /**
+     * Set when the next frame has been copied into the waiting image.
+     * <p>
+     * Guarded by this object's monitor.
+     */
+    private boolean nextFrameReady;
+
+    /**
+     * Current periodic capture, <code>null</code> if not capturing.
+     */
+    private volatile Capture capture;
+
+    /**
+     * Number of frames captured periodically.
+     */
+    private final AtomicLong capturedCount = new AtomicLong();
+
+    /**
+     * Number of frames dropped by periodic capture because no image was free.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * Create a frame grabber that does not render the video anywhere else.
+     */
+    public FrameGrabber() {
+        this(null);
+    }
+
+    /**
+     * Create a frame grabber.
+     *
+     * @param delegate render call-back to pass every frame on to, may be <code>null</code>
+     */
+    public FrameGrabber(RenderCallback delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void display(DirectMediaPlayer mediaPlayer, Memory[] nativeBuffers, BufferFormat bufferFormat) {
+        this.mediaPlayer = mediaPlayer;
+        this.bufferFormat = bufferFormat;
+        if(delegate != null) {
+            delegate.display(mediaPlayer, nativeBuffers, bufferFormat);
+        }
+        if(!RV32.equals(bufferFormat.getChroma())) {
+            return;
+        }
+        // The native buffers are locked for the duration of this call-back, so it is safe to copy
+        // from them directly
+        synchronized(this) {
+            if(nextFrameTarget != null && !nextFrameReady) {
+                nextFrameTarget = copy(nativeBuffers[0], bufferFormat, nextFrameTarget);
+                nextFrameReady = true;
+                notifyAll();
+            }
+        }
+        Capture current = capture;
+        if(current != null) {
+            current.frame(nativeBuffers[0], bufferFormat);
+        }
+    }
+
+    /**
+     * Copy the most recently rendered frame.
+     * <p>
+     * The native video buffers are locked while the frame is copied, which briefly holds up the
+     * native video thread.
+     *
+     * @param image image to copy the frame into if it has the right size, may be <code>null</code>
+     * @return image containing the frame, the given image or a new one, or <code>null</code> if no frame has been rendered yet
+     * @throws IllegalStateException if the media player is not sending RV32 pixels
+     */
+    public BufferedImage grab(BufferedImage image) {
+        logger.debug("grab()");
+        DirectMediaPlayer player = mediaPlayer;
+        if(player == null) {
+            return null;
+        }
+        Memory[] nativeBuffers = player.lock();
+        try {
+            // The format can only change while the buffers are not locked
+            BufferFormat format = bufferFormat;
+            if(nativeBuffers == null || format == null) {
+                return null;
+            }
+            checkFormat(format);
+            return copy(nativeBuffers[0], format, image);
+        }
+        finally {
+            player.unlock();
+        }
+    }
+
+    /**
+     * Wait for the next frame to be rendered and copy it.
+     *
+     * @param image image to copy the frame into if it has the right size, may be <code>null</code>
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return image containing the frame, the given image or a new one, or <code>null</code> if no frame was rendered in time
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     * @throws IllegalStateException if another thread is already waiting for the next frame
+     */
+    public BufferedImage nextFrame(BufferedImage image, long timeout, TimeUnit unit) throws InterruptedException {
+        logger.debug("nextFrame(timeout={},unit={})", timeout, unit);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized(this) {
+            if(nextFrameTarget != null) {
+                throw new IllegalStateException("Already waiting for the next frame");
+            }
+            // A placeholder image is replaced with one of the right size by the first copy
+            nextFrameTarget = image != null ? image : new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+            nextFrameReady = false;
+            try {
+                while(!nextFrameReady) {
+                    long remaining = deadline - System.nanoTime();
+                    if(remaining <= 0) {
+                        return null;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                return nextFrameTarget;
+            }
+            finally {
+                nextFrameTarget = null;
+                nextFrameReady = false;
+            }
+        }
+    }
+
+    /**
+     * Start capturing frames at a regular interval.
+     * <p>
+     * Any capture already in progress is stopped first.
+     *
+     * @param period minimum time between captured frames, zero to capture every frame
+     * @param unit unit of the period
+     * @param poolSize number of images to reuse for captured frames, at least one
+     * @param listener component to receive the captured frames
+     */
+    public void startCapture(long period, TimeUnit unit, int poolSize, FrameGrabberListener listener) {
+        logger.debug("startCapture(period={},unit={},poolSize={},listener={})", period, unit, poolSize, listener);
+        if(poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be at least 1");
+        }
+        if(listener == null) {
+            throw new IllegalArgumentException("listener can not be null");
+        }
+        stopCapture();
+        capture = new Capture(unit.toNanos(period), poolSize, listener);
+    }
+
+    /**
+     * Stop capturing frames at a regular interval.
+     * <p>
+     * Frames already captured are still delivered to the listener.
+     */
+    public void stopCapture() {
+        logger.debug("stopCapture()");
+        Capture current = capture;
+        capture = null;
+        if(current != null) {
+            current.executor.shutdown();
+        }
+    }
+
+    /**
+     * Get the number of frames captured at a regular interval.
+     *
+     * @return number of frames
+     */
+    public long capturedCount() {
+        return capturedCount.get();
+    }
+
+    /**
+     * Get the number of frames dropped by regular capture because the listener was too slow.
+     *
+     * @return number of frames
+     */
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Check that a buffer format can be captured.
+     *
+     * @param format buffer format
+     * @throws IllegalStateException if the format is not RV32
+     */
+    private static void checkFormat(BufferFormat format) {
+        if(!RV32.equals(format.getChroma())) {
+            throw new IllegalStateException("Frames can only be grabbed in " + RV32 + " format, not " + format.getChroma());
+        }
+    }
+
+    /**
+     * Copy RV32 pixels into an image.
+     *
+     * @param buffer native video buffer
+     * @param format buffer format
+     * @param image image to copy into if it has the right size, may be <code>null</code>
+     * @return image containing the pixels, the given image or a new one
+     */
+    private static BufferedImage copy(Memory buffer, BufferFormat format, BufferedImage image) {
+        int width = format.getWidth();
+        int height = format.getHeight();
+        if(image == null || image.getWidth() != width || image.getHeight() != height || image.getType() != BufferedImage.TYPE_INT_RGB) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        int pitch = format.getPitches()[0] / 4;
+        IntBuffer source = buffer.getByteBuffer(0L, buffer.size()).asIntBuffer();
+        if(pitch == width) {
+            source.get(pixels, 0, width * height);
+        }
+        else {
+            for(int y = 0; y < height; y++) {
+                source.position(y * pitch);
+                source.get(pixels, y * width, width);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * A periodic capture.
+     */
+    private final class Capture {
+
+        /**
+         * Minimum time between captured frames, nanoseconds.
+         */
+        private final long periodNanos;
+
+        /**
+         * Maximum number of images.
+         */
+        private final int poolSize;
+
+        /**
+         * Component to receive the captured frames.
+         */
+        private final FrameGrabberListener listener;
+
+        /**
+         * Images not currently holding a frame waiting for, or being handled by, the listener.
+         */
+        private final BlockingQueue<BufferedImage> free;
+
+        /**
+         * Single thread to deliver captured frames to the listener.
+         */
+        private final ExecutorService executor;
+
+        /**
+         * Number of images created so far, only used on the native video thread.
+         */
+        private int created;
+
+        /**
+         * Time of the last captured frame, only used on the native video thread.
+         */
+        private long lastCapture;
+
+        /**
+         * Create a periodic capture.
+         *
+         * @param periodNanos minimum time between captured frames, nanoseconds
+         * @param poolSize maximum number of images
+         * @param listener component to receive the captured frames
+         */
+        private Capture(long periodNanos, int poolSize, FrameGrabberListener listener) {
+            this.periodNanos = periodNanos;
+            this.poolSize = poolSize;
+            this.listener = listener;
+            this.free = new ArrayBlockingQueue<BufferedImage>(poolSize);
+            this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "vlcj-frame-grabber");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.lastCapture = System.nanoTime() - periodNanos;
+        }
+
+        /**
+         * Capture a frame if one is due, invoked on the native video thread.
+         *
+         * @param buffer native video buffer
+         * @param format buffer format
+         */
+        private void frame(Memory buffer, BufferFormat format) {
+            final long now = System.nanoTime();
+            if(now - lastCapture < periodNanos) {
+                return;
+            }
+            BufferedImage image = free.poll();
+            if(image == null) {
+                if(created < poolSize) {
+                    created++;
+                }
+                else {
+                    droppedCount.incrementAndGet();
+                    return;
+                }
+            }
+            lastCapture = now;
+            final BufferedImage frame = copy(buffer, format, image);
+            capturedCount.incrementAndGet();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            listener.frameGrabbed(FrameGrabber.this, frame, now);
+                        }
+                        catch(Exception e) {
+                            logger.warn("Frame grabber listener {} threw an exception {}", listener, e.getMessage());
+                        }
+                        finally {
+                            free.offer(frame);
+                        }
+                    }
+                });
+            }
+            catch(RejectedExecutionException e) {
+                // The capture was stopped while this frame was being copied
+                free.offer(frame);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.direct;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Specification for a component that receives the video frames captured periodically by a
+ * {@link FrameGrabber}.
+ */
+public interface FrameGrabberListener {
+
+    /**
+     * A video frame was captured.
+     * <p>
+     * This method is invoked on the frame grabber's capture thread, not on the native video
+     * thread, so it may take some time - but while it runs the image is not available for further
+     * captures, and if no image is available when a frame is due that frame is dropped.
+     * <p>
+     * The image is reused for a later capture once this method returns, so it must not be kept.
+     *
+     * @param frameGrabber frame grabber that captured the frame
+     * @param image video frame
+     * @param timestamp time the frame was captured, from {@link System#nanoTime()}
+     */
+    void frameGrabbed(FrameGrabber frameGrabber, BufferedImage image, long timestamp);
+}
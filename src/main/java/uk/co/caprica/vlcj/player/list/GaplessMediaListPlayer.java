@@ -0,0 +1,582 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.list;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.medialist.MediaList;
+import uk.co.caprica.vlcj.player.MediaPlayer;
+import uk.co.caprica.vlcj.player.MediaPlayerEventAdapter;
+import uk.co.caprica.vlcj.player.MediaPlayerEventListener;
+
+/**
+ * A media list player that plays consecutive items without a gap, by alternating between two
+ * media players.
+ * <p>
+ * Both {@link DefaultMediaListPlayer} and the repeat setting of a media player only start the
+ * next item after the current one has finished, so there is always a gap while the next item is
+ * opened and buffered. This player instead opens the next item on a standby media player shortly
+ * before the current item ends, paused on its first frame. When the current item finishes, the
+ * standby media player only has to resume play-back, and the two media players swap roles.
+ * <p>
+ * The media players should be of the same type and have the same output configuration. For
+ * embedded media players, the application is responsible for showing the video surface of whichever
+ * media player is playing, see {@link HandoverListener}.
+ * <p>
+ * The time between one item finishing and the next one playing is recorded for each handover and
+ * is available from {@link #getHandoverStatistics()}.
+ * <p>
+ * The media players remain owned by the application, they are not released by {@link #release()}.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   GaplessMediaListPlayer listPlayer = new GaplessMediaListPlayer(mediaPlayer1, mediaPlayer2);
+ *   listPlayer.setMediaList(mediaList);
+ *   listPlayer.setMode(MediaListPlayerMode.LOOP);
+ *   listPlayer.play();
+ * </pre>
+ *
+ * This class is thread-safe.
+ */
+public final class GaplessMediaListPlayer {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(GaplessMediaListPlayer.class);
+
+    /**
+     * Media option to open media paused on its first frame.
+     */
+    private static final String START_PAUSED_OPTION = ":start-paused";
+
+    /**
+     * Default time before the end of the current item at which to pre-roll the next item.
+     */
+    private static final long DEFAULT_PREROLL_MILLIS = 3000;
+
+    /**
+     * The two media players, one playing and one standing by.
+     */
+    private final MediaPlayer[] mediaPlayers;
+
+    /**
+     * Listener registered with both media players.
+     */
+    private final MediaPlayerEventListener eventHandler = new EventHandler();
+
+    /**
+     * Components to notify of handovers.
+     */
+    private final List<HandoverListener> handoverListeners = new CopyOnWriteArrayList<HandoverListener>();
+
+    /**
+     * Media list.
+     */
+    private MediaList mediaList;
+
+    /**
+     * Play-back mode.
+     */
+    private MediaListPlayerMode mode = MediaListPlayerMode.DEFAULT;
+
+    /**
+     * Media options applied to every item.
+     */
+    private String[] mediaOptions = new String[0];
+
+    /**
+     * Media options applied to an item that is pre-rolled.
+     */
+    private String[] prerollMediaOptions = new String[] {START_PAUSED_OPTION};
+
+    /**
+     * Time before the end of the current item at which to pre-roll the next item, milliseconds.
+     */
+    private long prerollMillis = DEFAULT_PREROLL_MILLIS;
+
+    /**
+     * Index, in the media players array, of the media player that is playing.
+     */
+    private int active;
+
+    /**
+     * Index of the item playing, or -1 if not playing.
+     */
+    private int currentItem = -1;
+
+    /**
+     * Index of the item pre-rolled on the standby media player, or -1 if none.
+     */
+    private int standbyItem = -1;
+
+    /**
+     * Set when the pre-rolled item is paused on its first frame, ready to play.
+     */
+    private boolean standbyReady;
+
+    /**
+     * Set when the current item finished before the next item was ready to play.
+     */
+    private boolean resumeWhenReady;
+
+    /**
+     * Set from the start of a handover until the new item is playing.
+     */
+    private boolean handingOver;
+
+    /**
+     * Set if the handover in progress uses a pre-rolled item.
+     */
+    private boolean handoverPrerolled;
+
+    /**
+     * Time the previous item finished, from {@link System#nanoTime()}, or -1 if play-back was
+     * started rather than handed over.
+     */
+    private long finishedNanos = -1;
+
+    /**
+     * Number of handovers.
+     */
+    private long handoverCount;
+
+    /**
+     * Number of handovers using a pre-rolled item.
+     */
+    private long prerolledCount;
+
+    /**
+     * Latency of the most recent handover, nanoseconds.
+     */
+    private long lastHandoverNanos;
+
+    /**
+     * Total latency of all handovers, nanoseconds.
+     */
+    private long totalHandoverNanos;
+
+    /**
+     * Largest latency of any handover, nanoseconds.
+     */
+    private long maxHandoverNanos;
+
+    /**
+     * Create a gapless media list player.
+     *
+     * @param first media player
+     * @param second media player
+     */
+    public GaplessMediaListPlayer(MediaPlayer first, MediaPlayer second) {
+        logger.debug("GaplessMediaListPlayer(first={},second={})", first, second);
+        if(first == null || second == null || first == second) {
+            throw new IllegalArgumentException("Two different media players are required");
+        }
+        this.mediaPlayers = new MediaPlayer[] {first, second};
+        first.addMediaPlayerEventListener(eventHandler);
+        second.addMediaPlayerEventListener(eventHandler);
+    }
+
+    /**
+     * Add a component to be notified of handovers.
+     *
+     * @param listener component to add
+     */
+    public void addHandoverListener(HandoverListener listener) {
+        logger.debug("addHandoverListener(listener={})", listener);
+        handoverListeners.add(listener);
+    }
+
+    /**
+     * Remove a component previously added so that it no longer receives handover notifications.
+     *
+     * @param listener component to remove
+     */
+    public void removeHandoverListener(HandoverListener listener) {
+        logger.debug("removeHandoverListener(listener={})", listener);
+        handoverListeners.remove(listener);
+    }
+
+    /**
+     * Set the media list to play.
+     * <p>
+     * Items are looked up by index as they are needed, so a mirrored media list is recommended.
+     *
+     * @param mediaList media list
+     */
+    public synchronized void setMediaList(MediaList mediaList) {
+        logger.debug("setMediaList(mediaList={})", mediaList);
+        this.mediaList = mediaList;
+    }
+
+    /**
+     * Set the play-back mode.
+     *
+     * @param mode mode
+     */
+    public synchronized void setMode(MediaListPlayerMode mode) {
+        logger.debug("setMode(mode={})", mode);
+        this.mode = mode;
+    }
+
+    /**
+     * Set media options to apply to every item.
+     *
+     * @param mediaOptions zero or more media options
+     */
+    public synchronized void setMediaOptions(String... mediaOptions) {
+        logger.debug("setMediaOptions(mediaOptions={})", Arrays.toString(mediaOptions));
+        this.mediaOptions = mediaOptions != null ? mediaOptions.clone() : new String[0];
+        this.prerollMediaOptions = Arrays.copyOf(this.mediaOptions, this.mediaOptions.length + 1);
+        this.prerollMediaOptions[this.mediaOptions.length] = START_PAUSED_OPTION;
+    }
+
+    /**
+     * Set how long before the end of the current item to pre-roll the next item.
+     * <p>
+     * This must be long enough to open and buffer the next item, too long and both items are
+     * being decoded at the same time for longer than necessary.
+     *
+     * @param prerollTime time before the end of the current item
+     * @param unit unit of the time
+     */
+    public synchronized void setPrerollTime(long prerollTime, TimeUnit unit) {
+        logger.debug("setPrerollTime(prerollTime={},unit={})", prerollTime, unit);
+        this.prerollMillis = unit.toMillis(prerollTime);
+    }
+
+    /**
+     * Play the first item, or resume play-back if paused.
+     */
+    public synchronized void play() {
+        logger.debug("play()");
+        if(currentItem < 0) {
+            playItem(0);
+        }
+        else {
+            activeMediaPlayer().play();
+        }
+    }
+
+    /**
+     * Play a particular item.
+     *
+     * @param index index of the item to play
+     * @return <code>true</code> if the item was started; <code>false</code> otherwise
+     */
+    public synchronized boolean playItem(int index) {
+        logger.debug("playItem(index={})", index);
+        stop();
+        String mrl = mrl(index);
+        if(mrl != null) {
+            currentItem = index;
+            handingOver = true;
+            finishedNanos = -1;
+            return activeMediaPlayer().playMedia(mrl, mediaOptions);
+        }
+        else {
+            return false;
+        }
+    }
+
+    /**
+     * Pause play-back.
+     */
+    public synchronized void pause() {
+        logger.debug("pause()");
+        if(currentItem >= 0) {
+            activeMediaPlayer().pause();
+        }
+    }
+
+    /**
+     * Stop play-back.
+     */
+    public synchronized void stop() {
+        logger.debug("stop()");
+        currentItem = -1;
+        standbyItem = -1;
+        standbyReady = false;
+        resumeWhenReady = false;
+        handingOver = false;
+        mediaPlayers[0].stop();
+        mediaPlayers[1].stop();
+    }
+
+    /**
+     * Get the media player that is currently playing, or was most recently playing.
+     *
+     * @return media player
+     */
+    public synchronized MediaPlayer activeMediaPlayer() {
+        return mediaPlayers[active];
+    }
+
+    /**
+     * Get the index of the item currently playing.
+     *
+     * @return index, or -1 if not playing
+     */
+    public synchronized int currentItem() {
+        return currentItem;
+    }
+
+    /**
+     * Get a snapshot of the handover latency.
+     *
+     * @return statistics
+     */
+    public synchronized HandoverStatistics getHandoverStatistics() {
+        return new HandoverStatistics(handoverCount, prerolledCount, lastHandoverNanos, totalHandoverNanos, maxHandoverNanos);
+    }
+
+    /**
+     * Stop play-back and stop listening to the media players.
+     * <p>
+     * The media players are not released.
+     */
+    public void release() {
+        logger.debug("release()");
+        stop();
+        mediaPlayers[0].removeMediaPlayerEventListener(eventHandler);
+        mediaPlayers[1].removeMediaPlayerEventListener(eventHandler);
+    }
+
+    /**
+     * Get the media player that is standing by.
+     *
+     * @return media player
+     */
+    private MediaPlayer standbyMediaPlayer() {
+        return mediaPlayers[active ^ 1];
+    }
+
+    /**
+     * Get the item to play after an item, according to the play-back mode.
+     *
+     * @param item index of the item
+     * @return index of the next item, or -1 if there is none
+     */
+    private int nextItem(int item) {
+        int size = mediaList != null ? mediaList.size() : 0;
+        if(size == 0) {
+            return -1;
+        }
+        switch(mode) {
+            case LOOP:
+                return (item + 1) % size;
+            case REPEAT:
+                return item < size ? item : -1;
+            default:
+                return item + 1 < size ? item + 1 : -1;
+        }
+    }
+
+    /**
+     * Get the media resource locator of an item.
+     *
+     * @param index index of the item
+     * @return mrl, or <code>null</code> if there is no such item
+     */
+    private String mrl(int index) {
+        if(mediaList != null && index >= 0 && index < mediaList.size()) {
+            return mediaList.item(index).mrl();
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Pre-roll the next item on the standby media player if it is time to do so.
+     *
+     * @param mediaPlayer media player that reported a new time
+     * @param time new time, milliseconds
+     */
+    private synchronized void checkPreroll(MediaPlayer mediaPlayer, long time) {
+        if(mediaPlayer == activeMediaPlayer() && currentItem >= 0 && standbyItem < 0 && !handingOver) {
+            long length = mediaPlayer.getLength();
+            if(length > 0 && length - time <= prerollMillis) {
+                int next = nextItem(currentItem);
+                String mrl = mrl(next);
+                if(mrl != null) {
+                    logger.debug("Pre-rolling item {} on standby media player", next);
+                    standbyItem = next;
+                    standbyReady = false;
+                    standbyMediaPlayer().playMedia(mrl, prerollMediaOptions);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hand over from the active media player, which has finished, to the standby media player.
+     *
+     * @param mediaPlayer media player that finished
+     */
+    private synchronized void handover(MediaPlayer mediaPlayer) {
+        if(mediaPlayer != activeMediaPlayer() || currentItem < 0) {
+            return;
+        }
+        finishedNanos = System.nanoTime();
+        int next = nextItem(currentItem);
+        logger.debug("handover(next={},standbyItem={},standbyReady={})", next, standbyItem, standbyReady);
+        if(next < 0) {
+            currentItem = -1;
+            return;
+        }
+        MediaPlayer standby = standbyMediaPlayer();
+        if(standbyItem == next) {
+            handoverPrerolled = true;
+            if(standbyReady) {
+                standby.play();
+            }
+            else {
+                // Still opening, play as soon as it is paused on the first frame
+                resumeWhenReady = true;
+            }
+        }
+        else {
+            // Too late to pre-roll, e.g. a very short item, so start the next item directly
+            handoverPrerolled = false;
+            standby.playMedia(mrl(next), mediaOptions);
+        }
+        active ^= 1;
+        currentItem = next;
+        standbyItem = -1;
+        standbyReady = false;
+        handingOver = true;
+    }
+
+    /**
+     * Handle a media player pausing, which for the standby media player means the pre-rolled item
+     * is ready.
+     *
+     * @param mediaPlayer media player that paused
+     */
+    private synchronized void paused(MediaPlayer mediaPlayer) {
+        if(mediaPlayer == activeMediaPlayer() && resumeWhenReady) {
+            resumeWhenReady = false;
+            mediaPlayer.play();
+        }
+        else if(mediaPlayer == standbyMediaPlayer() && standbyItem >= 0) {
+            standbyReady = true;
+        }
+    }
+
+    /**
+     * Handle a media player playing, which for the active media player completes a handover.
+     *
+     * @param mediaPlayer media player that is playing
+     */
+    private void playing(MediaPlayer mediaPlayer) {
+        MediaPlayer from;
+        int item;
+        long latency;
+        synchronized(this) {
+            if(mediaPlayer != activeMediaPlayer() || !handingOver || resumeWhenReady) {
+                return;
+            }
+            handingOver = false;
+            item = currentItem;
+            if(finishedNanos >= 0) {
+                from = standbyMediaPlayer();
+                latency = System.nanoTime() - finishedNanos;
+                handoverCount++;
+                if(handoverPrerolled) {
+                    prerolledCount++;
+                }
+                lastHandoverNanos = latency;
+                totalHandoverNanos += latency;
+                maxHandoverNanos = Math.max(maxHandoverNanos, latency);
+                logger.debug("Handover to item {} took {}ns, prerolled={}", item, latency, handoverPrerolled);
+            }
+            else {
+                from = null;
+                latency = -1;
+            }
+        }
+        for(HandoverListener listener : handoverListeners) {
+            try {
+                listener.handedOver(from, mediaPlayer, item, latency);
+            }
+            catch(Exception e) {
+                logger.warn("Handover listener {} threw an exception", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Handle a media player error.
+     *
+     * @param mediaPlayer media player that failed
+     */
+    private synchronized void error(MediaPlayer mediaPlayer) {
+        if(mediaPlayer == standbyMediaPlayer() && standbyItem >= 0) {
+            logger.debug("Pre-roll of item {} failed", standbyItem);
+            standbyItem = -1;
+            standbyReady = false;
+        }
+        else {
+            // Move on past the failed item
+            handover(mediaPlayer);
+        }
+    }
+
+    /**
+     * Listener for events from both media players.
+     * <p>
+     * Each media player delivers its events on its own thread.
+     */
+    private final class EventHandler extends MediaPlayerEventAdapter {
+
+        @Override
+        public void timeChanged(MediaPlayer mediaPlayer, long newTime) {
+            checkPreroll(mediaPlayer, newTime);
+        }
+
+        @Override
+        public void paused(MediaPlayer mediaPlayer) {
+            GaplessMediaListPlayer.this.paused(mediaPlayer);
+        }
+
+        @Override
+        public void playing(MediaPlayer mediaPlayer) {
+            GaplessMediaListPlayer.this.playing(mediaPlayer);
+        }
+
+        @Override
+        public void finished(MediaPlayer mediaPlayer) {
+            handover(mediaPlayer);
+        }
+
+        @Override
+        public void error(MediaPlayer mediaPlayer) {
+            GaplessMediaListPlayer.this.error(mediaPlayer);
+        }
+    }
+}
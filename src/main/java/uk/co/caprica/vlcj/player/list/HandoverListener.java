@@ -0,0 +1,44 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.list;
+
+import uk.co.caprica.vlcj.player.MediaPlayer;
+
+/**
+ * Specification for a component that is notified when a {@link GaplessMediaListPlayer} hands
+ * play-back over from one media player to the other.
+ * <p>
+ * An application using embedded media players would use this notification to show the video
+ * surface of the media player that is now playing.
+ * <p>
+ * Notifications are delivered on a media player event thread, implementations must not block.
+ */
+public interface HandoverListener {
+
+    /**
+     * Play-back has been handed over to a media player.
+     *
+     * @param from media player that finished, or <code>null</code> if play-back has just started
+     * @param to media player that is now playing
+     * @param index index of the item now playing
+     * @param latencyNanos time between the previous item finishing and the new item playing, nanoseconds, or -1 if play-back has just started
+     */
+    void handedOver(MediaPlayer from, MediaPlayer to, int index, long latencyNanos);
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.list;
+
+/**
+ * Immutable snapshot of the handover latency of a {@link GaplessMediaListPlayer}.
+ * <p>
+ * The handover latency is the time between the native finished event for one item and the native
+ * playing event for the next.
+ */
+public final class HandoverStatistics {
+
+    /**
+     * Number of handovers.
+     */
+    private final long count;
+
+    /**
+     * Number of handovers where the next item had been pre-rolled in time.
+     */
+    private final long prerolled;
+
+    /**
+     * Latency of the most recent handover, nanoseconds.
+     */
+    private final long lastNanos;
+
+    /**
+     * Total latency of all handovers, nanoseconds.
+     */
+    private final long totalNanos;
+
+    /**
+     * Largest latency of any handover, nanoseconds.
+     */
+    private final long maxNanos;
+
+    /**
+     * Create a statistics snapshot.
+     *
+     * @param count number of handovers
+     * @param prerolled number of handovers where the next item had been pre-rolled in time
+     * @param lastNanos latency of the most recent handover, nanoseconds
+     * @param totalNanos total latency of all handovers, nanoseconds
+     * @param maxNanos largest latency of any handover, nanoseconds
+     */
+    HandoverStatistics(long count, long prerolled, long lastNanos, long totalNanos, long maxNanos) {
+        this.count = count;
+        this.prerolled = prerolled;
+        this.lastNanos = lastNanos;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Get the number of handovers.
+     *
+     * @return number of handovers
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Get the number of handovers where the next item had been pre-rolled in time.
+     *
+     * @return number of handovers
+     */
+    public long prerolled() {
+        return prerolled;
+    }
+
+    /**
+     * Get the latency of the most recent handover.
+     *
+     * @return latency, nanoseconds
+     */
+    public long lastNanos() {
+        return lastNanos;
+    }
+
+    /**
+     * Get the mean latency of all handovers.
+     *
+     * @return latency, nanoseconds
+     */
+    public long meanNanos() {
+        return count > 0 ? totalNanos / count : 0;
+    }
+
+    /**
+     * Get the largest latency of any handover.
+     *
+     * @return latency, nanoseconds
+     */
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(120);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("count=").append(count).append(',');
+        sb.append("prerolled=").append(prerolled).append(',');
+        sb.append("lastNanos=").append(lastNanos).append(',');
+        sb.append("meanNanos=").append(meanNanos()).append(',');
+        sb.append("maxNanos=").append(maxNanos).append(']');
+        return sb.toString();
+    }
+}
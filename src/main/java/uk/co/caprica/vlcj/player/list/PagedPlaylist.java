@@ -0,0 +1,701 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.list;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+import uk.co.caprica.vlcj.player.MediaPlayer;
+import uk.co.caprica.vlcj.player.MediaPlayerEventAdapter;
+import uk.co.caprica.vlcj.player.MediaPlayerEventListener;
+import uk.co.caprica.vlcj.player.MediaResourceLocator;
+import uk.co.caprica.vlcj.player.media.prepared.PreparedMedia;
+
+/**
+ * A play-list for very large collections of media, that creates native media only for a small
+ * window of items around the current item.
+ * <p>
+ * A {@link MediaListPlayer} needs a native media instance in a native media list for every item
+ * before play-back can start. For a catalog of a million items that is a lot of native memory and
+ * a long time to start. This play-list instead keeps each item as a compact Java record of its
+ * MRL and media options, the MRLs packed together as UTF-8 bytes and identical sets of media
+ * options shared between items. Native media are created for the items just behind and just ahead
+ * of the current item in play order, and released again as the current item moves on.
+ * <p>
+ * Items are played in sequence or shuffled, and the {@link MediaListPlayerMode} decides what
+ * happens at the end of the play-list.
+ * <p>
+ * The media returned by {@link #current()}, {@link #next()}, {@link #previous()} and
+ * {@link #moveTo(int)} is only valid while it is in the window, it should be played straight away.
+ * Alternatively {@link #attach(MediaPlayer)} a media player to have the play-list play each item
+ * in turn.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   PagedPlaylist playlist = mediaPlayerFactory.newPagedPlaylist(2, 2);
+ *   playlist.addAll(mrls);
+ *   playlist.setShuffle(true);
+ *   playlist.setMode(MediaListPlayerMode.LOOP);
+ *   playlist.attach(mediaPlayer);
+ *   mediaPlayer.playMedia(playlist.moveTo(0));
+ *
+ *   ...
+ *
+ *   playlist.release();
+ * </pre>
+ *
+ * This class is thread-safe.
+ */
+public final class PagedPlaylist {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(PagedPlaylist.class);
+
+    /**
+     * Character set used to store MRLs.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Initial capacity for items.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Native library interface.
+     */
+    private final LibVlc libvlc;
+
+    /**
+     * Native library instance.
+     */
+    private final libvlc_instance_t instance;
+
+    /**
+     * Number of items behind the current item, in play order, to keep native media for.
+     */
+    private final int windowBehind;
+
+    /**
+     * Number of items ahead of the current item, in play order, to keep native media for.
+     */
+    private final int windowAhead;
+
+    /**
+     * MRLs of all items, packed together as UTF-8.
+     */
+    private byte[] mrlBytes = new byte[INITIAL_CAPACITY * 64];
+
+    /**
+     * Offset of each item's MRL in the packed bytes, with one extra entry for the end of the last
+     * MRL.
+     */
+    private int[] mrlOffsets = new int[INITIAL_CAPACITY + 1];
+
+    /**
+     * Index of each item's media options in the distinct media option sets.
+     */
+    private int[] optionsIds = new int[INITIAL_CAPACITY];
+
+    /**
+     * Distinct media option sets.
+     */
+    private final List<String[]> optionSets = new ArrayList<String[]>();
+
+    /**
+     * Index of each distinct media option set.
+     */
+    private final Map<List<String>, Integer> optionSetIds = new HashMap<List<String>, Integer>();
+
+    /**
+     * Number of items.
+     */
+    private int size;
+
+    /**
+     * Play order when shuffled, item index by position, <code>null</code> when not shuffled.
+     */
+    private int[] shuffleOrder;
+
+    /**
+     * Random number generator for shuffling.
+     */
+    private Random random = new Random();
+
+    /**
+     * Behaviour at the end of the play-list.
+     */
+    private MediaListPlayerMode mode = MediaListPlayerMode.DEFAULT;
+
+    /**
+     * Current position in play order, or -1 if there is no current item.
+     */
+    private int position = -1;
+
+    /**
+     * Native media created for the window, by position in play order.
+     */
+    private final Map<Integer, PreparedMedia> window = new HashMap<Integer, PreparedMedia>();
+
+    /**
+     * Media players attached to this play-list.
+     */
+    private final Map<MediaPlayer, MediaPlayerEventListener> attached = new HashMap<MediaPlayer, MediaPlayerEventListener>();
+
+    /**
+     * Create a play-list.
+     *
+     * @param libvlc native library interface
+     * @param instance native library instance
+     * @param windowBehind number of items behind the current item to keep native media for
+     * @param windowAhead number of items ahead of the current item to keep native media for
+     */
+    public PagedPlaylist(LibVlc libvlc, libvlc_instance_t instance, int windowBehind, int windowAhead) {
+        if(windowBehind < 0 || windowAhead < 0) {
+            throw new IllegalArgumentException("Window sizes can not be negative");
+        }
+        this.libvlc = libvlc;
+        this.instance = instance;
+        this.windowBehind = windowBehind;
+        this.windowAhead = windowAhead;
+        optionSets.add(new String[0]);
+        optionSetIds.put(Arrays.<String>asList(), 0);
+    }
+
+    /**
+     * Add an item.
+     *
+     * @param mrl media resource locator
+     * @param mediaOptions zero or more media options
+     * @return index of the new item
+     */
+    public synchronized int add(String mrl, String... mediaOptions) {
+        logger.trace("add(mrl={},mediaOptions={})", mrl, Arrays.toString(mediaOptions));
+        int result = store(mrl, optionsId(mediaOptions));
+        addedItems(result, 1);
+        return result;
+    }
+
+    /**
+     * Add many items with the same media options.
+     *
+     * @param mrls media resource locators
+     * @param mediaOptions zero or more media options
+     */
+    public synchronized void addAll(List<String> mrls, String... mediaOptions) {
+        logger.debug("addAll(mrls={},mediaOptions={})", mrls.size(), Arrays.toString(mediaOptions));
+        int optionsId = optionsId(mediaOptions);
+        int first = size;
+        for(String mrl : mrls) {
+            store(mrl, optionsId);
+        }
+        addedItems(first, mrls.size());
+    }
+
+    /**
+     * Remove all items.
+     */
+    public synchronized void clear() {
+        logger.debug("clear()");
+        releaseWindow();
+        size = 0;
+        position = -1;
+        mrlOffsets[0] = 0;
+        if(shuffleOrder != null) {
+            shuffleOrder = new int[0];
+        }
+    }
+
+    /**
+     * Get the number of items.
+     *
+     * @return number of items
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the media resource locator of an item.
+     *
+     * @param index index of the item
+     * @return mrl
+     */
+    public synchronized String mrl(int index) {
+        checkIndex(index);
+        return new String(mrlBytes, mrlOffsets[index], mrlOffsets[index + 1] - mrlOffsets[index], UTF8);
+    }
+
+    /**
+     * Get the media options of an item.
+     *
+     * @param index index of the item
+     * @return media options, may be empty
+     */
+    public synchronized String[] mediaOptions(int index) {
+        checkIndex(index);
+        return optionSets.get(optionsIds[index]).clone();
+    }
+
+    /**
+     * Set the behaviour at the end of the play-list.
+     *
+     * @param mode mode
+     */
+    public synchronized void setMode(MediaListPlayerMode mode) {
+        logger.debug("setMode(mode={})", mode);
+        this.mode = mode;
+        updateWindow();
+    }
+
+    /**
+     * Set whether or not to play the items in a random order.
+     *
+     * @param shuffle <code>true</code> to shuffle; <code>false</code> to play in sequence
+     */
+    public synchronized void setShuffle(boolean shuffle) {
+        setShuffle(shuffle, new Random());
+    }
+
+    /**
+     * Set whether or not to play the items in a random order, using a given seed so that the order
+     * can be reproduced.
+     *
+     * @param shuffle <code>true</code> to shuffle; <code>false</code> to play in sequence
+     * @param seed seed for the random order
+     */
+    public synchronized void setShuffle(boolean shuffle, long seed) {
+        setShuffle(shuffle, new Random(seed));
+    }
+
+    /**
+     * Test whether or not the items are played in a random order.
+     *
+     * @return <code>true</code> if shuffled; <code>false</code> if played in sequence
+     */
+    public synchronized boolean isShuffle() {
+        return shuffleOrder != null;
+    }
+
+    /**
+     * Get the index of the current item.
+     *
+     * @return index, or -1 if there is no current item
+     */
+    public synchronized int currentIndex() {
+        return position >= 0 ? itemAt(position) : -1;
+    }
+
+    /**
+     * Get the current item.
+     *
+     * @return media, or <code>null</code> if there is no current item
+     */
+    public synchronized PreparedMedia current() {
+        return position >= 0 ? window.get(position) : null;
+    }
+
+    /**
+     * Move to an item.
+     *
+     * @param index index of the item
+     * @return media
+     */
+    public synchronized PreparedMedia moveTo(int index) {
+        logger.debug("moveTo(index={})", index);
+        checkIndex(index);
+        int newPosition = index;
+        if(shuffleOrder != null) {
+            for(int i = 0; i < size; i++) {
+                if(shuffleOrder[i] == index) {
+                    newPosition = i;
+                    break;
+                }
+            }
+        }
+        return moveToPosition(newPosition);
+    }
+
+    /**
+     * Move to the next item in play order.
+     *
+     * @return media, or <code>null</code> if the end of the play-list was reached
+     */
+    public synchronized PreparedMedia next() {
+        logger.debug("next()");
+        int newPosition = step(position, 1);
+        if(newPosition >= 0) {
+            return moveToPosition(newPosition);
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Move to the previous item in play order.
+     *
+     * @return media, or <code>null</code> if the start of the play-list was reached
+     */
+    public synchronized PreparedMedia previous() {
+        logger.debug("previous()");
+        int newPosition = step(position, -1);
+        if(newPosition >= 0) {
+            return moveToPosition(newPosition);
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Attach a media player, so that whenever it finishes an item it plays the next one.
+     *
+     * @param mediaPlayer media player
+     */
+    public synchronized void attach(final MediaPlayer mediaPlayer) {
+        logger.debug("attach(mediaPlayer={})", mediaPlayer);
+        if(!attached.containsKey(mediaPlayer)) {
+            MediaPlayerEventListener listener = new MediaPlayerEventAdapter() {
+                @Override
+                public void finished(MediaPlayer mediaPlayer) {
+                    playNext(mediaPlayer);
+                }
+
+                @Override
+                public void error(MediaPlayer mediaPlayer) {
+                    playNext(mediaPlayer);
+                }
+            };
+            attached.put(mediaPlayer, listener);
+            mediaPlayer.addMediaPlayerEventListener(listener);
+        }
+    }
+
+    /**
+     * Detach a media player previously attached.
+     *
+     * @param mediaPlayer media player
+     */
+    public synchronized void detach(MediaPlayer mediaPlayer) {
+        logger.debug("detach(mediaPlayer={})", mediaPlayer);
+        MediaPlayerEventListener listener = attached.remove(mediaPlayer);
+        if(listener != null) {
+            mediaPlayer.removeMediaPlayerEventListener(listener);
+        }
+    }
+
+    /**
+     * Detach all media players and release the native media in the window.
+     */
+    public synchronized void release() {
+        logger.debug("release()");
+        for(Map.Entry<MediaPlayer, MediaPlayerEventListener> entry : attached.entrySet()) {
+            entry.getKey().removeMediaPlayerEventListener(entry.getValue());
+        }
+        attached.clear();
+        releaseWindow();
+        position = -1;
+    }
+
+    /**
+     * Play the next item on a media player.
+     *
+     * @param mediaPlayer media player
+     */
+    private synchronized void playNext(MediaPlayer mediaPlayer) {
+        PreparedMedia media = next();
+        if(media != null) {
+            mediaPlayer.playMedia(media);
+        }
+    }
+
+    /**
+     * Store an item.
+     *
+     * @param mrl media resource locator
+     * @param optionsId index of the item's media options
+     * @return index of the new item
+     */
+    private int store(String mrl, int optionsId) {
+        byte[] bytes = mrl.getBytes(UTF8);
+        if(size + 1 >= mrlOffsets.length) {
+            mrlOffsets = Arrays.copyOf(mrlOffsets, mrlOffsets.length * 2);
+            optionsIds = Arrays.copyOf(optionsIds, optionsIds.length * 2);
+        }
+        int offset = mrlOffsets[size];
+        if(offset + bytes.length > mrlBytes.length) {
+            mrlBytes = Arrays.copyOf(mrlBytes, Math.max(mrlBytes.length * 2, offset + bytes.length));
+        }
+        System.arraycopy(bytes, 0, mrlBytes, offset, bytes.length);
+        mrlOffsets[size + 1] = offset + bytes.length;
+        optionsIds[size] = optionsId;
+        return size++;
+    }
+
+    /**
+     * Get the index of a media options set, adding it if it has not been seen before.
+     *
+     * @param mediaOptions media options
+     * @return index of the media options set
+     */
+    private int optionsId(String[] mediaOptions) {
+        List<String> key = mediaOptions != null ? Arrays.asList(mediaOptions.clone()) : Arrays.<String>asList();
+        Integer result = optionSetIds.get(key);
+        if(result == null) {
+            result = optionSets.size();
+            optionSets.add(key.toArray(new String[key.size()]));
+            optionSetIds.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Bring the play order and window up to date after items were added.
+     *
+     * @param first index of the first item added
+     * @param count number of items added
+     */
+    private void addedItems(int first, int count) {
+        if(shuffleOrder != null) {
+            // New items are shuffled in among the items that have not been played yet
+            int[] order = Arrays.copyOf(shuffleOrder, size);
+            for(int i = 0; i < count; i++) {
+                order[first + i] = first + i;
+            }
+            shuffleOrder = order;
+            // Media created for the positions being reshuffled would otherwise stay in the window for
+            // whatever item ends up at the same position
+            for(Iterator<Map.Entry<Integer, PreparedMedia>> it = window.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Integer, PreparedMedia> entry = it.next();
+                if(entry.getKey() > position) {
+                    libvlc.libvlc_media_release(entry.getValue().mediaInstance());
+                    it.remove();
+                }
+            }
+            shuffle(position + 1);
+        }
+        updateWindow();
+    }
+
+    /**
+     * Set whether or not to play the items in a random order.
+     *
+     * @param shuffle <code>true</code> to shuffle; <code>false</code> to play in sequence
+     * @param random random number generator
+     */
+    private void setShuffle(boolean shuffle, Random random) {
+        logger.debug("setShuffle(shuffle={})", shuffle);
+        int current = currentIndex();
+        releaseWindow();
+        if(shuffle) {
+            this.random = random;
+            shuffleOrder = new int[size];
+            for(int i = 0; i < size; i++) {
+                shuffleOrder[i] = i;
+            }
+            if(current >= 0) {
+                // Keep playing the current item, and shuffle everything else after it
+                shuffleOrder[current] = 0;
+                shuffleOrder[0] = current;
+                shuffle(1);
+                position = 0;
+            }
+            else {
+                shuffle(0);
+            }
+        }
+        else {
+            shuffleOrder = null;
+            position = current;
+        }
+        updateWindow();
+    }
+
+    /**
+     * Shuffle the play order from a position to the end.
+     *
+     * @param from first position to shuffle
+     */
+    private void shuffle(int from) {
+        for(int i = size - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int swap = shuffleOrder[i];
+            shuffleOrder[i] = shuffleOrder[j];
+            shuffleOrder[j] = swap;
+        }
+    }
+
+    /**
+     * Get the item at a position in play order.
+     *
+     * @param position position
+     * @return index of the item
+     */
+    private int itemAt(int position) {
+        return shuffleOrder != null ? shuffleOrder[position] : position;
+    }
+
+    /**
+     * Step through the play order, according to the mode.
+     *
+     * @param from starting position, or -1 for before the start
+     * @param delta number of positions to step, positive or negative
+     * @return new position, or -1 if outside of the play-list
+     */
+    private int step(int from, int delta) {
+        if(size == 0) {
+            return -1;
+        }
+        if(from < 0) {
+            return delta > 0 ? 0 : -1;
+        }
+        switch(mode) {
+            case REPEAT:
+                return from;
+            case LOOP:
+                return ((from + delta) % size + size) % size;
+            default:
+                int result = from + delta;
+                return result >= 0 && result < size ? result : -1;
+        }
+    }
+
+    /**
+     * Move to a position in play order.
+     *
+     * @param newPosition new position
+     * @return media for the new position
+     */
+    private PreparedMedia moveToPosition(int newPosition) {
+        position = newPosition;
+        updateWindow();
+        return window.get(position);
+    }
+
+    /**
+     * Create native media for every position in the window around the current position and
+     * release native media for every position that has left it.
+     */
+    private void updateWindow() {
+        if(position < 0 || position >= size) {
+            releaseWindow();
+            return;
+        }
+        List<Integer> positions = new ArrayList<Integer>(windowBehind + windowAhead + 1);
+        positions.add(position);
+        // Looping back to the start is the only way to move more than one item at once, so step
+        // through the window one position at a time
+        for(int i = 0, p = position; i < windowAhead && (p = stepInWindow(p, 1)) >= 0; i++) {
+            positions.add(p);
+        }
+        for(int i = 0, p = position; i < windowBehind && (p = stepInWindow(p, -1)) >= 0; i++) {
+            positions.add(p);
+        }
+        for(Iterator<Map.Entry<Integer, PreparedMedia>> it = window.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, PreparedMedia> entry = it.next();
+            if(!positions.contains(entry.getKey())) {
+                libvlc.libvlc_media_release(entry.getValue().mediaInstance());
+                it.remove();
+            }
+        }
+        for(Integer p : positions) {
+            if(!window.containsKey(p)) {
+                PreparedMedia media = newMedia(itemAt(p));
+                if(media != null) {
+                    window.put(p, media);
+                }
+            }
+        }
+    }
+
+    /**
+     * Step through the play order for the window, which never repeats an item.
+     *
+     * @param from starting position
+     * @param delta number of positions to step, positive or negative
+     * @return new position, or -1 if outside of the play-list
+     */
+    private int stepInWindow(int from, int delta) {
+        int result = from + delta;
+        if(mode == MediaListPlayerMode.LOOP) {
+            result = (result % size + size) % size;
+            return result != position ? result : -1;
+        }
+        else {
+            return result >= 0 && result < size ? result : -1;
+        }
+    }
+
+    /**
+     * Release all native media in the window.
+     */
+    private void releaseWindow() {
+        for(PreparedMedia media : window.values()) {
+            libvlc.libvlc_media_release(media.mediaInstance());
+        }
+        window.clear();
+    }
+
+    /**
+     * Create native media for an item.
+     *
+     * @param index index of the item
+     * @return media, or <code>null</code> if the native media could not be created
+     */
+    private PreparedMedia newMedia(int index) {
+        String mrl = MediaResourceLocator.encodeMrl(mrl(index));
+        libvlc_media_t mediaInstance = MediaResourceLocator.isLocation(mrl) ? libvlc.libvlc_media_new_location(instance, mrl) : libvlc.libvlc_media_new_path(instance, mrl);
+        if(mediaInstance == null) {
+            logger.warn("Failed to create native media for '{}'", mrl);
+            return null;
+        }
+        for(String mediaOption : optionSets.get(optionsIds[index])) {
+            libvlc.libvlc_media_add_option(mediaInstance, mediaOption);
+        }
+        return new PreparedMedia(mediaInstance, mrl);
+    }
+
+    /**
+     * Make sure an index refers to an item.
+     *
+     * @param index index
+     */
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " for size " + size);
+        }
+    }
+}
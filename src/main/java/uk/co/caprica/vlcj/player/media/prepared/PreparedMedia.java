@@ -0,0 +1,82 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.media.prepared;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_t;
+import uk.co.caprica.vlcj.player.media.AbstractMedia;
+
+/**
+ * Encapsulation of 'prepared' media, i.e. media for which a native media instance has already been
+ * created, with its media options already applied.
+ * <p>
+ * The media player takes its own native reference to the media instance when the media is played,
+ * but the owner of the media instance must keep its reference until then.
+ */
+public class PreparedMedia extends AbstractMedia {
+
+    /**
+     * Native media instance.
+     */
+    private final libvlc_media_t mediaInstance;
+
+    /**
+     * Media Resource Locator, for information only.
+     */
+    private final String mrl;
+
+    /**
+     * Create a media instance.
+     *
+     * @param mediaInstance native media instance
+     * @param mrl media resource locator the native media instance was created from
+     */
+    public PreparedMedia(libvlc_media_t mediaInstance, String mrl) {
+        super();
+        this.mediaInstance = mediaInstance;
+        this.mrl = mrl;
+    }
+
+    /**
+     * Get the native media instance.
+     *
+     * @return native media instance
+     */
+    public libvlc_media_t mediaInstance() {
+        return mediaInstance;
+    }
+
+    /**
+     * Get the MRL.
+     *
+     * @return MRL
+     */
+    public String mrl() {
+        return mrl;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(40)
+            .append(getClass().getSimpleName()).append('[')
+            .append("mediaInstance=").append(mediaInstance).append(',')
+            .append("mrl=").append(mrl).append(']')
+            .toString();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Prepared media, i.e. that represented by an existing native media instance.
+ */
+package uk.co.caprica.vlcj.player.media.prepared;
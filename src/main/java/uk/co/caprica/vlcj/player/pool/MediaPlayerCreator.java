@@ -0,0 +1,37 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.pool;
+
+import uk.co.caprica.vlcj.player.MediaPlayer;
+
+/**
+ * Specification for a component that creates new media players for a {@link MediaPlayerPool}.
+ *
+ * @param <T> type of media player
+ */
+public interface MediaPlayerCreator<T extends MediaPlayer> {
+
+    /**
+     * Create a new media player.
+     *
+     * @return media player
+     */
+    T newMediaPlayer();
+}
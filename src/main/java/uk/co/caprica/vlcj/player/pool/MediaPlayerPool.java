@@ -0,0 +1,584 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.pool;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.player.MediaPlayer;
+
+/**
+ * A pool of re-usable media players.
+ * <p>
+ * Creating a media player allocates a native media player, registers native event callbacks and
+ * starts an event notification thread, releasing one undoes all of that again. Where many short-
+ * lived media players are needed, it is much cheaper to take an idle player from a pool and give
+ * it back when finished with it.
+ * <p>
+ * The pool creates new media players on demand, up to a maximum size. When the maximum size is
+ * reached, requests for a media player wait until one is given back to the pool. Media players
+ * that have been idle for longer than the maximum idle time are released.
+ * <p>
+ * When a media player is given back to the pool, play-back is stopped and the repeat, play
+ * sub-items and standard media options settings are reset. <strong>Any event listeners or other
+ * state added by the application must be removed by the application before giving the media
+ * player back.</strong>
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   MediaPlayerPool&lt;HeadlessMediaPlayer&gt; pool = mediaPlayerFactory.newHeadlessMediaPlayerPool(16, 60, TimeUnit.SECONDS);
+ *
+ *   HeadlessMediaPlayer mediaPlayer = pool.acquire();
+ *   try {
+ *       ...
+ *   }
+ *   finally {
+ *       pool.release(mediaPlayer);
+ *   }
+ *
+ *   ...
+ *
+ *   pool.release();
+ * </pre>
+ *
+ * This class is thread-safe.
+ *
+ * @param <T> type of media player
+ */
+public class MediaPlayerPool<T extends MediaPlayer> {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(MediaPlayerPool.class);
+
+    /**
+     * Component used to create new media players.
+     */
+    private final MediaPlayerCreator<T> creator;
+
+    /**
+     * Maximum number of media players, idle and in use.
+     */
+    private final int maximumSize;
+
+    /**
+     * Maximum time a media player may be idle before it is released, in nanoseconds.
+     */
+    private final long maximumIdleNanos;
+
+    /**
+     * Lock guarding the pool state.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a media player is given back to the pool, or when the pool size decreases.
+     */
+    private final Condition available = lock.newCondition();
+
+    /**
+     * Idle media players, most recently used first.
+     */
+    private final Deque<IdleMediaPlayer<T>> idle = new ArrayDeque<IdleMediaPlayer<T>>();
+
+    /**
+     * Media players currently in use.
+     */
+    private final Set<T> inUse = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+
+    /**
+     * Number of media players that are being created.
+     */
+    private int creating;
+
+    /**
+     * Number of media players given back to the pool that are being reset.
+     */
+    private int resetting;
+
+    /**
+     * Set to true when the pool has been released.
+     */
+    private boolean released;
+
+    /**
+     * Number of media players created.
+     */
+    private long createdCount;
+
+    /**
+     * Number of idle media players released.
+     */
+    private long evictedCount;
+
+    /**
+     * Number of media players handed out.
+     */
+    private long acquiredCount;
+
+    /**
+     * Number of times a request had to wait for a media player.
+     */
+    private long waitCount;
+
+    /**
+     * Background thread to release media players that have been idle for too long.
+     */
+    private final ScheduledExecutorService evictionService;
+
+    /**
+     * Create a media player pool.
+     *
+     * @param creator component used to create new media players
+     * @param maximumSize maximum number of media players, idle and in use
+     * @param maximumIdleTime maximum time a media player may be idle before it is released
+     * @param unit unit of the maximum idle time
+     */
+    public MediaPlayerPool(MediaPlayerCreator<T> creator, int maximumSize, long maximumIdleTime, TimeUnit unit) {
+        if(maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1");
+        }
+        if(maximumIdleTime <= 0) {
+            throw new IllegalArgumentException("Maximum idle time must be greater than 0");
+        }
+        this.creator = creator;
+        this.maximumSize = maximumSize;
+        this.maximumIdleNanos = unit.toNanos(maximumIdleTime);
+        this.evictionService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "vlcj-media-player-pool");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(maximumIdleNanos / 2, TimeUnit.MILLISECONDS.toNanos(100));
+        evictionService.scheduleWithFixedDelay(new EvictionRunnable(), period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create idle media players up-front so that subsequent requests need not wait for them to be
+     * created.
+     * <p>
+     * Pre-started media players are still released if they remain idle for longer than the
+     * maximum idle time.
+     *
+     * @param count number of media players, the pool will not grow beyond the maximum size
+     * @return number of media players created
+     */
+    public int prestart(int count) {
+        logger.debug("prestart(count={})", count);
+        int created = 0;
+        for(int i = 0; i < count && reserve(); i++) {
+            T mediaPlayer = null;
+            boolean added = false;
+            try {
+                mediaPlayer = create();
+            }
+            finally {
+                lock.lock();
+                try {
+                    creating--;
+                    if(mediaPlayer != null && !released) {
+                        idle.addLast(new IdleMediaPlayer<T>(mediaPlayer, System.nanoTime()));
+                        added = true;
+                    }
+                    available.signal();
+                }
+                finally {
+                    lock.unlock();
+                }
+            }
+            if(added) {
+                created++;
+            }
+            else {
+                mediaPlayer.release();
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Get a media player from the pool, waiting if necessary until one becomes available.
+     *
+     * @return media player
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the pool has been released
+     */
+    public T acquire() throws InterruptedException {
+        logger.debug("acquire()");
+        return acquire(-1);
+    }
+
+    /**
+     * Get a media player from the pool, waiting if necessary up to a timeout for one to become
+     * available.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of the timeout
+     * @return media player, or <code>null</code> if none became available before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the pool has been released
+     */
+    public T acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        logger.debug("acquire(timeout={},unit={})", timeout, unit);
+        return acquire(Math.max(unit.toNanos(timeout), 0));
+    }
+
+    /**
+     * Give a media player back to the pool.
+     * <p>
+     * The media player is stopped and reset before it is made available again. Repeat, sub-item
+     * play-back, standard media options, volume, mute, rate, equalizer, audio and subtitle delays,
+     * aspect ratio, scale, crop geometry, logo and marquee are all put back to their defaults. The
+     * last media remains set on the stopped media player until the next borrower plays something
+     * else, and event listeners added by the borrower are not removed.
+     *
+     * @param mediaPlayer media player previously acquired from this pool
+     * @throws IllegalArgumentException if the media player is not in use from this pool
+     */
+    public void release(T mediaPlayer) {
+        logger.debug("release(mediaPlayer={})", mediaPlayer);
+        lock.lock();
+        try {
+            // Removing straight away means a second release of the same media player fails here,
+            // rather than putting it in the idle list twice
+            if(!inUse.remove(mediaPlayer)) {
+                throw new IllegalArgumentException("Media player is not in use from this pool");
+            }
+            resetting++;
+        }
+        finally {
+            lock.unlock();
+        }
+        // Stopping may block in the native library, so do it without holding the lock
+        boolean reset = reset(mediaPlayer);
+        lock.lock();
+        try {
+            resetting--;
+            if(reset && !released) {
+                idle.addFirst(new IdleMediaPlayer<T>(mediaPlayer, System.nanoTime()));
+                available.signal();
+                return;
+            }
+            available.signal();
+        }
+        finally {
+            lock.unlock();
+        }
+        mediaPlayer.release();
+    }
+
+    /**
+     * Get a snapshot of the pool utilisation.
+     *
+     * @return statistics
+     */
+    public MediaPlayerPoolStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new MediaPlayerPoolStatistics(maximumSize, idle.size(), inUse.size(), lock.getWaitQueueLength(available), createdCount, evictedCount, acquiredCount, waitCount);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the pool and all of its idle media players.
+     * <p>
+     * Media players that are still in use are released when they are given back to the pool.
+     * Requests that are waiting for a media player fail.
+     */
+    public void release() {
+        logger.debug("release()");
+        Deque<IdleMediaPlayer<T>> toRelease;
+        lock.lock();
+        try {
+            if(released) {
+                return;
+            }
+            released = true;
+            toRelease = new ArrayDeque<IdleMediaPlayer<T>>(idle);
+            idle.clear();
+            available.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+        evictionService.shutdown();
+        for(IdleMediaPlayer<T> idleMediaPlayer : toRelease) {
+            idleMediaPlayer.mediaPlayer.release();
+        }
+    }
+
+    /**
+     * Get a media player from the pool.
+     *
+     * @param timeoutNanos maximum time to wait, in nanoseconds, or less than zero to wait indefinitely
+     * @return media player, or <code>null</code> on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private T acquire(long timeoutNanos) throws InterruptedException {
+        long remaining = timeoutNanos;
+        boolean waited = false;
+        lock.lockInterruptibly();
+        try {
+            for(;;) {
+                if(released) {
+                    throw new IllegalStateException("Media player pool has been released");
+                }
+                IdleMediaPlayer<T> idleMediaPlayer = idle.pollFirst();
+                if(idleMediaPlayer != null) {
+                    inUse.add(idleMediaPlayer.mediaPlayer);
+                    acquiredCount++;
+                    return idleMediaPlayer.mediaPlayer;
+                }
+                if(size() < maximumSize) {
+                    // Reserve a place in the pool and create the media player without holding the lock
+                    creating++;
+                    break;
+                }
+                if(!waited) {
+                    waited = true;
+                    waitCount++;
+                }
+                if(timeoutNanos < 0) {
+                    available.await();
+                }
+                else if(remaining > 0) {
+                    remaining = available.awaitNanos(remaining);
+                }
+                else {
+                    return null;
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        T mediaPlayer;
+        try {
+            mediaPlayer = create();
+        }
+        catch(RuntimeException e) {
+            lock.lock();
+            try {
+                creating--;
+                available.signal();
+            }
+            finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+        lock.lock();
+        try {
+            creating--;
+            inUse.add(mediaPlayer);
+            acquiredCount++;
+        }
+        finally {
+            lock.unlock();
+        }
+        return mediaPlayer;
+    }
+
+    /**
+     * Reserve a place in the pool for a new media player, if there is room.
+     *
+     * @return <code>true</code> if a place was reserved; <code>false</code> if the pool is full or released
+     */
+    private boolean reserve() {
+        lock.lock();
+        try {
+            if(!released && size() < maximumSize) {
+                creating++;
+                return true;
+            }
+            return false;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Create a new media player.
+     * <p>
+     * The caller must have reserved a place in the pool and must not hold the lock.
+     *
+     * @return media player
+     */
+    private T create() {
+        T mediaPlayer = creator.newMediaPlayer();
+        lock.lock();
+        try {
+            createdCount++;
+        }
+        finally {
+            lock.unlock();
+        }
+        logger.debug("Created pooled media player {}", mediaPlayer);
+        return mediaPlayer;
+    }
+
+    /**
+     * Get the current number of media players, idle, in use, being created and being reset.
+     * <p>
+     * The caller must hold the lock.
+     *
+     * @return number of media players
+     */
+    private int size() {
+        return idle.size() + inUse.size() + creating + resetting;
+    }
+
+    /**
+     * Stop and reset a media player so it can be re-used.
+     *
+     * @param mediaPlayer media player
+     * @return <code>true</code> if the media player was reset; <code>false</code> if it failed and should be discarded
+     */
+    private boolean reset(T mediaPlayer) {
+        try {
+            mediaPlayer.stop();
+            mediaPlayer.setRepeat(false);
+            mediaPlayer.setPlaySubItems(false);
+            mediaPlayer.setStandardMediaOptions();
+            mediaPlayer.mute(false);
+            mediaPlayer.setVolume(100);
+            mediaPlayer.setRate(1.0f);
+            // Only an equalizer that was set can need removing, and the native equalizer functions
+            // are not available before LibVLC 2.2.0
+            if(mediaPlayer.getEqualizer() != null) {
+                mediaPlayer.setEqualizer(null);
+            }
+            mediaPlayer.setAudioDelay(0);
+            mediaPlayer.setSpuDelay(0);
+            mediaPlayer.setAspectRatio(null);
+            mediaPlayer.setScale(0);
+            mediaPlayer.setCropGeometry(null);
+            mediaPlayer.enableLogo(false);
+            mediaPlayer.enableMarquee(false);
+            return true;
+        }
+        catch(RuntimeException e) {
+            logger.warn("Failed to reset pooled media player, it will be discarded", e);
+            return false;
+        }
+        catch(LinkageError e) {
+            // A native function missing from the run-time native library
+            logger.warn("Failed to reset pooled media player, it will be discarded", e);
+            return false;
+        }
+    }
+
+    /**
+     * Release the media players that have been idle for longer than the maximum idle time.
+     */
+    private void evict() {
+        Deque<IdleMediaPlayer<T>> toRelease = new ArrayDeque<IdleMediaPlayer<T>>();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            // The least recently used media players are at the end
+            Iterator<IdleMediaPlayer<T>> it = idle.descendingIterator();
+            while(it.hasNext()) {
+                IdleMediaPlayer<T> idleMediaPlayer = it.next();
+                if(now - idleMediaPlayer.idleSince < maximumIdleNanos) {
+                    break;
+                }
+                it.remove();
+                toRelease.add(idleMediaPlayer);
+            }
+            evictedCount += toRelease.size();
+        }
+        finally {
+            lock.unlock();
+        }
+        for(IdleMediaPlayer<T> idleMediaPlayer : toRelease) {
+            logger.debug("Evicting idle pooled media player {}", idleMediaPlayer.mediaPlayer);
+            idleMediaPlayer.mediaPlayer.release();
+        }
+    }
+
+    /**
+     * Task to periodically release the media players that have been idle for too long.
+     */
+    private final class EvictionRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                evict();
+            }
+            catch(RuntimeException e) {
+                // Never let an exception cancel the periodic task
+                logger.warn("Failed to evict idle media players", e);
+            }
+        }
+    }
+
+    /**
+     * An idle media player and the time it became idle.
+     *
+     * @param <T> type of media player
+     */
+    private static final class IdleMediaPlayer<T> {
+
+        /**
+         * Media player.
+         */
+        private final T mediaPlayer;
+
+        /**
+         * Time the media player became idle, in nanoseconds.
+         */
+        private final long idleSince;
+
+        /**
+         * Create an idle media player record.
+         *
+         * @param mediaPlayer media player
+         * @param idleSince time the media player became idle, in nanoseconds
+         */
+        private IdleMediaPlayer(T mediaPlayer, long idleSince) {
+            this.mediaPlayer = mediaPlayer;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.pool;
+
+/**
+ * Immutable snapshot of the utilisation of a {@link MediaPlayerPool}.
+ */
+public final class MediaPlayerPoolStatistics {
+
+    /**
+     * Maximum number of media players.
+     */
+    private final int maximumSize;
+
+    /**
+     * Number of idle media players.
+     */
+    private final int idle;
+
+    /**
+     * Number of media players in use.
+     */
+    private final int inUse;
+
+    /**
+     * Number of requests currently waiting for a media player.
+     */
+    private final int waiting;
+
+    /**
+     * Number of media players created.
+     */
+    private final long created;
+
+    /**
+     * Number of idle media players released.
+     */
+    private final long evicted;
+
+    /**
+     * Number of media players handed out.
+     */
+    private final long acquired;
+
+    /**
+     * Number of requests that had to wait for a media player.
+     */
+    private final long waits;
+
+    /**
+     * Create a statistics snapshot.
+     *
+     * @param maximumSize maximum number of media players
+     * @param idle number of idle media players
+     * @param inUse number of media players in use
+     * @param waiting number of requests currently waiting for a media player
+     * @param created number of media players created
+     * @param evicted number of idle media players released
+     * @param acquired number of media players handed out
+     * @param waits number of requests that had to wait for a media player
+     */
+    MediaPlayerPoolStatistics(int maximumSize, int idle, int inUse, int waiting, long created, long evicted, long acquired, long waits) {
+        this.maximumSize = maximumSize;
+        this.idle = idle;
+        this.inUse = inUse;
+        this.waiting = waiting;
+        this.created = created;
+        this.evicted = evicted;
+        this.acquired = acquired;
+        this.waits = waits;
+    }
+
+    /**
+     * Get the maximum number of media players.
+     *
+     * @return maximum size
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Get the number of idle media players.
+     *
+     * @return number of media players
+     */
+    public int idle() {
+        return idle;
+    }
+
+    /**
+     * Get the number of media players in use.
+     *
+     * @return number of media players
+     */
+    public int inUse() {
+        return inUse;
+    }
+
+    /**
+     * Get the number of requests currently waiting for a media player.
+     *
+     * @return number of requests
+     */
+    public int waiting() {
+        return waiting;
+    }
+
+    /**
+     * Get the number of media players created since the pool was created.
+     *
+     * @return number of media players
+     */
+    public long created() {
+        return created;
+    }
+
+    /**
+     * Get the number of idle media players released since the pool was created.
+     *
+     * @return number of media players
+     */
+    public long evicted() {
+        return evicted;
+    }
+
+    /**
+     * Get the number of media players handed out since the pool was created.
+     *
+     * @return number of media players
+     */
+    public long acquired() {
+        return acquired;
+    }
+
+    /**
+     * Get the number of requests that had to wait for a media player since the pool was created.
+     *
+     * @return number of requests
+     */
+    public long waits() {
+        return waits;
+    }
+
+    /**
+     * Get the fraction of the maximum number of media players that are in use.
+     *
+     * @return utilisation, from 0 to 1
+     */
+    public float utilisation() {
+        return (float)inUse / maximumSize;
+    }
+
+    /**
+     * Get the fraction of requests that were satisfied by re-using an existing media player rather
+     * than creating a new one.
+     *
+     * @return re-use ratio, from 0 to 1
+     */
+    public float reuse() {
+        return acquired > 0 ? Math.max(acquired - created, 0) / (float)acquired : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(200);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("maximumSize=").append(maximumSize).append(',');
+        sb.append("idle=").append(idle).append(',');
+        sb.append("inUse=").append(inUse).append(',');
+        sb.append("waiting=").append(waiting).append(',');
+        sb.append("created=").append(created).append(',');
+        sb.append("evicted=").append(evicted).append(',');
+        sb.append("acquired=").append(acquired).append(',');
+        sb.append("waits=").append(waits).append(']');
+        return sb.toString();
+    }
+}
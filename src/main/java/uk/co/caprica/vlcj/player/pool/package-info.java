@@ -0,0 +1,4 @@
+/**
+ * Provides the classes necessary to re-use media player instances from a pool.
+ */
+package uk.co.caprica.vlcj.player.pool;
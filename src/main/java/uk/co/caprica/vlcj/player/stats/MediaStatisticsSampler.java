@@ -0,0 +1,470 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.stats;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_stats_t;
+import uk.co.caprica.vlcj.player.MediaPlayer;
+
+/**
+ * Periodically samples the media statistics of one or more media players and derives rates from
+ * the native cumulative counters.
+ * <p>
+ * All media players are sampled on a single thread. For each media player the most recent
+ * rates are available as an immutable {@link MediaStatisticsSnapshot}, and a fixed number of past
+ * values of each rate are kept in a ring buffer.
+ * <p>
+ * Thresholds may be registered to be notified when a rate goes above or below a given value, for
+ * example when pictures start being lost.
+ * <p>
+ * Media players are only sampled while they are playing. When the native counters go backwards,
+ * because new media was started, the sample is used only as the base for the next one.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ *   MediaStatisticsSampler sampler = new MediaStatisticsSampler(1, TimeUnit.SECONDS, 60);
+ *   sampler.addThreshold(StatisticsMetric.LOST_PICTURES, true, 5, listener);
+ *   sampler.add(mediaPlayer);
+ *
+ *   ...
+ *
+ *   MediaStatisticsSnapshot snapshot = sampler.getSnapshot(mediaPlayer);
+ *   float[] inputBitrates = sampler.getHistory(mediaPlayer, StatisticsMetric.INPUT_BITRATE);
+ *
+ *   ...
+ *
+ *   sampler.release();
+ * </pre>
+ *
+ * This class is thread-safe.
+ */
+public final class MediaStatisticsSampler {
+
+    /**
+     * Log.
+     */
+    private final Logger logger = LoggerFactory.getLogger(MediaStatisticsSampler.class);
+
+    /**
+     * Metrics, in ordinal order.
+     */
+    private static final StatisticsMetric[] METRICS = StatisticsMetric.values();
+
+    /**
+     * Number of native counters sampled.
+     */
+    private static final int COUNTERS = 10;
+
+    /**
+     * Number of past values kept for each rate.
+     */
+    private final int historySize;
+
+    /**
+     * Sampled media players.
+     */
+    private final ConcurrentMap<MediaPlayer, PlayerSamples> players = new ConcurrentHashMap<MediaPlayer, PlayerSamples>();
+
+    /**
+     * Native structure the statistics are read into.
+     * <p>
+     * Owned by the sampler thread, so that sampling never shares the structure of a media player
+     * with the application.
+     */
+    private final libvlc_media_stats_t stats = new libvlc_media_stats_t();
+
+    /**
+     * Registered thresholds.
+     */
+    private final CopyOnWriteArrayList<Threshold> thresholds = new CopyOnWriteArrayList<Threshold>();
+
+    /**
+     * Sampler thread.
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "vlcj-statistics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Create a sampler.
+     *
+     * @param period time between samples
+     * @param unit unit of the time between samples
+     * @param historySize number of past values to keep for each rate
+     */
+    public MediaStatisticsSampler(long period, TimeUnit unit, int historySize) {
+        logger.debug("MediaStatisticsSampler(period={},unit={},historySize={})", period, unit, historySize);
+        if(period <= 0) {
+            throw new IllegalArgumentException("period must be greater than zero");
+        }
+        if(historySize < 1) {
+            throw new IllegalArgumentException("historySize must be at least 1");
+        }
+        this.historySize = historySize;
+        executor.scheduleAtFixedRate(new SampleRunnable(), period, period, unit);
+    }
+
+    /**
+     * Start sampling a media player.
+     *
+     * @param mediaPlayer media player
+     */
+    public void add(MediaPlayer mediaPlayer) {
+        logger.debug("add(mediaPlayer={})", mediaPlayer);
+        players.putIfAbsent(mediaPlayer, new PlayerSamples(historySize));
+    }
+
+    /**
+     * Stop sampling a media player.
+     * <p>
+     * This must be done before the media player is released.
+     *
+     * @param mediaPlayer media player
+     */
+    public void remove(final MediaPlayer mediaPlayer) {
+        logger.debug("remove(mediaPlayer={})", mediaPlayer);
+        if(players.remove(mediaPlayer) != null && !executor.isShutdown()) {
+            // Threshold state is owned by the sampler thread
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for(Threshold threshold : thresholds) {
+                        threshold.exceeded.remove(mediaPlayer);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the most recent rates for a media player.
+     *
+     * @param mediaPlayer media player
+     * @return snapshot, or <code>null</code> if the media player has not been sampled yet
+     */
+    public MediaStatisticsSnapshot getSnapshot(MediaPlayer mediaPlayer) {
+        PlayerSamples samples = players.get(mediaPlayer);
+        return samples != null ? samples.latest : null;
+    }
+
+    /**
+     * Get the past values of a rate for a media player.
+     *
+     * @param mediaPlayer media player
+     * @param metric rate
+     * @return values, oldest first, empty if the media player is not being sampled
+     */
+    public float[] getHistory(MediaPlayer mediaPlayer, StatisticsMetric metric) {
+        PlayerSamples samples = players.get(mediaPlayer);
+        return samples != null ? samples.history(metric) : new float[0];
+    }
+
+    /**
+     * Register a threshold for a rate, applying to all sampled media players.
+     *
+     * @param metric rate
+     * @param above <code>true</code> to be notified when the rate goes above the threshold; <code>false</code> when it goes below
+     * @param threshold threshold
+     * @param listener listener to notify
+     */
+    public void addThreshold(StatisticsMetric metric, boolean above, float threshold, StatisticsThresholdListener listener) {
+        logger.debug("addThreshold(metric={},above={},threshold={},listener={})", metric, above, threshold, listener);
+        thresholds.add(new Threshold(metric, above, threshold, listener));
+    }
+
+    /**
+     * Remove all thresholds registered with a listener.
+     *
+     * @param listener listener
+     */
+    public void removeThresholds(StatisticsThresholdListener listener) {
+        logger.debug("removeThresholds(listener={})", listener);
+        for(Threshold threshold : thresholds) {
+            if(threshold.listener == listener) {
+                thresholds.remove(threshold);
+            }
+        }
+    }
+
+    /**
+     * Stop sampling and release the sampler thread.
+     */
+    public void release() {
+        logger.debug("release()");
+        executor.shutdownNow();
+        players.clear();
+    }
+
+    /**
+     * Sample all media players.
+     */
+    private void sample() {
+        for(Map.Entry<MediaPlayer, PlayerSamples> entry : players.entrySet()) {
+            MediaPlayer mediaPlayer = entry.getKey();
+            PlayerSamples samples = entry.getValue();
+            try {
+                if(mediaPlayer.getMediaStatistics(stats)) {
+                    MediaStatisticsSnapshot snapshot = samples.sample(stats, System.nanoTime());
+                    if(snapshot != null) {
+                        checkThresholds(mediaPlayer, snapshot);
+                    }
+                }
+                else {
+                    samples.valid = false;
+                }
+            }
+            catch(RuntimeException e) {
+                logger.warn("Failed to sample media player {}", mediaPlayer, e);
+            }
+        }
+    }
+
+    /**
+     * Notify listeners of any thresholds crossed by a new snapshot.
+     *
+     * @param mediaPlayer media player
+     * @param snapshot new snapshot
+     */
+    private void checkThresholds(MediaPlayer mediaPlayer, MediaStatisticsSnapshot snapshot) {
+        for(Threshold threshold : thresholds) {
+            float value = snapshot.get(threshold.metric);
+            boolean exceeded = threshold.above ? value > threshold.threshold : value < threshold.threshold;
+            if(exceeded) {
+                if(threshold.exceeded.add(mediaPlayer)) {
+                    threshold.listener.thresholdExceeded(mediaPlayer, threshold.metric, value, threshold.threshold);
+                }
+            }
+            else {
+                if(threshold.exceeded.remove(mediaPlayer)) {
+                    threshold.listener.thresholdCleared(mediaPlayer, threshold.metric, value, threshold.threshold);
+                }
+            }
+        }
+    }
+
+    /**
+     * Samples and derived rates for one media player.
+     */
+    private static final class PlayerSamples {
+
+        /**
+         * Native counters from the previous sample.
+         */
+        private final long[] counters = new long[COUNTERS];
+
+        /**
+         * Ring buffer of past rates, one run of history values per metric.
+         */
+        private final float[] history;
+
+        /**
+         * Number of past values kept for each rate.
+         */
+        private final int historySize;
+
+        /**
+         * Index of the next value to write in the ring buffer.
+         */
+        private int head;
+
+        /**
+         * Number of values in the ring buffer.
+         */
+        private int count;
+
+        /**
+         * Time of the previous sample.
+         */
+        private long timestamp;
+
+        /**
+         * Set when the previous sample can be used as the base for the next one.
+         * <p>
+         * Only accessed on the sampler thread.
+         */
+        private boolean valid;
+
+        /**
+         * Most recent snapshot.
+         */
+        private volatile MediaStatisticsSnapshot latest;
+
+        /**
+         * Create the samples for a media player.
+         *
+         * @param historySize number of past values to keep for each rate
+         */
+        private PlayerSamples(int historySize) {
+            this.historySize = historySize;
+            this.history = new float[historySize * METRICS.length];
+        }
+
+        /**
+         * Record a sample.
+         *
+         * @param stats native statistics
+         * @param now time of the sample
+         * @return new snapshot, or <code>null</code> if the sample only set a new base
+         */
+        private MediaStatisticsSnapshot sample(libvlc_media_stats_t stats, long now) {
+            // The native structure is re-used for every media player, so copy it at once
+            long[] current = new long[] {
+                stats.i_read_bytes,
+                stats.i_demux_read_bytes,
+                stats.i_demux_corrupted,
+                stats.i_demux_discontinuity,
+                stats.i_decoded_video,
+                stats.i_displayed_pictures,
+                stats.i_lost_pictures,
+                stats.i_decoded_audio,
+                stats.i_played_abuffers,
+                stats.i_lost_abuffers
+            };
+            boolean usable = valid && now > timestamp;
+            for(int i = 0; i < COUNTERS && usable; i++) {
+                usable = current[i] >= counters[i];
+            }
+            MediaStatisticsSnapshot result = null;
+            if(usable) {
+                long interval = now - timestamp;
+                float seconds = interval / 1000000000f;
+                float[] rates = new float[METRICS.length];
+                rates[StatisticsMetric.INPUT_BITRATE.ordinal()] = (current[0] - counters[0]) * 8 / 1000f / seconds;
+                rates[StatisticsMetric.DEMUX_BITRATE.ordinal()] = (current[1] - counters[1]) * 8 / 1000f / seconds;
+                rates[StatisticsMetric.DEMUX_CORRUPTED.ordinal()] = (current[2] - counters[2]) / seconds;
+                rates[StatisticsMetric.DEMUX_DISCONTINUITY.ordinal()] = (current[3] - counters[3]) / seconds;
+                rates[StatisticsMetric.DECODED_VIDEO.ordinal()] = (current[4] - counters[4]) / seconds;
+                rates[StatisticsMetric.DISPLAYED_PICTURES.ordinal()] = (current[5] - counters[5]) / seconds;
+                rates[StatisticsMetric.LOST_PICTURES.ordinal()] = (current[6] - counters[6]) / seconds;
+                rates[StatisticsMetric.DECODED_AUDIO.ordinal()] = (current[7] - counters[7]) / seconds;
+                rates[StatisticsMetric.PLAYED_AUDIO_BUFFERS.ordinal()] = (current[8] - counters[8]) / seconds;
+                rates[StatisticsMetric.LOST_AUDIO_BUFFERS.ordinal()] = (current[9] - counters[9]) / seconds;
+                synchronized(this) {
+                    for(int i = 0; i < rates.length; i++) {
+                        history[i * historySize + head] = rates[i];
+                    }
+                    head = (head + 1) % historySize;
+                    count = Math.min(count + 1, historySize);
+                }
+                result = new MediaStatisticsSnapshot(now, interval, rates);
+                latest = result;
+            }
+            System.arraycopy(current, 0, counters, 0, COUNTERS);
+            timestamp = now;
+            valid = true;
+            return result;
+        }
+
+        /**
+         * Get the past values of a rate.
+         *
+         * @param metric rate
+         * @return values, oldest first
+         */
+        private synchronized float[] history(StatisticsMetric metric) {
+            float[] result = new float[count];
+            int base = metric.ordinal() * historySize;
+            int start = (head - count + historySize) % historySize;
+            for(int i = 0; i < count; i++) {
+                result[i] = history[base + (start + i) % historySize];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A registered threshold.
+     */
+    private static final class Threshold {
+
+        /**
+         * Rate.
+         */
+        private final StatisticsMetric metric;
+
+        /**
+         * <code>true</code> to notify when the rate goes above the threshold, <code>false</code> when it goes below.
+         */
+        private final boolean above;
+
+        /**
+         * Threshold.
+         */
+        private final float threshold;
+
+        /**
+         * Listener to notify.
+         */
+        private final StatisticsThresholdListener listener;
+
+        /**
+         * Media players currently beyond the threshold.
+         * <p>
+         * Only accessed on the sampler thread.
+         */
+        private final Set<MediaPlayer> exceeded = Collections.newSetFromMap(new IdentityHashMap<MediaPlayer, Boolean>());
+
+        /**
+         * Create a threshold.
+         *
+         * @param metric rate
+         * @param above <code>true</code> to notify when the rate goes above the threshold, <code>false</code> when it goes below
+         * @param threshold threshold
+         * @param listener listener to notify
+         */
+        private Threshold(StatisticsMetric metric, boolean above, float threshold, StatisticsThresholdListener listener) {
+            this.metric = metric;
+            this.above = above;
+            this.threshold = threshold;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Task to sample all media players.
+     */
+    private final class SampleRunnable implements Runnable {
+
+        @Override
+        public void run() {
+            sample();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.stats;
+
+/**
+ * Immutable snapshot of the rates derived from one pair of media statistics samples.
+ */
+public final class MediaStatisticsSnapshot {
+
+    /**
+     * Time of the sample, from {@link System#nanoTime()}.
+     */
+    private final long timestamp;
+
+    /**
+     * Time since the previous sample, nanoseconds.
+     */
+    private final long intervalNanos;
+
+    /**
+     * Rates, indexed by metric ordinal.
+     */
+    private final float[] rates;
+
+    /**
+     * Create a snapshot.
+     *
+     * @param timestamp time of the sample
+     * @param intervalNanos time since the previous sample, nanoseconds
+     * @param rates rates, indexed by metric ordinal, the array is not copied
+     */
+    MediaStatisticsSnapshot(long timestamp, long intervalNanos, float[] rates) {
+        this.timestamp = timestamp;
+        this.intervalNanos = intervalNanos;
+        this.rates = rates;
+    }
+
+    /**
+     * Get the time of the sample.
+     *
+     * @return time, from {@link System#nanoTime()}
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Get the time since the previous sample.
+     *
+     * @return interval, nanoseconds
+     */
+    public long intervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Get a rate.
+     *
+     * @param metric metric
+     * @return rate
+     */
+    public float get(StatisticsMetric metric) {
+        return rates[metric.ordinal()];
+    }
+
+    /**
+     * Get the fraction of pictures that were lost rather than displayed.
+     *
+     * @return drop ratio, from 0 to 1
+     */
+    public float pictureDropRatio() {
+        float total = get(StatisticsMetric.DISPLAYED_PICTURES) + get(StatisticsMetric.LOST_PICTURES);
+        return total > 0 ? get(StatisticsMetric.LOST_PICTURES) / total : 0;
+    }
+
+    /**
+     * Get the fraction of audio buffers that were lost rather than played.
+     *
+     * @return drop ratio, from 0 to 1
+     */
+    public float audioDropRatio() {
+        float total = get(StatisticsMetric.PLAYED_AUDIO_BUFFERS) + get(StatisticsMetric.LOST_AUDIO_BUFFERS);
+        return total > 0 ? get(StatisticsMetric.LOST_AUDIO_BUFFERS) / total : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(300);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("timestamp=").append(timestamp).append(',');
+        sb.append("intervalNanos=").append(intervalNanos);
+        for(StatisticsMetric metric : StatisticsMetric.values()) {
+            sb.append(',').append(metric).append('=').append(rates[metric.ordinal()]);
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.stats;
+
+/**
+ * Enumeration of rates derived from successive media statistics samples.
+ * <p>
+ * Each rate is the change in a cumulative native counter divided by the time between two samples.
+ */
+public enum StatisticsMetric {
+
+    /**
+     * Input bit-rate, kilobits per second.
+     */
+    INPUT_BITRATE,
+
+    /**
+     * Demux bit-rate, kilobits per second.
+     */
+    DEMUX_BITRATE,
+
+    /**
+     * Corrupted demux packets, per second.
+     */
+    DEMUX_CORRUPTED,
+
+    /**
+     * Demux discontinuities, per second.
+     */
+    DEMUX_DISCONTINUITY,
+
+    /**
+     * Decoded video frames, per second.
+     */
+    DECODED_VIDEO,
+
+    /**
+     * Displayed pictures, per second.
+     */
+    DISPLAYED_PICTURES,
+
+    /**
+     * Lost pictures, per second.
+     */
+    LOST_PICTURES,
+
+    /**
+     * Decoded audio blocks, per second.
+     */
+    DECODED_AUDIO,
+
+    /**
+     * Played audio buffers, per second.
+     */
+    PLAYED_AUDIO_BUFFERS,
+
+    /**
+     * Lost audio buffers, per second.
+     */
+    LOST_AUDIO_BUFFERS
+}
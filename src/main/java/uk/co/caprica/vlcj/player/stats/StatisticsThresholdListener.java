@@ -0,0 +1,54 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.player.stats;
+
+import uk.co.caprica.vlcj.player.MediaPlayer;
+
+/**
+ * Specification for a component that is notified when a sampled rate crosses a threshold.
+ * <p>
+ * Notifications are edge-triggered, a listener is told once when the threshold is crossed and
+ * once when the rate returns within the threshold.
+ * <p>
+ * Notifications are delivered on the sampler thread, implementations must not block and must not
+ * call back into the native media player.
+ */
+public interface StatisticsThresholdListener {
+
+    /**
+     * A rate has crossed its threshold.
+     *
+     * @param mediaPlayer media player
+     * @param metric rate that crossed the threshold
+     * @param value sampled value of the rate
+     * @param threshold threshold
+     */
+    void thresholdExceeded(MediaPlayer mediaPlayer, StatisticsMetric metric, float value, float threshold);
+
+    /**
+     * A rate has returned within its threshold.
+     *
+     * @param mediaPlayer media player
+     * @param metric rate
+     * @param value sampled value of the rate
+     * @param threshold threshold
+     */
+    void thresholdCleared(MediaPlayer mediaPlayer, StatisticsMetric metric, float value, float threshold);
+}
@@ -0,0 +1,4 @@
+/**
+ * Provides the classes necessary to sample media statistics and derive rates from them.
+ */
+package uk.co.caprica.vlcj.player.stats;
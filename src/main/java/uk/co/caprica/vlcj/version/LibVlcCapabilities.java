@@ -0,0 +1,268 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.internal.libvlc_event_e;
+
+/**
+ * Capabilities of a particular native library binding.
+ * <p>
+ * The run-time version of the native library is determined once, and all of the version-dependent
+ * behaviours (the ranges of native events that the event managers will accept and the availability
+ * of various optional features) are derived from it at the same time.
+ * <p>
+ * Instances are immutable and are shared by every media player factory, media player and other
+ * component that uses the same native library binding, see {@link #capabilities(LibVlc)}.
+ */
+public final class LibVlcCapabilities {
+
+    /**
+     * LibVlc 3.0.0 API baseline.
+     */
+    private static final Version VERSION_300 = new Version("3.0.0");
+
+    /**
+     * LibVlc 2.2.0 API baseline.
+     */
+    private static final Version VERSION_220 = new Version("2.2.0");
+
+    /**
+     * LibVlc 2.1.5 API baseline, for the media sub-item tree event.
+     */
+    private static final Version VERSION_215 = new Version("2.1.5");
+
+    /**
+     * LibVlc 2.1.0 API baseline.
+     */
+    private static final Version VERSION_210 = new Version("2.1.0");
+
+    /**
+     * Cache of capabilities, one per native library binding.
+     * <p>
+     * The native library binding is weakly referenced so as not to prevent it being garbage
+     * collected.
+     */
+    private static final Map<LibVlc, LibVlcCapabilities> CAPABILITIES = new WeakHashMap<LibVlc, LibVlcCapabilities>();
+
+    /**
+     * Run-time version of vlc/libvlc.
+     */
+    private final Version version;
+
+    /**
+     * Native media player events that can be registered with the run-time native event manager.
+     */
+    private final List<libvlc_event_e> mediaPlayerEvents;
+
+    /**
+     * Native media events that can be registered with the run-time native event manager.
+     */
+    private final List<libvlc_event_e> mediaEvents;
+
+    /**
+     * Get the capabilities of a native library binding.
+     * <p>
+     * The native version is only queried the first time a particular binding is seen.
+     *
+     * @param libvlc native library binding
+     * @return capabilities
+     */
+    public static LibVlcCapabilities capabilities(LibVlc libvlc) {
+        synchronized(CAPABILITIES) {
+            LibVlcCapabilities result = CAPABILITIES.get(libvlc);
+            if(result == null) {
+                result = new LibVlcCapabilities(new Version(libvlc.libvlc_get_version()));
+                CAPABILITIES.put(libvlc, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Create capabilities.
+     *
+     * @param version run-time version of vlc/libvlc
+     */
+    private LibVlcCapabilities(Version version) {
+        this.version = version;
+        this.mediaPlayerEvents = events(libvlc_event_e.libvlc_MediaPlayerMediaChanged, lastKnownMediaPlayerEvent(version));
+        this.mediaEvents = events(libvlc_event_e.libvlc_MediaMetaChanged, lastKnownMediaEvent(version));
+    }
+
+    /**
+     * Get the run-time version.
+     *
+     * @return vlc/libvlc version
+     */
+    public Version version() {
+        return version;
+    }
+
+    /**
+     * Test whether or not the run-time version is at least the required version.
+     *
+     * @param required required version
+     * @return <code>true</code> if the run-time version is at least the required version
+     */
+    public boolean atLeast(Version required) {
+        return version.atLeast(required);
+    }
+
+    /**
+     * Get the native media player events supported by the run-time native event manager.
+     *
+     * @return unmodifiable list of events, in native order
+     */
+    public List<libvlc_event_e> mediaPlayerEvents() {
+        return mediaPlayerEvents;
+    }
+
+    /**
+     * Get the native media events supported by the run-time native event manager.
+     *
+     * @return unmodifiable list of events, in native order
+     */
+    public List<libvlc_event_e> mediaEvents() {
+        return mediaEvents;
+    }
+
+    /**
+     * Is the native log available?
+     *
+     * @return <code>true</code> if available; <code>false</code> otherwise
+     *
+     * @since libvlc 2.1.0
+     */
+    public boolean isNativeLogAvailable() {
+        return version.atLeast(VERSION_210);
+    }
+
+    /**
+     * Is the audio equalizer available?
+     *
+     * @return <code>true</code> if available; <code>false</code> otherwise
+     *
+     * @since libvlc 2.2.0
+     */
+    public boolean isEqualizerAvailable() {
+        return version.atLeast(VERSION_220);
+    }
+
+    /**
+     * Is it possible to enumerate the devices of the current audio output?
+     *
+     * @return <code>true</code> if available; <code>false</code> otherwise
+     *
+     * @since libvlc 2.2.0
+     */
+    public boolean isAudioOutputDeviceEnumerationAvailable() {
+        return version.atLeast(VERSION_220);
+    }
+
+    /**
+     * Is the LibVLC 3.0.0 API available?
+     * <p>
+     * This covers, for example, parsing with options, codec descriptions, extended title and
+     * chapter descriptions and getting the current audio output device.
+     *
+     * @return <code>true</code> if available; <code>false</code> otherwise
+     *
+     * @since libvlc 3.0.0
+     */
+    public boolean isLibVlc3Available() {
+        return version.atLeast(VERSION_300);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(100);
+        sb.append(getClass().getSimpleName()).append('[');
+        sb.append("version=").append(version).append(',');
+        sb.append("lastMediaPlayerEvent=").append(mediaPlayerEvents.get(mediaPlayerEvents.size() - 1)).append(',');
+        sb.append("lastMediaEvent=").append(mediaEvents.get(mediaEvents.size() - 1)).append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Get the last known media player event type supported by the run-time native event manager.
+     * <p>
+     * This is required to support earlier than LibVLC 2.2.0, and can be removed when such support
+     * is no longer required.
+     *
+     * @param version run-time version
+     * @return event type
+     */
+    private static libvlc_event_e lastKnownMediaPlayerEvent(Version version) {
+        if(version.atLeast(VERSION_300)) {
+            return libvlc_event_e.libvlc_MediaPlayerChapterChanged;
+        }
+        else if(version.atLeast(VERSION_220)) {
+            return libvlc_event_e.libvlc_MediaPlayerScrambledChanged;
+        }
+        else {
+            return libvlc_event_e.libvlc_MediaPlayerVout;
+        }
+    }
+
+    /**
+     * Get the last known media event type supported by the run-time native event manager.
+     * <p>
+     * This is required to support earlier than LibVLC 2.2.0, and can be removed when such support
+     * is no longer required.
+     *
+     * @param version run-time version
+     * @return event type
+     */
+    private static libvlc_event_e lastKnownMediaEvent(Version version) {
+        if(version.atLeast(VERSION_300)) {
+            return libvlc_event_e.libvlc_MediaParsedStatus;
+        }
+        else if(version.atLeast(VERSION_215)) {
+            return libvlc_event_e.libvlc_MediaSubItemTreeAdded;
+        }
+        else {
+            return libvlc_event_e.libvlc_MediaStateChanged;
+        }
+    }
+
+    /**
+     * Get the contiguous range of native events between two event types.
+     *
+     * @param first first event type, inclusive
+     * @param last last event type, inclusive
+     * @return unmodifiable list of events
+     */
+    private static List<libvlc_event_e> events(libvlc_event_e first, libvlc_event_e last) {
+        List<libvlc_event_e> result = new ArrayList<libvlc_event_e>();
+        for(libvlc_event_e event : libvlc_event_e.values()) {
+            if(event.intValue() >= first.intValue() && event.intValue() <= last.intValue()) {
+                result.add(event);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
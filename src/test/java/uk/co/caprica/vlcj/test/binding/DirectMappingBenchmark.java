@@ -0,0 +1,125 @@
+/*
+ * This file is part of VLCJ.
+ *
+ * VLCJ is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * VLCJ is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with VLCJ.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2009-2016 Caprica Software Limited.
+ */
+
+package uk.co.caprica.vlcj.test.binding;
+
+import uk.co.caprica.vlcj.binding.LibVlc;
+import uk.co.caprica.vlcj.binding.LibVlcDirectFunctions;
+import uk.co.caprica.vlcj.binding.LibVlcFactory;
+import uk.co.caprica.vlcj.binding.internal.libvlc_instance_t;
+import uk.co.caprica.vlcj.binding.internal.libvlc_media_player_t;
+import uk.co.caprica.vlcj.test.VlcjTest;
+
+/**
+ * Benchmark comparing the per-call overhead of the regular interface-mapped binding with the
+ * direct-mapped binding for the frequently polled native functions, both via the binding proxy and
+ * without it as the media player invokes them.
+ * <p>
+ * The functions are invoked on an idle media player so the time measured is almost entirely the
+ * overhead of the binding itself.
+ * <p>
+ * Specify the number of iterations on the command-line, or accept the default.
+ */
+public class DirectMappingBenchmark extends VlcjTest {
+
+    /**
+     * Default number of iterations for each function.
+     */
+    private static final int DEFAULT_ITERATIONS = 1000000;
+
+    /**
+     * Application entry point.
+     *
+     * @param args command-line arguments
+     * @throws Exception if an error occurs
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        LibVlc mapped = LibVlcFactory.factory().create();
+        LibVlc direct = LibVlcFactory.factory().direct().create();
+
+        libvlc_instance_t instance = mapped.libvlc_new(0, new String[0]);
+        libvlc_media_player_t mediaPlayer = mapped.libvlc_media_player_new(instance);
+
+        // Warm up both bindings so the JIT has compiled the hot paths before measuring
+        run(mapped, mediaPlayer, iterations / 10);
+        run(direct, mediaPlayer, iterations / 10);
+        runWithoutProxy(mediaPlayer, iterations / 10);
+
+        System.out.printf("%-12s %12s%n", "binding", "ns/call");
+        System.out.printf("%-12s %12.1f%n", "interface", run(mapped, mediaPlayer, iterations));
+        System.out.printf("%-12s %12.1f%n", "direct", run(direct, mediaPlayer, iterations));
+        System.out.printf("%-12s %12.1f%n", "no proxy", runWithoutProxy(mediaPlayer, iterations));
+
+        mapped.libvlc_media_player_release(mediaPlayer);
+        mapped.libvlc_release(instance);
+    }
+
+    /**
+     * Invoke each of the polled functions a number of times.
+     *
+     * @param libvlc native library binding
+     * @param mediaPlayer native media player
+     * @param iterations number of iterations
+     * @return average time for each function call, in nanoseconds
+     */
+    private static double run(LibVlc libvlc, libvlc_media_player_t mediaPlayer, int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < iterations; i++) {
+            sink += libvlc.libvlc_media_player_get_time(mediaPlayer);
+            sink += (long)libvlc.libvlc_media_player_get_position(mediaPlayer);
+            sink += libvlc.libvlc_media_player_is_playing(mediaPlayer);
+            sink += libvlc.libvlc_audio_get_volume(mediaPlayer);
+        }
+        long elapsed = System.nanoTime() - start;
+        // Use the result so the calls can not be optimised away
+        if(sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double)elapsed / (iterations * 4L);
+    }
+
+    /**
+     * Invoke each of the polled functions a number of times, without going through a binding proxy.
+     * <p>
+     * The direct-mapped functions must have been bound first, by creating a direct binding.
+     *
+     * @param mediaPlayer native media player
+     * @param iterations number of iterations
+     * @return average time for each function call, in nanoseconds
+     */
+    private static double runWithoutProxy(libvlc_media_player_t mediaPlayer, int iterations) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < iterations; i++) {
+            sink += LibVlcDirectFunctions.libvlc_media_player_get_time(mediaPlayer);
+            sink += (long)LibVlcDirectFunctions.libvlc_media_player_get_position(mediaPlayer);
+            sink += LibVlcDirectFunctions.libvlc_media_player_is_playing(mediaPlayer);
+            sink += LibVlcDirectFunctions.libvlc_audio_get_volume(mediaPlayer);
+        }
+        long elapsed = System.nanoTime() - start;
+        // Use the result so the calls can not be optimised away
+        if(sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return (double)elapsed / (iterations * 4L);
+    }
+}
@@ -100,6 +100,16 @@ public class MediaDirsTest extends VlcjTest implements MediaListEventListener {
         System.out.println("ITEM DELETED: " + index + " -> " + mediaList.items());
     }
 
+    @Override
+    public void mediaListItemsAdded(MediaList mediaList, int index, int count) {
+        System.out.println("ITEMS ADDED: " + index + "+" + count + " -> " + mediaList.items());
+    }
+
+    @Override
+    public void mediaListItemsDeleted(MediaList mediaList, int index, int count) {
+        System.out.println("ITEMS DELETED: " + index + "+" + count + " -> " + mediaList.items());
+    }
+
     @Override
     public void mediaListEndReached(MediaList mediaList) {
         System.out.println("END REACHED");